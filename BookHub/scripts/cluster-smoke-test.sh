@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Runs two app instances against one database and checks that a change made on one is visible on the other
+# right away, although both cache book reads for a minute (COALESCING_TTL_MS=60000).
+#
+# Requirements: docker compose, curl, jq.
+# Usage: scripts/cluster-smoke-test.sh
+set -euo pipefail
+
+NODE_A="${NODE_A:-http://localhost:8080}"
+NODE_B="${NODE_B:-http://localhost:8082}"
+
+cd "$(dirname "$0")/.."
+set -a; [ -f .env ] && . ./.env; set +a
+export COALESCING_TTL_MS=60000
+
+docker compose --profile cluster up -d --build db app app2
+for node in "$NODE_A" "$NODE_B"; do
+  for _ in $(seq 1 120); do
+    curl -fs -o /dev/null "$node/actuator/health" && break
+    sleep 1
+  done
+done
+
+token="$(curl -fs -H 'Content-Type: application/json' \
+  -d '{"email":"admin@library.com","password":"admin123"}' "$NODE_A/api/auth/login" | jq -r .token)"
+book="$(curl -fs "$NODE_A/api/books?page=0&size=1" | jq '.content[0]')"
+id="$(jq -r .id <<< "$book")"
+title="Cluster check $(date +%s)"
+
+# Warm node B's cache, then change the book on node A.
+curl -fs -o /dev/null "$NODE_B/api/books/$id"
+curl -fs -o /dev/null -X PUT -H "Authorization: Bearer $token" -H 'Content-Type: application/json' \
+  -d "$(jq --arg t "$title" '{title: $t, author: .author, genre: .genre, description: .description}' <<< "$book")" \
+  "$NODE_A/api/books/$id"
+
+for _ in $(seq 1 20); do
+  if [ "$(curl -fs "$NODE_B/api/books/$id" | jq -r .title)" = "$title" ]; then
+    echo "OK: node B sees the change made on node A"
+    exit 0
+  fi
+  sleep 0.1
+done
+echo "FAILED: node B still serves the old title after 2 s" >&2
+exit 1
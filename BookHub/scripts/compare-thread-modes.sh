@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+# Compares throughput and p99 latency of platform vs virtual request threads.
+# Both runs use the same Java 21 image; the virtual run adds the virtual-threads profile, which switches
+# spring.threads.virtual.enabled on and shortens the connection pool timeout.
+#
+# Requirements: docker compose, wrk, curl. Raise the open-file limit first (ulimit -n 65535).
+# Usage: scripts/compare-thread-modes.sh [connections] [duration]
+set -euo pipefail
+
+CONNECTIONS="${1:-10000}"
+DURATION="${2:-60s}"
+THREADS="${WRK_THREADS:-8}"
+BASE_URL="${BASE_URL:-http://localhost:8080}"
+PATHS=("/api/books?page=0&size=20" "/api/books/1/detail")
+OUT_DIR="${OUT_DIR:-./target/thread-modes}"
+
+cd "$(dirname "$0")/.."
+mkdir -p "$OUT_DIR"
+
+wait_for_app() {
+  for _ in $(seq 1 120); do
+    if curl -fs "$BASE_URL/api/books?page=0&size=1" > /dev/null; then return 0; fi
+    sleep 1
+  done
+  echo "Application did not become ready" >&2
+  exit 1
+}
+
+run_mode() {
+  local mode="$1" profiles="$2"
+  echo "==> $mode threads"
+  JAVA_VERSION=21 SPRING_PROFILES_ACTIVE="$profiles" docker compose up -d --build app
+  wait_for_app
+  for path in "${PATHS[@]}"; do
+    local name
+    name="$(echo "$path" | tr -c 'a-zA-Z0-9' '_')"
+    # Short warm-up so JIT and connection pools settle before the measured run.
+    wrk -t"$THREADS" -c100 -d10s "$BASE_URL$path" > /dev/null
+    wrk -t"$THREADS" -c"$CONNECTIONS" -d"$DURATION" --timeout 10s --latency "$BASE_URL$path" \
+      > "$OUT_DIR/$mode$name.txt"
+  done
+  docker compose stop app
+}
+
+summary() {
+  local file="$1"
+  local rps p99 errors
+  rps="$(awk '/Requests\/sec/ {print $2}' "$file")"
+  p99="$(awk '$1 == "99%" {print $2}' "$file")"
+  errors="$(awk '/Non-2xx|Socket errors/ {printf "%s ", $0}' "$file")"
+  printf '%-10s %-32s %12s %10s  %s\n' "$2" "$3" "$rps" "$p99" "${errors:--}"
+}
+
+docker compose up -d db
+run_mode platform prod
+run_mode virtual prod,virtual-threads
+
+printf '\n%-10s %-32s %12s %10s  %s\n' "mode" "path" "req/s" "p99" "errors"
+for mode in platform virtual; do
+  for path in "${PATHS[@]}"; do
+    name="$(echo "$path" | tr -c 'a-zA-Z0-9' '_')"
+    summary "$OUT_DIR/$mode$name.txt" "$mode" "$path"
+  done
+done
@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Measures time-to-first-request of the Docker image in two modes:
+#   baseline  default profile, no AOT, no CDS archive (the previous startup path)
+#   prod      prod profile with AOT-processed beans and the CDS archive built into the image
+# Each run starts a fresh container and polls a public endpoint until it answers; the time is taken from
+# `docker run` to the first successful response. The app's own figure (JVM start to first request, also
+# exported as application.first.request.time) is read from its log.
+#
+# Requirements: docker compose, docker, curl, Linux (the container uses host networking to reach the db).
+# Usage: scripts/measure-startup.sh [runs]
+set -euo pipefail
+
+RUNS="${1:-5}"
+IMAGE="${IMAGE:-bookhub:startup}"
+URL="${URL:-http://localhost:8080/api/books?page=0&size=1}"
+OUT_DIR="${OUT_DIR:-./target/startup}"
+
+cd "$(dirname "$0")/.."
+set -a; [ -f .env ] && . ./.env; set +a
+mkdir -p "$OUT_DIR"
+
+docker compose up -d db
+docker build -q -t "$IMAGE" --build-arg JAVA_VERSION="${JAVA_VERSION:-17}" --build-arg SPRING_AOT=true . > /dev/null
+
+now_ms() { date +%s%3N; }
+
+run_once() {
+  local mode="$1" run="$2" profile="$3" java_opts="$4"
+  local started elapsed container
+  started="$(now_ms)"
+  container="$(docker run -d --network host \
+    -e DB_URL="jdbc:postgresql://localhost:5432/${POSTGRES_DB:-librarydb}" \
+    -e DB_USERNAME="${POSTGRES_USER:-postgres}" -e DB_PASSWORD="${POSTGRES_PASSWORD:-postgres}" \
+    -e JWT_SECRET="${JWT_SECRET:?JWT_SECRET is required}" \
+    -e SPRING_PROFILES_ACTIVE="$profile" -e JAVA_OPTS="$java_opts" "$IMAGE")"
+  until curl -fs -o /dev/null "$URL"; do
+    if [ $(( $(now_ms) - started )) -gt 120000 ]; then
+      docker logs "$container" >&2; docker rm -f "$container" > /dev/null
+      echo "Application did not answer within 120 s" >&2; exit 1
+    fi
+    sleep 0.05
+  done
+  elapsed=$(( $(now_ms) - started ))
+  docker logs "$container" > "$OUT_DIR/$mode-$run.log" 2>&1
+  docker rm -f "$container" > /dev/null
+  local in_app
+  in_app="$(sed -n 's/.*completed \([0-9]*\) ms after JVM start.*/\1/p' "$OUT_DIR/$mode-$run.log" | head -1)"
+  printf '%-9s run %-3s %8s ms  (in app: %s ms)\n' "$mode" "$run" "$elapsed" "${in_app:--}" | tee -a "$OUT_DIR/results.txt"
+}
+
+: > "$OUT_DIR/results.txt"
+for run in $(seq 1 "$RUNS"); do
+  run_once baseline "$run" default ""
+  run_once prod "$run" prod "-XX:SharedArchiveFile=application/app.jsa -Dspring.aot.enabled=true"
+done
+
+echo
+awk '{ sum[$1] += $4; n[$1]++ } END { for (m in sum) printf "%-9s mean %8.0f ms over %d runs\n", m, sum[m] / n[m], n[m] }' \
+  "$OUT_DIR/results.txt"
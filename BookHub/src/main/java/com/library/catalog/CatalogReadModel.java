@@ -0,0 +1,414 @@
+package com.library.catalog;
+
+import com.library.dto.BookDTO;
+import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry;
+import com.library.entity.ChangeLogEntry.EntityType;
+import com.library.entity.ChangeLogEntry.Operation;
+import com.library.entity.ChangeLogEntry.Position;
+import com.library.repository.BookRepository;
+import com.library.repository.ChangeLogRepository;
+import com.library.repository.ReviewRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory read model of the catalog for listing, genre filtering and sorting by title, author or rating.
+ * Reads are served from an immutable {@link CatalogSnapshot} without touching the database; the returned
+ * lists are views over the snapshot's presorted permutations and shared {@link BookDTO}s.
+ * <p>
+ * Book and review writes on this instance are applied by a background patch shortly after commit; the same
+ * patch replays book and review changes from the change log, so writes made on other instances follow within
+ * the refresh interval. The log is read by (tx_id, id) position up to the oldest running transaction, so
+ * entries that commit out of order are still replayed, only later; review deletes made elsewhere (the log
+ * no longer knows their book) are reconciled by the periodic full rebuild. Until the first build completes, or when the catalog is
+ * larger than {@code app.catalog.max-books}, every read returns empty and callers use the database.
+ * <p>
+ * The snapshot is also saved to {@code app.catalog.snapshot-file} now and then and on shutdown. At startup a
+ * valid file is loaded instead of reading the whole catalog, and the changes made since its position are
+ * replayed from the change log.
+ * <p>
+ * Rating order is by Bayesian average with {@code app.ratings.prior-weight} virtual reviews at the overall
+ * average (see {@link CatalogSnapshot}); the overall average is refreshed by each full rebuild.
+ */
+@Component
+@Slf4j
+public class CatalogReadModel {
+    private static final int LOAD_BATCH = 5_000;
+    private static final int REPLAY_BATCH = 1_000;
+    private static final int MAX_REPLAY = 100_000;
+    private static final List<String> REPLAYED_TYPES = List.of(EntityType.BOOK.name(), EntityType.REVIEW.name());
+
+    private final BookRepository bookRepo;
+    private final ReviewRepository reviewRepo;
+    private final ChangeLogRepository changeLogRepo;
+    private final boolean enabled;
+    private final long maxBooks;
+    private final Path snapshotFile;
+    private final double priorWeight;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock(); // not a monitor: saving writes the file
+    private final Set<Long> pendingBooks = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingRatings = ConcurrentHashMap.newKeySet();
+    private volatile CatalogSnapshot snapshot;
+    private final AtomicLong revision = new AtomicLong();
+    private volatile Position savedVersion;
+
+    public CatalogReadModel(BookRepository bookRepo, ReviewRepository reviewRepo, ChangeLogRepository changeLogRepo,
+                            @Value("${app.catalog.enabled:true}") boolean enabled,
+                            @Value("${app.catalog.max-books:1000000}") long maxBooks,
+                            @Value("${app.catalog.snapshot-file:}") String snapshotFile,
+                            @Value("${app.ratings.prior-weight:10}") double priorWeight) {
+        this.bookRepo = bookRepo;
+        this.reviewRepo = reviewRepo;
+        this.changeLogRepo = changeLogRepo;
+        this.enabled = enabled;
+        this.maxBooks = maxBooks;
+        this.snapshotFile = snapshotFile == null || snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.priorWeight = priorWeight;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (!enabled) return;
+        if (!load()) rebuild();
+    }
+
+    /** Loads the saved snapshot and replays newer changes; false if there is no usable file. */
+    private boolean load() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) return false;
+        long started = System.nanoTime();
+        CatalogSnapshot loaded;
+        try {
+            loaded = CatalogSnapshotFile.read(snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Catalog snapshot {} not loaded, rebuilding from the database: {}", snapshotFile, e.getMessage());
+            return false;
+        }
+        if (loaded.size() > maxBooks) return false;
+        if (loaded.priorWeight != priorWeight) {
+            log.info("Catalog snapshot {} ranks with prior weight {}, rebuilding for {}", snapshotFile,
+                    loaded.priorWeight, priorWeight);
+            return false;
+        }
+        writeLock.lock();
+        try {
+            publish(loaded);
+            savedVersion = loaded.version;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Catalog read model loaded from {}: {} books at version {} in {} ms", snapshotFile, loaded.size(),
+                loaded.version, (System.nanoTime() - started) / 1_000_000);
+        applyPending();
+        return snapshot != null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.catalog.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!enabled) return;
+        writeLock.lock();
+        try {
+            long count = bookRepo.count();
+            if (count > maxBooks) {
+                log.warn("Catalog read model not built: {} books exceed app.catalog.max-books={}", count, maxBooks);
+                publish(null);
+                pendingBooks.clear();
+                pendingRatings.clear();
+                return;
+            }
+            long started = System.nanoTime();
+            // Read before the books: every transaction below the horizon has finished, so the load sees its
+            // changes; entries from the horizon on are replayed, even those already included.
+            Position version = new Position(changeLogRepo.findVisibleHorizon(), 0);
+            List<Book> books = new ArrayList<>((int) count);
+            long lastId = 0;
+            List<Book> batch;
+            do {
+                batch = bookRepo.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(LOAD_BATCH));
+                books.addAll(batch);
+                if (!batch.isEmpty()) lastId = batch.get(batch.size() - 1).getId();
+            } while (batch.size() == LOAD_BATCH);
+            publish(CatalogSnapshot.build(books, ratings(reviewRepo.sumRatingsByBook()), version, priorWeight));
+            log.info("Catalog read model built: {} books in {} ms", books.size(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Applies local changes and change-log entries recorded since the last run as one patch. */
+    @Scheduled(fixedDelayString = "${app.catalog.refresh-interval-ms:500}")
+    public void applyPending() {
+        if (snapshot == null) return;
+        writeLock.lock();
+        try {
+            CatalogSnapshot current = snapshot;
+            if (current == null) return;
+            Set<Long> bookIds = drain(pendingBooks);
+            Set<Long> ratingIds = drain(pendingRatings);
+            Position version = replay(current.version, bookIds, ratingIds);
+            if (version == null) {
+                log.info("Catalog read model is more than {} changes behind, rebuilding", MAX_REPLAY);
+                rebuild();
+                return;
+            }
+            if (bookIds.isEmpty() && ratingIds.isEmpty() && version.equals(current.version)) return;
+            Map<Long, Book> upserts = new HashMap<>();
+            if (!bookIds.isEmpty()) {
+                for (Book b : bookRepo.findAllById(bookIds)) upserts.put(b.getId(), b);
+            }
+            Set<Long> deleted = new HashSet<>(bookIds);
+            deleted.removeAll(upserts.keySet());
+            Map<Long, long[]> ratings = new HashMap<>();
+            if (!ratingIds.isEmpty()) {
+                ratingIds.forEach(id -> ratings.put(id, new long[]{0, 0}));
+                // Primary-key lookups of the counters triggers keep in book_rating_stats, not a scan of reviews
+                ratings.putAll(ratings(reviewRepo.sumRatingsByBookIds(ratingIds)));
+            }
+            publish(current.patch(upserts, deleted, ratings, version));
+            log.debug("Catalog read model patched: {} books, {} ratings", bookIds.size(), ratingIds.size());
+        } catch (RuntimeException e) {
+            log.warn("Catalog patch failed, next rebuild will catch up: {}", e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the books and ratings changed after {@code since} according to the change log. Returns the position
+     * of the last replayed entry, or null if there are more than {@link #MAX_REPLAY} entries to replay.
+     */
+    private Position replay(Position since, Set<Long> bookIds, Set<Long> ratingIds) {
+        Position version = since;
+        int replayed = 0;
+        List<ChangeLogEntry> batch;
+        do {
+            batch = changeLogRepo.findChangesAfter(version.txId(), version.id(), REPLAYED_TYPES, REPLAY_BATCH);
+            Set<Long> reviewIds = new HashSet<>();
+            for (ChangeLogEntry entry : batch) {
+                if (entry.getEntityType() == EntityType.BOOK) {
+                    bookIds.add(entry.getEntityId());
+                } else if (entry.getOperation() == Operation.UPSERT) {
+                    reviewIds.add(entry.getEntityId());
+                }
+                version = Position.of(entry);
+            }
+            if (!reviewIds.isEmpty()) ratingIds.addAll(reviewRepo.findBookIdsByIdIn(reviewIds));
+            replayed += batch.size();
+            if (replayed > MAX_REPLAY) return null;
+        } while (batch.size() == REPLAY_BATCH);
+        return version;
+    }
+
+    /** Saves the current snapshot unless the file already holds its version. */
+    @Scheduled(fixedDelayString = "${app.catalog.snapshot-interval-ms:300000}",
+            initialDelayString = "${app.catalog.snapshot-interval-ms:300000}")
+    public void saveSnapshot() {
+        snapshotLock.lock();
+        try {
+            CatalogSnapshot s = snapshot;
+            if (snapshotFile == null || s == null || s.version.equals(savedVersion)) return;
+            long started = System.nanoTime();
+            try {
+                CatalogSnapshotFile.write(s, snapshotFile);
+                savedVersion = s.version;
+                log.info("Catalog snapshot saved to {}: {} books at version {} in {} ms", snapshotFile, s.size(),
+                        s.version, (System.nanoTime() - started) / 1_000_000);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Catalog snapshot not saved to {}: {}", snapshotFile, e.getMessage());
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        saveSnapshot();
+    }
+
+    /** Records a created, updated or deleted book; applied after the current transaction commits. */
+    public void bookChanged(Long bookId) {
+        if (!enabled) return;
+        afterCommit(() -> pendingBooks.add(bookId));
+    }
+
+    /** Records a review change affecting the book's rating. */
+    public void ratingChanged(Long bookId) {
+        if (!enabled) return;
+        afterCommit(() -> pendingRatings.add(bookId));
+    }
+
+    /**
+     * Increases whenever the served snapshot is replaced, so results derived from the model can tell
+     * whether they are still current.
+     */
+    public long revision() {
+        return revision.get();
+    }
+
+    /** A page sorted by at most one of title, author, rating or id; empty if the model cannot serve it. */
+    public Optional<Page<BookDTO>> page(Pageable pageable) {
+        CatalogSnapshot s = snapshot;
+        if (s == null || pageable.isUnpaged()) return Optional.empty();
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.size() > 1) return Optional.empty();
+        Sort.Order order = orders.isEmpty() ? null : orders.get(0);
+        int[] permutation;
+        boolean reversed = order != null && order.isDescending();
+        switch (order == null ? "id" : order.getProperty()) {
+            case "id" -> permutation = null;
+            case "title" -> permutation = s.byTitle;
+            case "author" -> permutation = s.byAuthor;
+            case "rating" -> {
+                // The rating permutation is best first, so descending is its natural direction and ascending (the
+                // default) lists the worst rated first, as the database fallback does.
+                permutation = s.byRating;
+                reversed = !reversed;
+            }
+            default -> {
+                return Optional.empty();
+            }
+        }
+        int total = permutation == null ? s.size() : permutation.length;
+        long offset = Math.min(pageable.getOffset(), total);
+        int length = (int) Math.min(pageable.getPageSize(), total - offset);
+        return Optional.of(new PageImpl<>(new RowList(s.views, permutation, total, (int) offset, length, reversed), pageable, total));
+    }
+
+    /** All books whose genre equals the given one ignoring case. */
+    public Optional<List<BookDTO>> byGenre(String genre) {
+        CatalogSnapshot s = snapshot;
+        if (s == null) return Optional.empty();
+        if (genre == null) return Optional.of(List.of());
+        List<BookDTO> result = null;
+        for (int code = 0; code < s.genres.size(); code++) {
+            if (!genre.equalsIgnoreCase(s.genres.decode(code))) continue;
+            int[] rows = s.byGenre[code];
+            List<BookDTO> rowsView = new RowList(s.views, rows, rows.length, 0, rows.length, false);
+            if (result == null) {
+                result = rowsView;
+            } else {
+                result = new ArrayList<>(result);
+                result.addAll(rowsView);
+            }
+        }
+        return Optional.of(result == null ? List.of() : result);
+    }
+
+    /** A page of the reviewed books of a genre (ignoring case), best rated first. */
+    public Optional<Page<BookDTO>> genreByRating(String genre, Pageable pageable) {
+        CatalogSnapshot s = snapshot;
+        if (s == null || pageable.isUnpaged()) return Optional.empty();
+        BitSet codes = new BitSet();
+        for (int code = 0; code < s.genres.size(); code++) {
+            if (genre != null && genre.equalsIgnoreCase(s.genres.decode(code))) codes.set(code);
+        }
+        int[] rows = codes.isEmpty() ? new int[0] : s.byRating(codes);
+        long offset = Math.min(pageable.getOffset(), rows.length);
+        int length = (int) Math.min(pageable.getPageSize(), rows.length - offset);
+        return Optional.of(new PageImpl<>(new RowList(s.views, rows, rows.length, (int) offset, length, false), pageable, rows.length));
+    }
+
+    /** Reviewed books with the best rating score. */
+    public Optional<List<BookDTO>> top(int limit) {
+        CatalogSnapshot s = snapshot;
+        if (s == null) return Optional.empty();
+        int length = Math.max(0, Math.min(limit, s.byRating.length));
+        return Optional.of(new RowList(s.views, s.byRating, s.byRating.length, 0, length, false));
+    }
+
+    private void publish(CatalogSnapshot next) {
+        snapshot = next;
+        revision.incrementAndGet();
+    }
+
+    private static Map<Long, long[]> ratings(List<Object[]> rows) {
+        Map<Long, long[]> ratings = new HashMap<>(rows.size() * 2);
+        for (Object[] r : rows) {
+            ratings.put((Long) r[0], new long[]{((Number) r[1]).longValue(), ((Number) r[2]).longValue()});
+        }
+        return ratings;
+    }
+
+    private static Set<Long> drain(Set<Long> pending) {
+        Set<Long> drained = new HashSet<>();
+        for (Long id : pending) {
+            if (pending.remove(id)) drained.add(id);
+        }
+        return drained;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** Read-only window over a permutation of snapshot rows ({@code null} = row order). */
+    private static final class RowList extends AbstractList<BookDTO> {
+        private final BookDTO[] views;
+        private final int[] permutation;
+        private final int total;
+        private final int offset;
+        private final int length;
+        private final boolean reversed;
+
+        RowList(BookDTO[] views, int[] permutation, int total, int offset, int length, boolean reversed) {
+            this.views = views;
+            this.permutation = permutation;
+            this.total = total;
+            this.offset = offset;
+            this.length = length;
+            this.reversed = reversed;
+        }
+
+        @Override
+        public BookDTO get(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+            int position = reversed ? total - 1 - (offset + index) : offset + index;
+            return views[permutation == null ? position : permutation[position]];
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+}
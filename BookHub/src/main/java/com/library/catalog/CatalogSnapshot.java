@@ -0,0 +1,367 @@
+package com.library.catalog;
+
+import com.library.dto.BookDTO;
+import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable column store of the catalog. Rows are ordered by book id; genre and author are dictionary codes,
+ * ratings are kept as review count and sum, and every sort key has a presorted permutation of row numbers.
+ * Changes produce a new snapshot ({@link #patch}); readers keep using the one they started with.
+ * {@link #version} is the change-log position the snapshot includes all changes up to.
+ * <p>
+ * Books are ranked by a Bayesian average: each book's reviews are blended with {@link #priorWeight} virtual
+ * reviews at {@link #priorMean}, the average of all reviews when the snapshot was built. A single 5-star review
+ * then no longer outranks thousands of 4.8s. The prior is fixed for the life of a snapshot and its patches, so
+ * a review only moves its own book; the next full build picks up the new overall average.
+ */
+final class CatalogSnapshot {
+    final Position version;
+    final double priorMean;
+    final double priorWeight;
+    final long[] ids;
+    final String[] titles;
+    final int[] authorCodes;
+    final int[] genreCodes;
+    final int[] ratingCounts;
+    final long[] ratingSums;
+    final BookDTO[] views;
+    final Dictionary authors;
+    final Dictionary genres;
+    final int[] byTitle;
+    final int[] byAuthor;
+    /** Reviewed books only, best score first. */
+    final int[] byRating;
+    /** Rows per genre code, in id order. */
+    final int[][] byGenre;
+    /** Reviewed rows per genre code, in {@link #byRating} order. */
+    final int[][] byGenreRating;
+
+    private CatalogSnapshot(Position version, double priorMean, double priorWeight, long[] ids, String[] titles, int[] authorCodes, int[] genreCodes, int[] ratingCounts,
+                            long[] ratingSums, BookDTO[] views, Dictionary authors, Dictionary genres,
+                            int[] byTitle, int[] byAuthor, int[] byRating, int[][] byGenre, int[][] byGenreRating) {
+        this.version = version;
+        this.priorMean = priorMean;
+        this.priorWeight = priorWeight;
+        this.ids = ids;
+        this.titles = titles;
+        this.authorCodes = authorCodes;
+        this.genreCodes = genreCodes;
+        this.ratingCounts = ratingCounts;
+        this.ratingSums = ratingSums;
+        this.views = views;
+        this.authors = authors;
+        this.genres = genres;
+        this.byTitle = byTitle;
+        this.byAuthor = byAuthor;
+        this.byRating = byRating;
+        this.byGenre = byGenre != null ? byGenre : groupByGenre(genreCodes, genres.size());
+        this.byGenreRating = byGenreRating != null ? byGenreRating : groupByGenre(byRating, genreCodes, genres.size());
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    double averageRating(int row) {
+        return ratingCounts[row] == 0 ? 0 : (double) ratingSums[row] / ratingCounts[row];
+    }
+
+    /** The ranking score of a row: its average rating pulled towards the prior by {@link #priorWeight} reviews. */
+    double score(int row) {
+        return score(priorMean, priorWeight, ratingCounts[row], ratingSums[row]);
+    }
+
+    static double score(double priorMean, double priorWeight, long count, long sum) {
+        return (priorWeight * priorMean + sum) / (priorWeight + count);
+    }
+
+    /**
+     * Reviewed rows of the given genre codes, best score first. A single genre is a stored permutation; genres
+     * that differ only in case are taken from {@link #byRating} in one pass.
+     */
+    int[] byRating(BitSet codes) {
+        if (codes.cardinality() == 1) return byGenreRating[codes.nextSetBit(0)];
+        return Arrays.stream(byRating).filter(row -> genreCodes[row] != Dictionary.NONE && codes.get(genreCodes[row])).toArray();
+    }
+
+    /**
+     * Builds a snapshot from books in ascending id order and per-book {count, sum} rating aggregates. The prior
+     * mean is the average of all the given ratings.
+     */
+    static CatalogSnapshot build(List<Book> books, Map<Long, long[]> ratings, Position version, double priorWeight) {
+        int n = books.size();
+        Columns c = new Columns(n, new Dictionary(), new Dictionary());
+        long count = 0;
+        long sum = 0;
+        for (long[] rating : ratings.values()) {
+            count += rating[0];
+            sum += rating[1];
+        }
+        c.prior(count == 0 ? 0 : (double) sum / count, priorWeight);
+        for (int row = 0; row < n; row++) c.set(row, books.get(row), ratings.get(books.get(row).getId()));
+        return c.sorted(null, null, null, version);
+    }
+
+    /** Reassembles a snapshot from stored columns and permutations, without sorting. */
+    static CatalogSnapshot restore(Position version, double priorMean, double priorWeight, long[] ids, String[] titles, int[] authorCodes, int[] genreCodes,
+                                   int[] ratingCounts, long[] ratingSums, BookDTO[] views, Dictionary authors,
+                                   Dictionary genres, int[] byTitle, int[] byAuthor, int[] byRating) {
+        return new CatalogSnapshot(version, priorMean, priorWeight, ids, titles, authorCodes, genreCodes, ratingCounts,
+                ratingSums, views, authors, genres, byTitle, byAuthor, byRating, null, null);
+    }
+
+    /**
+     * Applies upserted and deleted books and new rating aggregates. Unchanged rows keep their relative order
+     * in every permutation, so only the changed rows are sorted and merged in: a batch of k changes costs
+     * O(k log k) comparisons plus one linear pass, with no aggregation over the other books. A batch of rating
+     * changes only ({@link #rerate}) shares everything but the rating columns with this snapshot.
+     */
+    CatalogSnapshot patch(Map<Long, Book> upserts, Set<Long> deleted, Map<Long, long[]> ratings, Position newVersion) {
+        if (upserts.isEmpty() && deleted.isEmpty()) return rerate(ratings, newVersion);
+        long[] newIds = mergedIds(upserts, deleted);
+        int n = newIds.length;
+        Columns c = new Columns(n, authors.copy(), genres.copy());
+        c.prior(priorMean, priorWeight);
+        int[] oldToNew = new int[ids.length];
+        Arrays.fill(oldToNew, -1);
+        boolean[] changed = new boolean[n];
+        int old = 0;
+        for (int row = 0; row < n; row++) {
+            long id = newIds[row];
+            while (old < ids.length && ids[old] < id) old++;
+            boolean existed = old < ids.length && ids[old] == id;
+            Book book = upserts.get(id);
+            long[] rating = ratings.get(id);
+            if (book != null) {
+                c.set(row, book, rating != null ? rating : existed ? new long[]{ratingCounts[old], ratingSums[old]} : null);
+            } else {
+                c.copy(row, this, old);
+                if (rating != null) c.rate(row, rating);
+            }
+            changed[row] = book != null || rating != null || !existed;
+            if (existed) oldToNew[old] = changed[row] ? -1 : row;
+        }
+        return c.sorted(this, oldToNew, changed, newVersion);
+    }
+
+    /**
+     * Applies rating changes to existing books. Columns, dictionaries and the title, author and genre orders are
+     * shared with this snapshot; the rating columns are copied (two array copies), the changed rows are
+     * removed from {@link #byRating} and merged back in, and only the genres of changed rows get a new rating
+     * order. Ratings of unknown books are ignored, as they are in a full patch.
+     */
+    private CatalogSnapshot rerate(Map<Long, long[]> ratings, Position newVersion) {
+        int[] counts = ratingCounts.clone();
+        long[] sums = ratingSums.clone();
+        BitSet changed = new BitSet();
+        BitSet changedGenres = new BitSet();
+        for (Map.Entry<Long, long[]> rating : ratings.entrySet()) {
+            int row = Arrays.binarySearch(ids, rating.getKey());
+            if (row < 0) continue;
+            counts[row] = (int) rating.getValue()[0];
+            sums[row] = rating.getValue()[1];
+            changed.set(row);
+            if (genreCodes[row] != Dictionary.NONE) changedGenres.set(genreCodes[row]);
+        }
+        RowOrder order = (a, b) -> {
+            int c = Double.compare(score(priorMean, priorWeight, counts[b], sums[b]),
+                    score(priorMean, priorWeight, counts[a], sums[a]));
+            return c != 0 ? c : Long.compare(ids[a], ids[b]);
+        };
+        int[] rated = Columns.sort(changed.stream().filter(row -> counts[row] > 0).toArray(), order);
+        int[] newByRating = Columns.merge(without(byRating, changed), rated, order);
+        int[][] newByGenreRating = byGenreRating.clone();
+        for (int g = changedGenres.nextSetBit(0); g >= 0; g = changedGenres.nextSetBit(g + 1)) {
+            int code = g;
+            int[] genreRated = Arrays.stream(rated).filter(row -> genreCodes[row] == code).toArray();
+            newByGenreRating[g] = Columns.merge(without(byGenreRating[g], changed), genreRated, order);
+        }
+        return new CatalogSnapshot(newVersion, priorMean, priorWeight, ids, titles, authorCodes, genreCodes, counts, sums,
+                views, authors, genres, byTitle, byAuthor, newByRating, byGenre, newByGenreRating);
+    }
+
+    /** The permutation without the given rows. */
+    private static int[] without(int[] permutation, BitSet rows) {
+        int[] result = new int[permutation.length];
+        int k = 0;
+        for (int row : permutation) if (!rows.get(row)) result[k++] = row;
+        return k == result.length ? permutation : Arrays.copyOf(result, k);
+    }
+
+    private long[] mergedIds(Map<Long, Book> upserts, Set<Long> deleted) {
+        long[] added = upserts.keySet().stream().mapToLong(Long::longValue)
+                .filter(id -> Arrays.binarySearch(ids, id) < 0).sorted().toArray();
+        long[] merged = new long[ids.length + added.length];
+        int i = 0, j = 0, k = 0;
+        while (i < ids.length || j < added.length) {
+            long next = j >= added.length || (i < ids.length && ids[i] < added[j]) ? ids[i++] : added[j++];
+            if (!deleted.contains(next) || upserts.containsKey(next)) merged[k++] = next;
+        }
+        return Arrays.copyOf(merged, k);
+    }
+
+    private static int[][] groupByGenre(int[] genreCodes, int genreCount) {
+        int[] counts = new int[genreCount];
+        for (int code : genreCodes) if (code != Dictionary.NONE) counts[code]++;
+        int[][] groups = new int[genreCount][];
+        for (int g = 0; g < genreCount; g++) groups[g] = new int[counts[g]];
+        Arrays.fill(counts, 0);
+        for (int row = 0; row < genreCodes.length; row++) {
+            int code = genreCodes[row];
+            if (code != Dictionary.NONE) groups[code][counts[code]++] = row;
+        }
+        return groups;
+    }
+
+    private static int[][] groupByGenre(int[] rows, int[] genreCodes, int genreCount) {
+        int[] counts = new int[genreCount];
+        for (int row : rows) if (genreCodes[row] != Dictionary.NONE) counts[genreCodes[row]]++;
+        int[][] groups = new int[genreCount][];
+        for (int g = 0; g < genreCount; g++) groups[g] = new int[counts[g]];
+        Arrays.fill(counts, 0);
+        for (int row : rows) {
+            int code = genreCodes[row];
+            if (code != Dictionary.NONE) groups[code][counts[code]++] = row;
+        }
+        return groups;
+    }
+
+    private interface RowOrder {
+        int compare(int a, int b);
+    }
+
+    /** Mutable columns of a snapshot under construction. */
+    private static final class Columns {
+        final long[] ids;
+        final String[] titles;
+        final int[] authorCodes;
+        final int[] genreCodes;
+        final int[] ratingCounts;
+        final long[] ratingSums;
+        final BookDTO[] views;
+        final Dictionary authors;
+        final Dictionary genres;
+        double priorMean;
+        double priorWeight;
+
+        Columns(int n, Dictionary authors, Dictionary genres) {
+            this.ids = new long[n];
+            this.titles = new String[n];
+            this.authorCodes = new int[n];
+            this.genreCodes = new int[n];
+            this.ratingCounts = new int[n];
+            this.ratingSums = new long[n];
+            this.views = new BookDTO[n];
+            this.authors = authors;
+            this.genres = genres;
+        }
+
+        void prior(double mean, double weight) {
+            priorMean = mean;
+            priorWeight = weight;
+        }
+
+        void set(int row, Book book, long[] rating) {
+            ids[row] = book.getId();
+            titles[row] = book.getTitle();
+            authorCodes[row] = authors.encode(book.getAuthor());
+            genreCodes[row] = genres.encode(book.getGenre());
+            views[row] = BookDTO.fromEntity(book);
+            if (rating != null) rate(row, rating);
+        }
+
+        void copy(int row, CatalogSnapshot from, int fromRow) {
+            ids[row] = from.ids[fromRow];
+            titles[row] = from.titles[fromRow];
+            authorCodes[row] = from.authorCodes[fromRow];
+            genreCodes[row] = from.genreCodes[fromRow];
+            ratingCounts[row] = from.ratingCounts[fromRow];
+            ratingSums[row] = from.ratingSums[fromRow];
+            views[row] = from.views[fromRow];
+        }
+
+        void rate(int row, long[] rating) {
+            ratingCounts[row] = (int) rating[0];
+            ratingSums[row] = rating[1];
+        }
+
+        int compareTitle(int a, int b) {
+            int c = compareText(titles[a], titles[b]);
+            return c != 0 ? c : Long.compare(ids[a], ids[b]);
+        }
+
+        int compareAuthor(int a, int b) {
+            int c = compareText(authors.decode(authorCodes[a]), authors.decode(authorCodes[b]));
+            return c != 0 ? c : compareTitle(a, b);
+        }
+
+        int compareRating(int a, int b) {
+            int c = Double.compare(score(priorMean, priorWeight, ratingCounts[b], ratingSums[b]),
+                    score(priorMean, priorWeight, ratingCounts[a], ratingSums[a]));
+            return c != 0 ? c : Long.compare(ids[a], ids[b]);
+        }
+
+        /**
+         * Finishes the snapshot. Without a previous snapshot the permutations are sorted from scratch;
+         * otherwise the previous order of unchanged rows is reused and the changed rows are merged in.
+         */
+        CatalogSnapshot sorted(CatalogSnapshot previous, int[] oldToNew, boolean[] changed, Position version) {
+            int n = ids.length;
+            int[] byTitle;
+            int[] byAuthor;
+            int[] byRating;
+            if (previous == null) {
+                byTitle = sort(IntStream.range(0, n).toArray(), this::compareTitle);
+                byAuthor = sort(IntStream.range(0, n).toArray(), this::compareAuthor);
+                byRating = sort(IntStream.range(0, n).filter(r -> ratingCounts[r] > 0).toArray(), this::compareRating);
+            } else {
+                int[] changedRows = IntStream.range(0, n).filter(r -> changed[r]).toArray();
+                byTitle = merge(remap(previous.byTitle, oldToNew), sort(changedRows.clone(), this::compareTitle), this::compareTitle);
+                byAuthor = merge(remap(previous.byAuthor, oldToNew), sort(changedRows.clone(), this::compareAuthor), this::compareAuthor);
+                int[] changedRated = Arrays.stream(changedRows).filter(r -> ratingCounts[r] > 0).toArray();
+                byRating = merge(remap(previous.byRating, oldToNew), sort(changedRated, this::compareRating), this::compareRating);
+            }
+            return new CatalogSnapshot(version, priorMean, priorWeight, ids, titles, authorCodes, genreCodes, ratingCounts,
+                    ratingSums, views, authors, genres, byTitle, byAuthor, byRating, null, null);
+        }
+
+        private static int compareText(String a, String b) {
+            if (a == null || b == null) return a == null ? (b == null ? 0 : 1) : -1;
+            int c = a.compareToIgnoreCase(b);
+            return c != 0 ? c : a.compareTo(b);
+        }
+
+        private static int[] sort(int[] rows, RowOrder order) {
+            return Arrays.stream(rows).boxed().sorted(order::compare).mapToInt(Integer::intValue).toArray();
+        }
+
+        /** Old permutation with rows renumbered; rows that changed or disappeared are dropped. */
+        private static int[] remap(int[] permutation, int[] oldToNew) {
+            int[] result = new int[permutation.length];
+            int k = 0;
+            for (int oldRow : permutation) {
+                int row = oldToNew[oldRow];
+                if (row >= 0) result[k++] = row;
+            }
+            return Arrays.copyOf(result, k);
+        }
+
+        private static int[] merge(int[] a, int[] b, RowOrder order) {
+            int[] result = new int[a.length + b.length];
+            int i = 0, j = 0, k = 0;
+            while (i < a.length && j < b.length) result[k++] = order.compare(a[i], b[j]) <= 0 ? a[i++] : b[j++];
+            while (i < a.length) result[k++] = a[i++];
+            while (j < b.length) result[k++] = b[j++];
+            return result;
+        }
+    }
+}
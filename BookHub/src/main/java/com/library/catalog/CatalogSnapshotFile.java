@@ -0,0 +1,183 @@
+package com.library.catalog;
+
+import com.library.dto.BookDTO;
+import com.library.entity.ChangeLogEntry.Position;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary file format of a {@link CatalogSnapshot}. A fixed header (magic, format, change-log position,
+ * rating prior, row and dictionary sizes, payload length and CRC32) is followed by the columns, the sorted permutations,
+ * the dictionaries and the remaining book fields, so loading needs no sorting and no database access.
+ * <p>
+ * Files are written to a temporary sibling and atomically moved into place; reading maps the file and
+ * rejects it if the header or checksum does not match.
+ */
+final class CatalogSnapshotFile {
+    private static final int MAGIC = 0x42484353; // "BHCS"
+    private static final int FORMAT = 3;
+    private static final int HEADER_BYTES = 72;
+
+    private CatalogSnapshotFile() {
+    }
+
+    static void write(CatalogSnapshot s, Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            // Flushed but not closed: closing the stream would close the channel before the header is written.
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            writePayload(s, out);
+            out.flush();
+            long payloadBytes = channel.position() - HEADER_BYTES;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC).putInt(FORMAT).putLong(s.version.txId()).putLong(s.version.id()).putDouble(s.priorMean).putDouble(s.priorWeight)
+                    .putInt(s.size()).putInt(s.byRating.length).putInt(s.authors.size()).putInt(s.genres.size())
+                    .putLong(payloadBytes).putLong(crc.getValue());
+            header.flip();
+            while (header.hasRemaining()) channel.write(header, header.position());
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps and decodes a snapshot file. Columns are bulk-copied out of the mapping, so the result does not
+     * hold on to the file once this returns.
+     */
+    static CatalogSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Unsupported snapshot size " + size);
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buf.getInt() != MAGIC) throw new IOException("Not a catalog snapshot");
+            int format = buf.getInt();
+            if (format != FORMAT) throw new IOException("Unsupported snapshot format " + format);
+            Position version = new Position(buf.getLong(), buf.getLong());
+            double priorMean = buf.getDouble();
+            double priorWeight = buf.getDouble();
+            int rows = buf.getInt();
+            int rated = buf.getInt();
+            int authorCount = buf.getInt();
+            int genreCount = buf.getInt();
+            long payloadBytes = buf.getLong();
+            long checksum = buf.getLong();
+            if (HEADER_BYTES + payloadBytes != size) throw new IOException("Truncated catalog snapshot");
+
+            ByteBuffer payload = buf.slice(HEADER_BYTES, (int) payloadBytes);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) throw new IOException("Catalog snapshot checksum mismatch");
+            return readPayload(payload, version, priorMean, priorWeight, rows, rated, authorCount, genreCount);
+        }
+    }
+
+    private static void writePayload(CatalogSnapshot s, DataOutputStream out) throws IOException {
+        for (long id : s.ids) out.writeLong(id);
+        writeInts(out, s.authorCodes);
+        writeInts(out, s.genreCodes);
+        writeInts(out, s.ratingCounts);
+        for (long sum : s.ratingSums) out.writeLong(sum);
+        writeInts(out, s.byTitle);
+        writeInts(out, s.byAuthor);
+        writeInts(out, s.byRating);
+        for (int code = 0; code < s.authors.size(); code++) writeString(out, s.authors.decode(code));
+        for (int code = 0; code < s.genres.size(); code++) writeString(out, s.genres.decode(code));
+        for (BookDTO view : s.views) {
+            writeString(out, view.getTitle());
+            writeString(out, view.getDescription());
+            writeString(out, view.getCoverUrl());
+            writeString(out, view.getPdfUrl());
+        }
+    }
+
+    private static CatalogSnapshot readPayload(ByteBuffer in, Position version, double priorMean, double priorWeight,
+                                               int rows, int rated, int authorCount, int genreCount) {
+        long[] ids = readLongs(in, rows);
+        int[] authorCodes = readInts(in, rows);
+        int[] genreCodes = readInts(in, rows);
+        int[] ratingCounts = readInts(in, rows);
+        long[] ratingSums = readLongs(in, rows);
+        int[] byTitle = readInts(in, rows);
+        int[] byAuthor = readInts(in, rows);
+        int[] byRating = readInts(in, rated);
+        Dictionary authors = new Dictionary();
+        for (int i = 0; i < authorCount; i++) authors.encode(readString(in));
+        Dictionary genres = new Dictionary();
+        for (int i = 0; i < genreCount; i++) genres.encode(readString(in));
+
+        String[] titles = new String[rows];
+        BookDTO[] views = new BookDTO[rows];
+        for (int row = 0; row < rows; row++) {
+            titles[row] = readString(in);
+            views[row] = BookDTO.builder()
+                    .id(ids[row])
+                    .title(titles[row])
+                    .author(authors.decode(authorCodes[row]))
+                    .genre(genres.decode(genreCodes[row]))
+                    .description(readString(in))
+                    .coverUrl(readString(in))
+                    .pdfUrl(readString(in))
+                    .build();
+        }
+        return CatalogSnapshot.restore(version, priorMean, priorWeight, ids, titles, authorCodes, genreCodes, ratingCounts, ratingSums,
+                views, authors, genres, byTitle, byAuthor, byRating);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int v : values) out.writeInt(v);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long[] readLongs(ByteBuffer in, int n) {
+        long[] values = new long[n];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + n * Long.BYTES);
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer in, int n) {
+        int[] values = new int[n];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + n * Integer.BYTES);
+        return values;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package com.library.catalog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Append-only string dictionary; values are stored once and rows refer to them by int code. */
+final class Dictionary {
+    static final int NONE = -1;
+
+    private final Map<String, Integer> codes;
+    private String[] values;
+    private int size;
+
+    Dictionary() {
+        this.codes = new HashMap<>();
+        this.values = new String[16];
+    }
+
+    private Dictionary(Dictionary other) {
+        this.codes = new HashMap<>(other.codes);
+        this.values = Arrays.copyOf(other.values, Math.max(16, other.size + other.size / 4));
+        this.size = other.size;
+    }
+
+    /** Copy for a new snapshot; the original stays unchanged for readers of the old one. */
+    Dictionary copy() {
+        return new Dictionary(this);
+    }
+
+    int encode(String value) {
+        if (value == null) return NONE;
+        Integer code = codes.get(value);
+        if (code != null) return code;
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    String decode(int code) {
+        return code == NONE ? null : values[code];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,210 @@
+package com.library.cluster;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cluster-wide messages over PostgreSQL {@code LISTEN/NOTIFY}. A message is a topic and a set of keys
+ * (typically ids whose cached state is stale); {@link #ALL} stands for every key of the topic.
+ * <p>
+ * Publishing is deferred until the current transaction commits and only queues the key: one background
+ * thread holds a dedicated connection (outside the pool), sends the queued keys every flush interval as
+ * one coalesced notification, and dispatches notifications from other instances to the subscribers.
+ * After a lost connection it reconnects with backoff and delivers {@link #ALL} for every subscribed topic,
+ * since notifications sent in the meantime are gone. Instances never receive their own messages.
+ */
+@Component
+@Slf4j
+public class ClusterEventBus {
+    public static final String ALL = "*";
+    private static final String CHANNEL = "bookhub_cluster";
+    private static final long MIN_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final DataSourceProperties dataSource;
+    private final boolean enabled;
+    private final int flushIntervalMs;
+    private final int maxKeys;
+    private final String node = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<String, Set<String>> pending = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<Set<String>>>> subscribers = new ConcurrentHashMap<>();
+    private final Counter sent;
+    private final Counter received;
+    private final Counter reconnects;
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    public ClusterEventBus(DataSourceProperties dataSource,
+                           @Value("${app.cluster.enabled:true}") boolean enabled,
+                           @Value("${app.cluster.flush-interval-ms:50}") int flushIntervalMs,
+                           @Value("${app.cluster.max-keys-per-topic:200}") int maxKeys,
+                           MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.maxKeys = maxKeys;
+        this.sent = Counter.builder("cluster.messages").tag("direction", "sent").register(meterRegistry);
+        this.received = Counter.builder("cluster.messages").tag("direction", "received").register(meterRegistry);
+        this.reconnects = Counter.builder("cluster.reconnects").register(meterRegistry);
+    }
+
+    /** Registers a handler for keys published on the topic by other instances. */
+    public void subscribe(String topic, Consumer<Set<String>> handler) {
+        subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /** Tells the other instances that the key changed; sent after the current transaction commits. */
+    public void publish(String topic, Object key) {
+        if (!enabled) return;
+        String value = String.valueOf(key);
+        if (!isToken(topic) || !isToken(value)) throw new IllegalArgumentException("Invalid cluster message " + topic + "=" + value);
+        afterCommit(() -> pending.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(value));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) return;
+        running = true;
+        thread = new Thread(this::run, "cluster-bus");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Cluster event bus started as node {}", node);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) thread.interrupt();
+    }
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MS;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(
+                    dataSource.determineUrl(), dataSource.determineUsername(), dataSource.determinePassword())) {
+                conn.setAutoCommit(true);
+                try (Statement listen = conn.createStatement()) {
+                    listen.execute("LISTEN " + CHANNEL);
+                }
+                if (connectedBefore) {
+                    reconnects.increment();
+                    log.info("Cluster event bus reconnected, resetting subscribers");
+                    subscribers.keySet().forEach(topic -> dispatch(topic, Set.of(ALL)));
+                }
+                connectedBefore = true;
+                backoff = MIN_BACKOFF_MS;
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                try (PreparedStatement notify = conn.prepareStatement("select pg_notify(?, ?)")) {
+                    while (running) {
+                        PGNotification[] notifications = pg.getNotifications(flushIntervalMs);
+                        if (notifications != null) {
+                            for (PGNotification n : notifications) receive(n.getParameter());
+                        }
+                        flush(notify);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) break;
+                log.warn("Cluster event bus connection failed, retrying in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void flush(PreparedStatement notify) throws SQLException {
+        if (pending.isEmpty()) return;
+        Map<String, Set<String>> batch = new HashMap<>();
+        for (String topic : pending.keySet()) {
+            Set<String> keys = pending.remove(topic);
+            if (keys != null && !keys.isEmpty()) batch.put(topic, keys);
+        }
+        try {
+            for (String payload : ClusterMessages.encode(node, batch, maxKeys)) {
+                notify.setString(1, CHANNEL);
+                notify.setString(2, payload);
+                notify.executeQuery().close();
+                sent.increment();
+            }
+        } catch (SQLException e) {
+            // Requeued for the next connection; a partially sent batch is only repeated, never lost.
+            batch.forEach((topic, keys) -> pending.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).addAll(keys));
+            throw e;
+        }
+    }
+
+    private void receive(String payload) {
+        ClusterMessages.Message message;
+        try {
+            message = ClusterMessages.decode(payload);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring cluster message: {}", e.getMessage());
+            return;
+        }
+        if (node.equals(message.node())) return;
+        received.increment();
+        message.topics().forEach(this::dispatch);
+    }
+
+    private void dispatch(String topic, Set<String> keys) {
+        for (Consumer<Set<String>> handler : subscribers.getOrDefault(topic, List.of())) {
+            try {
+                handler.accept(keys);
+            } catch (RuntimeException e) {
+                log.warn("Cluster handler for {} failed: {}", topic, e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isToken(String value) {
+        if (value == null || value.isEmpty()) return false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '|' || c == ';' || c == '=' || c == ',') return false;
+        }
+        return true;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
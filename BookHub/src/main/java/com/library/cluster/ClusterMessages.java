@@ -0,0 +1,66 @@
+package com.library.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Wire format of cluster bus messages: {@code node|topic=key,key;topic=*}. A burst is coalesced into one
+ * message per notification payload; topics with more than {@code maxKeys} keys are sent as {@code *}.
+ */
+final class ClusterMessages {
+    /** PostgreSQL rejects NOTIFY payloads of 8000 bytes or more. */
+    static final int MAX_PAYLOAD = 7_900;
+
+    private ClusterMessages() {
+    }
+
+    record Message(String node, Map<String, Set<String>> topics) {
+    }
+
+    static List<String> encode(String node, Map<String, Set<String>> topics, int maxKeys) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder current = new StringBuilder(node).append('|');
+        int empty = current.length();
+        for (Map.Entry<String, Set<String>> topic : topics.entrySet()) {
+            Set<String> keys = topic.getValue();
+            if (keys.size() > maxKeys || keys.contains(ClusterEventBus.ALL)) keys = Set.of(ClusterEventBus.ALL);
+            boolean open = false;
+            for (String key : keys) {
+                int needed = open ? 1 + key.length() : 2 + topic.getKey().length() + key.length();
+                if (current.length() + needed > MAX_PAYLOAD && current.length() > empty) {
+                    payloads.add(current.toString());
+                    current.setLength(empty);
+                    open = false;
+                }
+                if (open) {
+                    current.append(',');
+                } else {
+                    if (current.length() > empty) current.append(';');
+                    current.append(topic.getKey()).append('=');
+                    open = true;
+                }
+                current.append(key);
+            }
+        }
+        if (current.length() > empty) payloads.add(current.toString());
+        return payloads;
+    }
+
+    static Message decode(String payload) {
+        int bar = payload.indexOf('|');
+        if (bar < 0) throw new IllegalArgumentException("Malformed cluster message: " + payload);
+        Map<String, Set<String>> topics = new HashMap<>();
+        for (String entry : payload.substring(bar + 1).split(";")) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0) continue;
+            Set<String> keys = topics.computeIfAbsent(entry.substring(0, eq), t -> new HashSet<>());
+            keys.addAll(Arrays.asList(entry.substring(eq + 1).split(",")));
+        }
+        return new Message(payload.substring(0, bar), topics);
+    }
+}
@@ -0,0 +1,73 @@
+package com.library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Bean(name = "readExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor platformReadExecutor(
+            @Value("${app.read-executor.core-size:16}") int coreSize,
+            @Value("${app.read-executor.max-size:64}") int maxSize,
+            @Value("${app.read-executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("read-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * With spring.threads.virtual.enabled=true every task gets its own virtual thread. The concurrency
+     * limit keeps the number of reads in flight close to the connection pool instead of the thread count.
+     */
+    @Bean(name = "readExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualReadExecutor(
+            @Value("${app.read-executor.max-size:64}") int maxConcurrency) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("read-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxConcurrency);
+        return executor;
+    }
+
+    /**
+     * Records book views in the background, apart from the read executor so that page reads never queue
+     * behind them. When the queue is full new tasks are rejected and callers drop the view.
+     */
+    @Bean(name = "viewRecordingExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor platformViewRecordingExecutor(
+            @Value("${app.history.record-executor.size:2}") int size,
+            @Value("${app.history.record-executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("view-");
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return executor;
+    }
+
+    /** Without a queue: views beyond size being recorded at once are rejected, so they never hold more connections. */
+    @Bean(name = "viewRecordingExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualViewRecordingExecutor(
+            @Value("${app.history.record-executor.size:2}") int size) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("view-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(size);
+        executor.setRejectTasksWhenLimitReached(true);
+        return executor;
+    }
+}
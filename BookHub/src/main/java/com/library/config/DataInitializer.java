@@ -8,6 +8,7 @@ import com.library.repository.UserRepository;
 import com.library.repository.BookRepository;
 import com.library.repository.ReviewRepository;
 import com.library.repository.FavoriteRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,10 +18,17 @@ import lombok.extern.slf4j.Slf4j;
 @Configuration
 @Slf4j
 public class DataInitializer {
+    // Checked at run time rather than as a bean condition, so an AOT-processed build can still switch it.
+    private final boolean enabled;
+
+    public DataInitializer(@Value("${app.seed.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
 
     @Bean
     CommandLineRunner initAdmin(UserRepository repo, BCryptPasswordEncoder encoder) {
         return args -> {
+            if (!enabled) return;
             if (repo.findByEmail("admin@library.com").isEmpty()) {
                 repo.save(User.builder()
                         .email("admin@library.com")
@@ -36,6 +44,7 @@ public class DataInitializer {
     @Bean
     CommandLineRunner loadData(UserRepository users, BookRepository books, ReviewRepository reviews, FavoriteRepository favorites, BCryptPasswordEncoder encoder) {
         return args -> {
+            if (!enabled) return;
             if (users.findByEmail("user1@library.com").isEmpty()) {
                 users.save(User.builder().email("user1@library.com").passwordHash(encoder.encode("user123")).fullName("User One").role("ROLE_USER").build());
             }
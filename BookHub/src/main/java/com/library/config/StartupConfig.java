@@ -0,0 +1,45 @@
+package com.library.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.Arrays;
+
+/**
+ * Startup behaviour for the {@code prod} profile, where beans are initialized lazily and the build is
+ * AOT-processed. Both beans read their settings when they run, not as bean conditions, because conditions
+ * are fixed at AOT build time.
+ */
+@Configuration
+@Slf4j
+public class StartupConfig {
+
+    /** Beans with scheduled jobs stay eager: a lazy bean's schedule is only registered once something uses it. */
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return (beanName, definition, type) -> type != null
+                && Arrays.stream(ReflectionUtils.getUniqueDeclaredMethods(type))
+                        .anyMatch(m -> m.isAnnotationPresent(Scheduled.class));
+    }
+
+    /**
+     * Lets deployments that run migrations as a separate step skip Flyway on application start
+     * ({@code app.schema.migrate-on-startup=false}).
+     */
+    @Bean
+    FlywayMigrationStrategy flywayMigrationStrategy(Environment env) {
+        return flyway -> {
+            if (env.getProperty("app.schema.migrate-on-startup", Boolean.class, true)) {
+                flyway.migrate();
+            } else {
+                log.info("Schema migration on startup disabled");
+            }
+        };
+    }
+}
@@ -2,6 +2,7 @@ package com.library.controller;
 
 import com.library.service.StatsService;
 import com.library.dto.StatsDTO;
+import com.library.limit.ConcurrencyLimited;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,6 +10,7 @@ import io.swagger.v3.oas.annotations.Operation;
 @RestController
 @RequestMapping("/api/admin")
 @CrossOrigin(origins = "*")
+@ConcurrencyLimited("stats")
 public class AdminStatsController {
     private final StatsService statsService;
 
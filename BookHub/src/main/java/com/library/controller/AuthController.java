@@ -1,6 +1,7 @@
 package com.library.controller;
 
 import com.library.entity.User;
+import com.library.limit.ConcurrencyLimited;
 import com.library.repository.UserRepository;
 import com.library.security.JwtService;
 import org.springframework.http.ResponseEntity;
@@ -30,10 +31,12 @@ public class AuthController {
     }
 
     @PostMapping("/register")
+    @ConcurrencyLimited("auth")
     @Operation(summary = "Register", description = "Registers a new user and returns JWT token")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Registered successfully"),
-            @ApiResponse(responseCode = "400", description = "Email already exists")
+            @ApiResponse(responseCode = "400", description = "Email already exists"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent requests")
     })
     public ResponseEntity<?> register(@RequestBody Map<String, String> data) {
         String email = data.get("email");
@@ -57,10 +60,12 @@ public class AuthController {
     }
 
     @PostMapping("/login")
+    @ConcurrencyLimited("auth")
     @Operation(summary = "Login", description = "Authenticates user and returns JWT token")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Login successful"),
-            @ApiResponse(responseCode = "401", description = "Invalid credentials")
+            @ApiResponse(responseCode = "401", description = "Invalid credentials"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent requests")
     })
     public ResponseEntity<?> login(@RequestBody Map<String, String> data) {
         String email = data.get("email");
@@ -102,6 +107,7 @@ public class AuthController {
     }
 
     @PostMapping("/reset")
+    @ConcurrencyLimited("auth")
     @Operation(summary = "Reset password", description = "Changes password for authenticated user")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Password changed"),
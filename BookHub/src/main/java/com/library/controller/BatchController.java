@@ -0,0 +1,32 @@
+package com.library.controller;
+
+import com.library.dto.BatchRequest;
+import com.library.dto.BatchResponseDTO;
+import com.library.service.BatchService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+@RestController
+@RequestMapping("/api/batch")
+@CrossOrigin(origins = "*")
+public class BatchController {
+    private final BatchService batchService;
+
+    public BatchController(BatchService batchService) {
+        this.batchService = batchService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Batch reads", description = "Runs several GET sub-requests in-process and concurrently in one round trip with the caller's authentication; each item carries its own status code")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch executed"),
+            @ApiResponse(responseCode = "400", description = "Empty or too large batch")
+    })
+    public BatchResponseDTO batch(@Valid @RequestBody BatchRequest body, HttpServletRequest request) {
+        return batchService.execute(body.getRequests(), request);
+    }
+}
@@ -1,8 +1,12 @@
 package com.library.controller;
 
 import com.library.entity.Book;
+import com.library.limit.ConcurrencyLimited;
 import com.library.service.BookService;
 import com.library.dto.BookDTO;
+import com.library.dto.BookDetailDTO;
+import com.library.service.BookDetailService;
+import com.library.service.JsonResponseCache;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
@@ -20,6 +24,9 @@ import java.util.UUID;
 import org.springframework.security.core.Authentication;
 import org.springframework.beans.factory.annotation.Value;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
@@ -27,15 +34,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 @RequestMapping("/api/books")
 @CrossOrigin(origins = "*")
 public class BookController {
+    private static final int MAX_TOP_SIZE = 100;
 
     private final BookService service;
     private final com.library.service.HistoryService historyService;
+    private final BookDetailService detailService;
+    private final JsonResponseCache jsonCache;
     @Value("${app.uploads.dir}")
     private String uploadDir;
 
-    public BookController(BookService service, com.library.service.HistoryService historyService) {
+    public BookController(BookService service, com.library.service.HistoryService historyService, BookDetailService detailService,
+                          JsonResponseCache jsonCache) {
         this.service = service;
         this.historyService = historyService;
+        this.detailService = detailService;
+        this.jsonCache = jsonCache;
     }
 
     @GetMapping
@@ -44,26 +57,62 @@ public class BookController {
             @ApiResponse(responseCode = "200", description = "Books returned successfully")
     })
     public Page<BookDTO> getAll(Pageable pageable) {
-        return service.getAll(pageable).map(BookDTO::fromEntity);
+        return service.getAllViews(pageable);
+    }
+
+    @GetMapping("/batch")
+    @Operation(summary = "Get books by ids", description = "Returns the requested books in request order without recording history; unknown ids are skipped")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Books returned"),
+            @ApiResponse(responseCode = "400", description = "Too many ids")
+    })
+    public List<BookDTO> getBatch(@RequestParam List<Long> ids) {
+        if (ids.size() > 100) throw new IllegalArgumentException("At most 100 ids per request.");
+        return service.getBooks(ids).stream().map(BookDTO::fromEntity).toList();
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get book by id", description = "Returns a single book and records view into history if authenticated")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Book returned"),
+            @ApiResponse(responseCode = "200", description = "Book returned",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookDTO.class))),
             @ApiResponse(responseCode = "404", description = "Book not found")
     })
-    public ResponseEntity<BookDTO> getById(@PathVariable Long id, Authentication auth) {
+    public ResponseEntity<byte[]> getById(@PathVariable Long id, Authentication auth) {
         if (auth != null && auth.isAuthenticated()) {
             try { historyService.recordView(auth.getName(), id); } catch (Exception ignored) {}
         }
-        return ResponseEntity.ok(BookDTO.fromEntity(service.getBook(id)));
+        return json(jsonCache.book(id, () -> service.getBookView(id)));
+    }
+
+    @GetMapping("/{id}/detail")
+    @Operation(summary = "Book page", description = "Returns the book, rating summary, first page of reviews, favorite flag and own review in one response; records view into history if authenticated")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Book detail returned"),
+            @ApiResponse(responseCode = "404", description = "Book not found"),
+            @ApiResponse(responseCode = "503", description = "Book could not be loaded within the request deadline")
+    })
+    public BookDetailDTO detail(@PathVariable Long id, Authentication auth) {
+        String email = (auth != null && auth.isAuthenticated()) ? auth.getName() : null;
+        return detailService.getDetail(id, email);
+    }
+
+    @GetMapping("/{id}/similar")
+    @Operation(summary = "Similar books", description = "Returns books with similar description, genre and author")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Similar books returned"),
+            @ApiResponse(responseCode = "404", description = "Book not found")
+    })
+    public List<BookDTO> similar(@PathVariable Long id, @RequestParam(defaultValue = "10") int size) {
+        return service.getSimilarBooks(id, Math.min(Math.max(size, 1), 50)).stream().map(BookDTO::fromEntity).toList();
     }
 
     @GetMapping("/search")
+    @ConcurrencyLimited("search")
     @Operation(summary = "Search books", description = "Search by title or author")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Search results returned")
+            @ApiResponse(responseCode = "200", description = "Search results returned"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent searches")
     })
     public List<BookDTO> search(@RequestParam(name = "query", required = false) String query,
                                 @RequestParam(name = "q", required = false) String q) {
@@ -76,7 +125,7 @@ public class BookController {
             @RequestParam(defaultValue = "title") String sortBy,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(service.getAllSorted(sortBy, page, size).map(BookDTO::fromEntity));
+        return ResponseEntity.ok(service.getAllSortedViews(sortBy, page, size));
     }
 
     @PostMapping
@@ -191,12 +240,31 @@ public class BookController {
     }
 
     @GetMapping("/top")
-    public List<BookDTO> top(@RequestParam(defaultValue = "10") int size) {
-        return service.getTopBooks(size).stream().map(BookDTO::fromEntity).toList();
+    @ApiResponse(responseCode = "200", description = "Best rated books returned",
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = BookDTO.class))))
+    public ResponseEntity<byte[]> top(@RequestParam(defaultValue = "10") int size) {
+        int limit = Math.max(1, Math.min(size, MAX_TOP_SIZE));
+        return json(jsonCache.topBooks(limit, () -> service.getTopBookViews(limit)));
     }
 
     @GetMapping("/genre")
-    public List<BookDTO> byGenre(@RequestParam String genre) {
-        return service.getByGenre(genre).stream().map(BookDTO::fromEntity).toList();
+    @ApiResponse(responseCode = "200", description = "Books of the genre returned",
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = BookDTO.class))))
+    public ResponseEntity<byte[]> byGenre(@RequestParam String genre) {
+        return json(jsonCache.genre(genre, () -> service.getByGenreViews(genre)));
+    }
+
+    @GetMapping("/genre/top")
+    @Operation(summary = "Best rated books of a genre", description = "Reviewed books of the genre, ranked by Bayesian average rating")
+    public ResponseEntity<Page<BookDTO>> topByGenre(
+            @RequestParam String genre,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(service.getTopByGenreViews(genre, page, size));
+    }
+
+    /** Pre-serialized JSON is written to the response as is, without another pass through Jackson. */
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 }
@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Map;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -15,6 +16,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 @RequestMapping("/api/favorites")
 @CrossOrigin(origins = "*")
 public class FavoriteController {
+    private static final int MAX_IDS = 100;
+
     private final FavoriteService favoriteService;
 
     public FavoriteController(FavoriteService favoriteService) {
@@ -53,4 +56,44 @@ public class FavoriteController {
         favoriteService.remove(auth.getName(), bookId);
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping("/flags")
+    @Operation(summary = "Favorite flags", description = "Returns whether each of the books is a favorite, keyed by book id in request order")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Flags returned"),
+            @ApiResponse(responseCode = "400", description = "Too many ids"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public Map<Long, Boolean> flags(Authentication auth, @RequestParam List<Long> ids) {
+        checkSize(ids);
+        return favoriteService.flags(auth.getName(), ids);
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Add several favorites", description = "Adds the books to favorites; unknown and already favorited ids are skipped. Returns the ids added")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Added successfully"),
+            @ApiResponse(responseCode = "400", description = "Too many ids"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public List<Long> addAll(Authentication auth, @RequestParam List<Long> bookIds) {
+        checkSize(bookIds);
+        return favoriteService.addAll(auth.getName(), bookIds);
+    }
+
+    @DeleteMapping("/bulk")
+    @Operation(summary = "Remove several favorites", description = "Removes the books from favorites. Returns the ids removed")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Removed successfully"),
+            @ApiResponse(responseCode = "400", description = "Too many ids"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public List<Long> removeAll(Authentication auth, @RequestParam List<Long> bookIds) {
+        checkSize(bookIds);
+        return favoriteService.removeAll(auth.getName(), bookIds);
+    }
+
+    private static void checkSize(List<Long> ids) {
+        if (ids.size() > MAX_IDS) throw new IllegalArgumentException("At most " + MAX_IDS + " ids per request.");
+    }
 }
@@ -0,0 +1,31 @@
+package com.library.controller;
+
+import com.library.dto.BookDTO;
+import com.library.service.FeedService;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+@RestController
+@RequestMapping("/api/feed")
+@CrossOrigin(origins = "*")
+public class FeedController {
+    private final FeedService feedService;
+
+    public FeedController(FeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Home feed", description = "Returns precomputed personalized recommendations for the authenticated user")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Feed returned"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public List<BookDTO> feed(Authentication auth) {
+        return feedService.getFeed(auth.getName());
+    }
+}
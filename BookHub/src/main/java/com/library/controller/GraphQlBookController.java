@@ -28,7 +28,7 @@ public class GraphQlBookController {
 
     @QueryMapping
     public BookDTO bookById(@Argument Long id) {
-        return BookDTO.fromEntity(bookService.getBook(id));
+        return bookService.getBookView(id);
     }
 
     @MutationMapping
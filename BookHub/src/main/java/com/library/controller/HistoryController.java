@@ -1,11 +1,9 @@
 package com.library.controller;
 
-import com.library.entity.Book;
 import com.library.service.HistoryService;
-import com.library.dto.BookDTO;
+import com.library.dto.HistoryPageDTO;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -14,6 +12,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 @RequestMapping("/api/history")
 @CrossOrigin(origins = "*")
 public class HistoryController {
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final HistoryService historyService;
 
     public HistoryController(HistoryService historyService) {
@@ -21,12 +21,16 @@ public class HistoryController {
     }
 
     @GetMapping
-    @Operation(summary = "History list", description = "Returns reading history ordered by last opened")
+    @Operation(summary = "History list", description = "Returns one page of reading history ordered by last opened; "
+            + "pass the returned nextCursor as cursor to get the next page")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "History returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
-    public List<BookDTO> list(Authentication auth) {
-        return historyService.list(auth.getName()).stream().map(BookDTO::fromEntity).toList();
+    public HistoryPageDTO list(Authentication auth,
+                               @RequestParam(required = false) String cursor,
+                               @RequestParam(defaultValue = "50") int size) {
+        return historyService.page(auth.getName(), cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
     }
 }
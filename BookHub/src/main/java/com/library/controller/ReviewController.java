@@ -3,6 +3,7 @@ package com.library.controller;
 import com.library.entity.Review;
 import com.library.service.ReviewService;
 import com.library.dto.ReviewDTO;
+import com.library.dto.ReviewPageDTO;
 import com.library.dto.ReviewRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -17,6 +18,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 @RequestMapping("/api/reviews")
 @CrossOrigin(origins = "*")
 public class ReviewController {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ReviewService reviewService;
 
     public ReviewController(ReviewService reviewService) {
@@ -24,13 +27,27 @@ public class ReviewController {
     }
 
     @GetMapping("/{bookId}")
-    @Operation(summary = "List reviews", description = "Returns all reviews for a book")
+    @Operation(summary = "List reviews", description = "Returns all reviews for a book; prefer the paginated /page endpoint for large books")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Reviews returned"),
             @ApiResponse(responseCode = "404", description = "Book not found")
     })
     public List<ReviewDTO> list(@PathVariable Long bookId) {
-        return reviewService.getByBook(bookId).stream().map(ReviewDTO::fromEntity).toList();
+        return reviewService.getViewsByBook(bookId);
+    }
+
+    @GetMapping("/{bookId}/page")
+    @Operation(summary = "Review page", description = "Returns one page of a book's reviews sorted by newest, highest or lowest rating, "
+            + "with the book's rating histogram; pass the returned nextCursor as cursor to get the next page")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Reviews returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid sort or cursor")
+    })
+    public ReviewPageDTO page(@PathVariable Long bookId,
+                              @RequestParam(defaultValue = "newest") String sort,
+                              @RequestParam(required = false) String cursor,
+                              @RequestParam(defaultValue = "20") int size) {
+        return reviewService.page(bookId, ReviewService.Sort.parse(sort), cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
     }
 
     @PostMapping("/{bookId}")
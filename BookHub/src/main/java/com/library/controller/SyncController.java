@@ -0,0 +1,32 @@
+package com.library.controller;
+
+import com.library.dto.SyncResponseDTO;
+import com.library.service.SyncService;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+@RestController
+@RequestMapping("/api/sync")
+@CrossOrigin(origins = "*")
+public class SyncController {
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Delta sync", description = "Returns books, own reviews, favorites and history changed since the given version, with tombstones for deletions. Repeat with the returned version while hasMore is true.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changes returned"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public SyncResponseDTO sync(Authentication auth,
+                                @RequestParam(defaultValue = "0") String since,
+                                @RequestParam(defaultValue = "500") int limit) {
+        return syncService.changesSince(auth.getName(), since, Math.min(Math.max(limit, 1), 5000));
+    }
+}
@@ -0,0 +1,98 @@
+package com.library.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each user last committed a write so their reads can stay on the primary until the
+ * replica has had time to catch up (read-your-writes).
+ * <p>
+ * Each instance keeps the users that wrote through it. So that a client's next request may land on any
+ * instance, a write made during an HTTP request also sets the {@value #COOKIE} cookie to the commit time
+ * (epoch millis), and a read carrying a cookie younger than the lag window goes to the primary wherever it
+ * runs. Instance clocks must agree to well within the window. The cookie is not signed: a forged one can only
+ * send its own client's reads to the primary, as a write would, and values beyond the window either way are
+ * ignored. Clients that drop cookies (e.g. cross-origin callers without credentials) only get read-your-writes
+ * on the instance they wrote through, so route them with sticky sessions.
+ */
+public class ReplicaLagGuard {
+    public static final String COOKIE = "last_write";
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final long windowMillis;
+    private final Clock clock;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReplicaLagGuard(Duration maxLag) {
+        this(maxLag, Clock.systemUTC());
+    }
+
+    ReplicaLagGuard(Duration maxLag, Clock clock) {
+        this.windowNanos = maxLag.toNanos();
+        this.windowMillis = maxLag.toMillis();
+        this.clock = clock;
+    }
+
+    public void recordWrite(String user) {
+        lastWrites.put(user, System.nanoTime());
+        if (lastWrites.size() > PRUNE_THRESHOLD) {
+            long now = System.nanoTime();
+            lastWrites.values().removeIf(at -> now - at >= windowNanos);
+        }
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes servlet)) return;
+        HttpServletResponse response = servlet.getResponse();
+        if (response == null || response.isCommitted()) return;
+        ResponseCookie cookie = ResponseCookie.from(COOKIE, Long.toString(clock.millis()))
+                .path("/")
+                .maxAge(Duration.ofMillis(windowMillis).plusSeconds(1).toSeconds())
+                .httpOnly(true)
+                .secure(servlet.getRequest().isSecure())
+                .sameSite("Lax")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    public boolean recentlyWrote(String user) {
+        if (user == null) return false;
+        if (cookieWithinWindow()) return true;
+        Long at = lastWrites.get(user);
+        if (at == null) return false;
+        if (System.nanoTime() - at < windowNanos) return true;
+        lastWrites.remove(user, at);
+        return false;
+    }
+
+    private boolean cookieWithinWindow() {
+        HttpServletRequest request = currentRequest();
+        Cookie[] cookies = request == null ? null : request.getCookies();
+        if (cookies == null) return false;
+        long now = clock.millis();
+        for (Cookie cookie : cookies) {
+            if (!COOKIE.equals(cookie.getName())) continue;
+            try {
+                long at = Long.parseLong(cookie.getValue());
+                return Math.abs(now - at) < windowMillis;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes servlet
+                ? servlet.getRequest() : null;
+    }
+}
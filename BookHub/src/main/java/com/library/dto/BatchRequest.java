@@ -0,0 +1,23 @@
+package com.library.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+import java.util.List;
+
+@Getter @Setter
+public class BatchRequest {
+    @NotEmpty
+    @Valid
+    private List<Item> requests;
+
+    @Getter @Setter
+    public static class Item {
+        private String id;
+        private String method = "GET";
+        @NotBlank
+        private String path;
+    }
+}
@@ -0,0 +1,17 @@
+package com.library.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Value;
+import java.util.List;
+
+@Value
+public class BatchResponseDTO {
+    List<Item> responses;
+
+    @Value
+    public static class Item {
+        String id;
+        int status;
+        JsonNode body;
+    }
+}
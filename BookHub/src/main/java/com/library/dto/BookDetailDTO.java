@@ -0,0 +1,17 @@
+package com.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+import lombok.Builder;
+import java.util.List;
+
+@Value
+@Builder
+public class BookDetailDTO {
+    BookDTO book;
+    RatingSummaryDTO rating;
+    List<ReviewDTO> reviews;
+    @JsonProperty("isFavorite")
+    boolean favorite;
+    ReviewDTO myReview;
+}
@@ -0,0 +1,23 @@
+package com.library.dto;
+
+import com.library.entity.History;
+import lombok.Value;
+import lombok.Builder;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Value
+@Builder
+public class HistoryEntryDTO {
+    Long id;
+    BookDTO book;
+    LocalDateTime viewedAt;
+
+    public static HistoryEntryDTO fromEntity(History h) {
+        return HistoryEntryDTO.builder()
+                .id(h.getId())
+                .book(BookDTO.fromEntity(h.getBook()))
+                .viewedAt(LocalDateTime.ofInstant(h.getLastOpened(), ZoneId.systemDefault()))
+                .build();
+    }
+}
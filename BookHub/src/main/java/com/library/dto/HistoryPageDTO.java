@@ -0,0 +1,13 @@
+package com.library.dto;
+
+import lombok.Value;
+import lombok.Builder;
+import java.util.List;
+
+@Value
+@Builder
+public class HistoryPageDTO {
+    List<HistoryEntryDTO> items;
+    boolean hasMore;
+    String nextCursor;
+}
@@ -0,0 +1,37 @@
+package com.library.dto;
+
+import com.library.repository.ReviewRepository.RatingCounts;
+import lombok.Value;
+import lombok.Builder;
+import java.util.List;
+
+@Value
+@Builder
+public class RatingHistogramDTO {
+    double average;
+    long count;
+    List<Long> counts; // reviews with 1..5 stars
+
+    public static RatingHistogramDTO of(RatingCounts c) {
+        List<Long> counts = List.of(c.getRating1(), c.getRating2(), c.getRating3(), c.getRating4(), c.getRating5());
+        long count = 0;
+        long sum = 0;
+        for (int i = 0; i < counts.size(); i++) {
+            count += counts.get(i);
+            sum += (i + 1) * counts.get(i);
+        }
+        return RatingHistogramDTO.builder()
+                .average(count == 0 ? 0.0 : (double) sum / count)
+                .count(count)
+                .counts(counts)
+                .build();
+    }
+
+    public static RatingHistogramDTO empty() {
+        return RatingHistogramDTO.builder().counts(List.of(0L, 0L, 0L, 0L, 0L)).build();
+    }
+
+    public RatingSummaryDTO toSummary() {
+        return RatingSummaryDTO.builder().average(average).count(count).build();
+    }
+}
@@ -0,0 +1,11 @@
+package com.library.dto;
+
+import lombok.Value;
+import lombok.Builder;
+
+@Value
+@Builder
+public class RatingSummaryDTO {
+    double average;
+    long count;
+}
@@ -1,6 +1,7 @@
 package com.library.dto;
 
 import com.library.entity.Review;
+import com.library.repository.ReviewRepository.ReviewRow;
 import lombok.Value;
 import lombok.Builder;
 import java.time.LocalDateTime;
@@ -9,6 +10,8 @@ import java.time.ZoneId;
 @Value
 @Builder
 public class ReviewDTO {
+    Long id;
+    Long bookId;
     String userName;
     int rating;
     String comment;
@@ -16,11 +19,23 @@ public class ReviewDTO {
 
     public static ReviewDTO fromEntity(Review r) {
         return ReviewDTO.builder()
+                .id(r.getId())
+                .bookId(r.getBook().getId())
                 .userName(r.getUser().getFullName())
                 .rating(r.getRating())
                 .comment(r.getComment())
                 .createdAt(LocalDateTime.ofInstant(r.getCreatedAt(), ZoneId.systemDefault()))
                 .build();
     }
-}
 
+    public static ReviewDTO fromRow(ReviewRow r, Long bookId) {
+        return ReviewDTO.builder()
+                .id(r.getId())
+                .bookId(bookId)
+                .userName(r.getUserName())
+                .rating(r.getRating())
+                .comment(r.getComment())
+                .createdAt(LocalDateTime.ofInstant(r.getCreatedAt(), ZoneId.systemDefault()))
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.library.dto;
+
+import lombok.Value;
+import lombok.Builder;
+import java.util.List;
+
+@Value
+@Builder
+public class ReviewPageDTO {
+    List<ReviewDTO> items;
+    boolean hasMore;
+    String nextCursor;
+    RatingHistogramDTO rating;
+}
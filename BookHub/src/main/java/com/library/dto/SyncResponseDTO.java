@@ -0,0 +1,23 @@
+package com.library.dto;
+
+import lombok.Value;
+import lombok.Builder;
+import java.util.List;
+
+@Value
+@Builder
+public class SyncResponseDTO {
+    String version; // txId-id of the last change returned; pass back as since
+    boolean hasMore;
+    List<BookDTO> books;
+    List<ReviewDTO> reviews;
+    List<Long> favorites;
+    List<HistoryEntryDTO> history;
+    List<Tombstone> deleted;
+
+    @Value
+    public static class Tombstone {
+        String type;
+        Long id;
+    }
+}
@@ -0,0 +1,56 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "change_log", indexes = {
+        @Index(name = "idx_change_log_user_id_tx_id_id", columnList = "user_id, tx_id, id"),
+        @Index(name = "idx_change_log_tx_id_id", columnList = "tx_id, id")
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // order within a transaction
+
+    @Column(name = "tx_id", insertable = false, updatable = false)
+    private Long txId; // writing transaction, set by the database; sync position is (txId, id)
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId; // book id for BOOK and FAVORITE, row id for REVIEW and HISTORY
+
+    @Column(name = "user_id")
+    private Long userId; // owner for user-scoped changes, null for catalog changes
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Operation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    public enum EntityType { BOOK, REVIEW, FAVORITE, HISTORY }
+
+    public enum Operation { UPSERT, DELETE }
+
+    /** A point in the log; entries are ordered by writing transaction, then id. */
+    public record Position(long txId, long id) {
+        public static final Position START = new Position(0, 0);
+
+        public static Position of(ChangeLogEntry entry) {
+            return new Position(entry.getTxId(), entry.getId());
+        }
+
+        @Override
+        public String toString() {
+            return txId + "-" + id;
+        }
+    }
+}
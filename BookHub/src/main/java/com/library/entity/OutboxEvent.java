@@ -0,0 +1,39 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_tx_id_id", columnList = "tx_id, id"),
+        @Index(name = "idx_outbox_events_created_at", columnList = "created_at")
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // order within a transaction
+
+    @Column(name = "tx_id", insertable = false, updatable = false)
+    private Long txId; // writing transaction, set by the database
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregate_type", nullable = false, length = 16)
+    private AggregateType aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload; // JSON
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public enum AggregateType { BOOK, REVIEW, USER }
+}
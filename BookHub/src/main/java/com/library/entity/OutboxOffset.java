@@ -0,0 +1,24 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "outbox_offsets")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxOffset {
+
+    @Id
+    @Column(length = 64)
+    private String consumer;
+
+    @Column(name = "tx_id", nullable = false)
+    private Long txId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
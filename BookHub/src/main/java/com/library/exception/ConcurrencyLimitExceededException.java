@@ -0,0 +1,12 @@
+package com.library.exception;
+
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
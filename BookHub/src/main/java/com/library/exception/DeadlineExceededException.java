@@ -0,0 +1,5 @@
+package com.library.exception;
+
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException(String message) { super(message); }
+}
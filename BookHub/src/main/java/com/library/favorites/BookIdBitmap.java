@@ -0,0 +1,174 @@
+package com.library.favorites;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable compressed set of book ids, laid out like a Roaring bitmap: ids are grouped by their high bits
+ * ({@code id >>> 16}) and each group stores its low 16 bits either as a sorted {@code char[]} (up to
+ * {@value #MAX_ARRAY} ids, two bytes each) or, when denser, as a 65536-bit {@code long[]} (8 KB). A typical
+ * user's favorites take a few bytes per book, and a lookup is a binary search over the groups plus one
+ * within a group.
+ * <p>
+ * {@link #with} and {@link #without} return a new bitmap sharing every group but the changed one.
+ */
+public final class BookIdBitmap {
+    public static final BookIdBitmap EMPTY = new BookIdBitmap(new long[0], new Object[0], 0);
+
+    private static final int MAX_ARRAY = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private final long[] keys;
+    private final Object[] containers; // char[] or long[] per key
+    private final int cardinality;
+
+    private BookIdBitmap(long[] keys, Object[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public static BookIdBitmap of(Collection<Long> ids) {
+        long[] sorted = ids.stream().mapToLong(Long::longValue).filter(id -> id >= 0).sorted().distinct().toArray();
+        int groups = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || high(sorted[i]) != high(sorted[i - 1])) groups++;
+        }
+        long[] keys = new long[groups];
+        Object[] containers = new Object[groups];
+        int group = 0;
+        for (int start = 0; start < sorted.length; group++) {
+            int end = start;
+            while (end < sorted.length && high(sorted[end]) == high(sorted[start])) end++;
+            char[] lows = new char[end - start];
+            for (int i = start; i < end; i++) lows[i - start] = low(sorted[i]);
+            keys[group] = high(sorted[start]);
+            containers[group] = lows.length > MAX_ARRAY ? toBits(lows) : lows;
+            start = end;
+        }
+        return new BookIdBitmap(keys, containers, sorted.length);
+    }
+
+    public boolean contains(long id) {
+        if (id < 0) return false;
+        int group = Arrays.binarySearch(keys, high(id));
+        return group >= 0 && containerContains(containers[group], low(id));
+    }
+
+    public BookIdBitmap with(long id) {
+        if (id < 0 || contains(id)) return this;
+        int group = Arrays.binarySearch(keys, high(id));
+        if (group < 0) {
+            int at = -group - 1;
+            long[] nextKeys = new long[keys.length + 1];
+            Object[] nextContainers = new Object[containers.length + 1];
+            System.arraycopy(keys, 0, nextKeys, 0, at);
+            System.arraycopy(containers, 0, nextContainers, 0, at);
+            nextKeys[at] = high(id);
+            nextContainers[at] = new char[]{low(id)};
+            System.arraycopy(keys, at, nextKeys, at + 1, keys.length - at);
+            System.arraycopy(containers, at, nextContainers, at + 1, containers.length - at);
+            return new BookIdBitmap(nextKeys, nextContainers, cardinality + 1);
+        }
+        Object container = containers[group];
+        Object changed;
+        if (container instanceof long[] bits) {
+            long[] copy = bits.clone();
+            copy[low(id) >>> 6] |= 1L << low(id);
+            changed = copy;
+        } else {
+            char[] lows = (char[]) container;
+            int at = -Arrays.binarySearch(lows, low(id)) - 1;
+            char[] copy = new char[lows.length + 1];
+            System.arraycopy(lows, 0, copy, 0, at);
+            copy[at] = low(id);
+            System.arraycopy(lows, at, copy, at + 1, lows.length - at);
+            changed = copy.length > MAX_ARRAY ? toBits(copy) : copy;
+        }
+        return replace(group, changed, cardinality + 1);
+    }
+
+    public BookIdBitmap without(long id) {
+        if (!contains(id)) return this;
+        int group = Arrays.binarySearch(keys, high(id));
+        Object container = containers[group];
+        Object changed;
+        if (container instanceof long[] bits) {
+            long[] copy = bits.clone();
+            copy[low(id) >>> 6] &= ~(1L << low(id));
+            changed = cardinality(copy) <= MAX_ARRAY ? toArray(copy) : copy;
+        } else {
+            char[] lows = (char[]) container;
+            if (lows.length == 1) {
+                long[] nextKeys = new long[keys.length - 1];
+                Object[] nextContainers = new Object[containers.length - 1];
+                System.arraycopy(keys, 0, nextKeys, 0, group);
+                System.arraycopy(containers, 0, nextContainers, 0, group);
+                System.arraycopy(keys, group + 1, nextKeys, group, keys.length - group - 1);
+                System.arraycopy(containers, group + 1, nextContainers, group, containers.length - group - 1);
+                return new BookIdBitmap(nextKeys, nextContainers, cardinality - 1);
+            }
+            int at = Arrays.binarySearch(lows, low(id));
+            char[] copy = new char[lows.length - 1];
+            System.arraycopy(lows, 0, copy, 0, at);
+            System.arraycopy(lows, at + 1, copy, at, lows.length - at - 1);
+            changed = copy;
+        }
+        return replace(group, changed, cardinality - 1);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /** Approximate heap footprint, for sizing the cache. */
+    public long sizeInBytes() {
+        long size = 32 + 16 + keys.length * 8L + 16 + containers.length * 4L;
+        for (Object c : containers) {
+            size += 16 + (c instanceof long[] bits ? bits.length * 8L : ((char[]) c).length * 2L);
+        }
+        return size;
+    }
+
+    private BookIdBitmap replace(int group, Object container, int nextCardinality) {
+        Object[] nextContainers = containers.clone();
+        nextContainers[group] = container;
+        return new BookIdBitmap(keys, nextContainers, nextCardinality);
+    }
+
+    private static boolean containerContains(Object container, char low) {
+        if (container instanceof long[] bits) return (bits[low >>> 6] & (1L << low)) != 0;
+        return Arrays.binarySearch((char[]) container, low) >= 0;
+    }
+
+    private static long[] toBits(char[] lows) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (char low : lows) bits[low >>> 6] |= 1L << low;
+        return bits;
+    }
+
+    private static char[] toArray(long[] bits) {
+        char[] lows = new char[cardinality(bits)];
+        int n = 0;
+        for (int word = 0; word < bits.length; word++) {
+            for (long w = bits[word]; w != 0; w &= w - 1) {
+                lows[n++] = (char) (word << 6 | Long.numberOfTrailingZeros(w));
+            }
+        }
+        return lows;
+    }
+
+    private static int cardinality(long[] bits) {
+        int n = 0;
+        for (long w : bits) n += Long.bitCount(w);
+        return n;
+    }
+
+    private static long high(long id) {
+        return id >>> 16;
+    }
+
+    private static char low(long id) {
+        return (char) id;
+    }
+}
@@ -0,0 +1,167 @@
+package com.library.favorites;
+
+import com.library.cluster.ClusterEventBus;
+import com.library.repository.FavoriteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Favorited book ids per user as {@link BookIdBitmap}s, so is-favorite flags for any list of books cost no
+ * query once the user's bitmap is loaded. Bitmaps are loaded on first use and the least recently used ones
+ * are dropped beyond {@code app.favorites.cache-max-users}.
+ * <p>
+ * Local adds and removes are applied to a cached bitmap after commit; a load that overlapped such a commit
+ * is returned but not cached, since it may predate the change. Changes made on other instances arrive
+ * through the cluster bus and drop the user's bitmap.
+ */
+@Component
+public class FavoriteBitmapCache {
+    private static final String CLUSTER_TOPIC = "favorites";
+    private static final int STRIPES = 256;
+
+    private final FavoriteRepository favoriteRepo;
+    private final ClusterEventBus clusterBus;
+    private final int maxUsers;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, BookIdBitmap> bitmaps; // guarded by lock
+    private final long[] generations = new long[STRIPES]; // guarded by lock
+    private final Counter hits;
+    private final Counter misses;
+
+    public FavoriteBitmapCache(FavoriteRepository favoriteRepo, ClusterEventBus clusterBus,
+                               @Value("${app.favorites.cache-max-users:100000}") int maxUsers,
+                               MeterRegistry meterRegistry) {
+        this.favoriteRepo = favoriteRepo;
+        this.clusterBus = clusterBus;
+        this.maxUsers = maxUsers;
+        this.bitmaps = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BookIdBitmap> eldest) {
+                return size() > FavoriteBitmapCache.this.maxUsers;
+            }
+        };
+        this.hits = Counter.builder("cache.gets").tag("cache", "favorites").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "favorites").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("cache.size", this, FavoriteBitmapCache::size).tag("cache", "favorites").register(meterRegistry);
+        clusterBus.subscribe(CLUSTER_TOPIC, userIds -> {
+            if (userIds.contains(ClusterEventBus.ALL)) {
+                invalidateAll();
+            } else {
+                userIds.forEach(id -> invalidate(Long.parseLong(id)));
+            }
+        });
+    }
+
+    public BookIdBitmap get(Long userId) {
+        long generation;
+        lock.lock();
+        try {
+            BookIdBitmap cached = bitmaps.get(userId);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            generation = generations[stripe(userId)];
+        } finally {
+            lock.unlock();
+        }
+        misses.increment();
+        BookIdBitmap loaded = BookIdBitmap.of(favoriteRepo.findBookIdsByUserId(userId));
+        lock.lock();
+        try {
+            if (maxUsers > 0 && generations[stripe(userId)] == generation) bitmaps.put(userId, loaded);
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    public boolean contains(Long userId, Long bookId) {
+        return get(userId).contains(bookId);
+    }
+
+    /** The user favorited the books in the current transaction. */
+    public void added(Long userId, Collection<Long> bookIds) {
+        changed(userId, bookIds, true);
+    }
+
+    /** The user unfavorited the books in the current transaction. */
+    public void removed(Long userId, Collection<Long> bookIds) {
+        changed(userId, bookIds, false);
+    }
+
+    private void changed(Long userId, Collection<Long> bookIds, boolean added) {
+        if (bookIds.isEmpty()) return;
+        List<Long> ids = List.copyOf(bookIds);
+        clusterBus.publish(CLUSTER_TOPIC, userId);
+        afterCommit(() -> {
+            lock.lock();
+            try {
+                generations[stripe(userId)]++;
+                BookIdBitmap cached = bitmaps.get(userId);
+                if (cached == null) return;
+                for (Long id : ids) cached = added ? cached.with(id) : cached.without(id);
+                bitmaps.put(userId, cached);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private void invalidate(long userId) {
+        lock.lock();
+        try {
+            generations[stripe(userId)]++;
+            bitmaps.remove(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void invalidateAll() {
+        lock.lock();
+        try {
+            for (int i = 0; i < STRIPES; i++) generations[i]++;
+            bitmaps.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int size() {
+        lock.lock();
+        try {
+            return bitmaps.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int stripe(long userId) {
+        return (int) (userId ^ (userId >>> 32)) & (STRIPES - 1);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
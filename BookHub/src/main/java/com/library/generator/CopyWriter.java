@@ -0,0 +1,75 @@
+package com.library.generator;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/** Streams CSV rows into a PostgreSQL {@code COPY ... FROM STDIN} in large buffered writes. */
+final class CopyWriter implements AutoCloseable {
+    private static final int FLUSH_CHARS = 1 << 20;
+
+    private final CopyIn copy;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 4096);
+    private boolean firstField = true;
+    private long rows;
+
+    CopyWriter(Connection connection, String table, String columns) throws SQLException {
+        this.copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("copy " + table + " (" + columns + ") from stdin with (format csv)");
+    }
+
+    CopyWriter value(long value) {
+        separator();
+        buffer.append(value);
+        return this;
+    }
+
+    CopyWriter value(Object value) {
+        separator();
+        if (value == null) return this;
+        String s = value.toString();
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0 || s.isEmpty()) {
+            buffer.append('"').append(s.replace("\"", "\"\"")).append('"');
+        } else {
+            buffer.append(s);
+        }
+        return this;
+    }
+
+    void endRow() throws SQLException {
+        buffer.append('\n');
+        firstField = true;
+        rows++;
+        if (buffer.length() >= FLUSH_CHARS) flush();
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    private void separator() {
+        if (!firstField) buffer.append(',');
+        firstField = false;
+    }
+
+    private void flush() throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    /** Sends the remaining rows and completes the COPY. */
+    long finish() throws SQLException {
+        if (!buffer.isEmpty()) flush();
+        return copy.endCopy();
+    }
+
+    /** Cancels the COPY if {@link #finish()} was not reached, so a failed chunk leaves no rows behind. */
+    @Override
+    public void close() throws SQLException {
+        if (copy.isActive()) copy.cancelCopy();
+    }
+}
@@ -0,0 +1,342 @@
+package com.library.generator;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes a large, skewed dataset with parallel COPY streams. Work is split into fixed-size chunks and each
+ * chunk draws from its own random stream derived from the seed, so the generated rows do not depend on the
+ * number of writer threads or on scheduling.
+ * <p>
+ * Skew: genres, authors and book popularity follow Zipf distributions; per-user activity is log-normal, so
+ * most users have a handful of reviews and views while a few have thousands. Popular books are spread over
+ * the id range rather than clustered at the lowest ids.
+ */
+@Slf4j
+public class DatasetGenerator {
+    private static final String[] GENRES = {"Fiction", "Fantasy", "Science Fiction", "Mystery", "Thriller",
+            "Romance", "History", "Biography", "Programming", "Philosophy", "Poetry", "Horror", "Dystopia",
+            "Travel", "Cooking", "Economics", "Psychology", "Art", "Music", "Children", "Classics", "Young Adult",
+            "Self-Help", "Health", "Religion", "Science", "Mathematics", "Politics", "Sports", "Comics",
+            "Business", "Education", "Nature", "Law", "Drama", "Adventure", "Humor", "Crime", "Memoir", "Essays"};
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "ten", "vor", "sha", "del", "qui", "an",
+            "bel", "cor", "dun", "eth", "fal", "gri", "hol", "ist", "jun", "mor", "nel", "orn", "pra", "sil",
+            "tar", "ul", "ven", "wy", "xan", "yor", "zel", "bri", "cla", "dro", "fen", "gal"};
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final int BOOK_CHUNK = 50_000;
+    private static final int USER_CHUNK = 1_000;
+    private static final long PRIME_STRIDE = 2_147_483_647L;
+    private static final double ACTIVITY_SIGMA = 1.2;
+    private static final long ACTIVITY_WINDOW_SECONDS = Duration.ofDays(365).toSeconds();
+
+    private final DataSource dataSource;
+    private final Settings settings;
+    private final String passwordHash;
+    private final Instant now = Instant.now();
+
+    @Value
+    @Builder
+    public static class Settings {
+        long books;
+        long users;
+        long reviews;
+        long favorites;
+        long history;
+        int threads;
+        long seed;
+        double genreExponent;
+        double authorExponent;
+        double popularityExponent;
+    }
+
+    public DatasetGenerator(DataSource dataSource, Settings settings, String passwordHash) {
+        this.dataSource = dataSource;
+        this.settings = settings;
+        this.passwordHash = passwordHash;
+    }
+
+    public void generate() throws Exception {
+        long firstUser = nextId("users");
+        long firstBook = nextId("books");
+        long firstReview = nextId("reviews");
+        long firstFavorite = nextId("favorites");
+        long firstHistory = nextId("history");
+        String[] vocabulary = vocabulary(new SplittableRandom(settings.getSeed()));
+        ExecutorService pool = Executors.newFixedThreadPool(settings.getThreads());
+        try {
+            run(pool, "users", settings.getUsers(), USER_CHUNK * 100, (chunk, from, to, random) -> {
+                try (Connection c = dataSource.getConnection();
+                     CopyWriter out = new CopyWriter(c, "users", "id, email, password_hash, full_name, role")) {
+                    for (long i = from; i < to; i++) {
+                        out.value(firstUser + i).value("gen-user-" + i + "@example.com").value(passwordHash)
+                                .value(name(random, vocabulary)).value("ROLE_USER").endRow();
+                    }
+                    return out.finish();
+                }
+            });
+
+            ZipfDistribution genres = new ZipfDistribution(GENRES.length, settings.getGenreExponent());
+            ZipfDistribution authors = new ZipfDistribution(
+                    (int) Math.max(1, Math.min(Integer.MAX_VALUE, settings.getBooks() / 20)), settings.getAuthorExponent());
+            run(pool, "books", settings.getBooks(), BOOK_CHUNK, (chunk, from, to, random) -> {
+                try (Connection c = dataSource.getConnection();
+                     CopyWriter out = new CopyWriter(c, "books", "id, title, author, genre, description")) {
+                    for (long i = from; i < to; i++) {
+                        out.value(firstBook + i)
+                                .value(phrase(random, vocabulary, 1 + random.nextInt(5)))
+                                .value(authorName(authors.sample(random), vocabulary))
+                                .value(GENRES[genres.sample(random)])
+                                .value(phrase(random, vocabulary, 20 + random.nextInt(60)))
+                                .endRow();
+                    }
+                    return out.finish();
+                }
+            });
+
+            if (settings.getBooks() > 0 && settings.getUsers() > 0) {
+                ZipfDistribution popularity = new ZipfDistribution(
+                        (int) Math.min(Integer.MAX_VALUE, settings.getBooks()), settings.getPopularityExponent());
+                generatePerUser(pool, "reviews", "user_id, book_id, rating, comment, created_at",
+                        settings.getReviews(), true, firstUser, firstBook, popularity, (out, random, userId, bookId) ->
+                                out.value(userId).value(bookId).value(rating(random))
+                                        .value(phrase(random, vocabulary, 3 + random.nextInt(20)))
+                                        .value(recent(random)));
+                generatePerUser(pool, "favorites", "user_id, book_id",
+                        settings.getFavorites(), true, firstUser, firstBook, popularity, (out, random, userId, bookId) ->
+                                out.value(userId).value(bookId));
+                generatePerUser(pool, "history", "user_id, book_id, last_opened",
+                        settings.getHistory(), false, firstUser, firstBook, popularity, (out, random, userId, bookId) ->
+                                out.value(userId).value(bookId).value(recent(random)));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        try (Connection c = dataSource.getConnection(); Statement st = c.createStatement()) {
+            for (String table : List.of("users", "books", "reviews", "favorites", "history")) {
+                st.execute("select setval(pg_get_serial_sequence('" + table + "', 'id'), "
+                        + "coalesce((select max(id) from " + table + "), 0) + 1, false)");
+            }
+            recordRatingStats(st, firstReview);
+            recordChanges(st, firstBook, firstReview, firstFavorite, firstHistory);
+            log.info("Analyzing tables");
+            st.execute("analyze");
+        }
+    }
+
+    private interface Chunk {
+        long write(long chunk, long from, long to, SplittableRandom random) throws Exception;
+    }
+
+    private interface RowWriter {
+        void write(CopyWriter out, SplittableRandom random, long userId, long bookId) throws SQLException;
+    }
+
+    /**
+     * Rows owned by users: each user gets a log-normally distributed share of {@code total} with books drawn
+     * by popularity. With {@code distinct} a user never gets the same book twice (reviews, favorites).
+     */
+    private void generatePerUser(ExecutorService pool, String table, String columns, long total, boolean distinct,
+                                 long firstUser, long firstBook, ZipfDistribution popularity, RowWriter row)
+            throws Exception {
+        if (total <= 0) return;
+        double mean = (double) total / settings.getUsers();
+        long maxPerUser = distinct ? Math.max(1, settings.getBooks() / 2) : Long.MAX_VALUE;
+        run(pool, table, settings.getUsers(), USER_CHUNK, (chunk, from, to, random) -> {
+            try (Connection c = dataSource.getConnection()) {
+                skipRatingStats(c, true);
+                try (CopyWriter out = new CopyWriter(c, table, columns)) {
+                    Set<Long> seen = new HashSet<>();
+                    for (long u = from; u < to; u++) {
+                        long count = Math.min(maxPerUser, activity(random, mean));
+                        seen.clear();
+                        for (long k = 0; k < count; k++) {
+                            long bookIndex = spread(popularity.sample(random), settings.getBooks());
+                            if (distinct && !seen.add(bookIndex)) {
+                                // Popular books collide often for heavy users; fall back to a uniform pick.
+                                do {
+                                    bookIndex = random.nextLong(settings.getBooks());
+                                } while (!seen.add(bookIndex));
+                            }
+                            row.write(out, random, firstUser + u, firstBook + bookIndex);
+                            out.endRow();
+                        }
+                    }
+                    return out.finish();
+                } finally {
+                    skipRatingStats(c, false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Bulk loads leave the reviews trigger's rating stats alone on their connection; {@link #recordRatingStats}
+     * adds the loaded reviews in one pass afterwards.
+     */
+    private static void skipRatingStats(Connection c, boolean skip) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            st.execute(skip ? "set bookhub.skip_rating_stats = on" : "reset bookhub.skip_rating_stats");
+        }
+    }
+
+    private void run(ExecutorService pool, String table, long count, long chunkSize, Chunk work) throws Exception {
+        if (count <= 0) return;
+        long chunks = (count + chunkSize - 1) / chunkSize;
+        long salt = table.hashCode();
+        AtomicLong rows = new AtomicLong();
+        long started = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (long chunk = 0; chunk < chunks; chunk++) {
+            long from = chunk * chunkSize;
+            long to = Math.min(count, from + chunkSize);
+            long index = chunk;
+            futures.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(mix(settings.getSeed(), salt, index));
+                long written = work.write(index, from, to, random);
+                long total = rows.addAndGet(written);
+                if (index % 50 == 0) log.info("{}: {} rows written", table, total);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> f : futures) f.get();
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("{}: {} rows in {} s ({} rows/s)", table, rows.get(), Math.round(seconds), Math.round(rows.get() / seconds));
+    }
+
+    /**
+     * An empty change log is backfilled from all rows on the next startup. A populated one only grows through
+     * the services, so the generated rows are appended here to keep sync replays complete.
+     */
+    private void recordChanges(Statement st, long firstBook, long firstReview, long firstFavorite, long firstHistory)
+            throws SQLException {
+        try (ResultSet rs = st.executeQuery("select exists (select 1 from change_log)")) {
+            rs.next();
+            if (!rs.getBoolean(1)) return;
+        }
+        log.info("Appending generated rows to the change log");
+        String insert = "insert into change_log (entity_type, entity_id, user_id, operation, changed_at) ";
+        st.execute(insert + "select 'BOOK', b.id, null, 'UPSERT', now() from books b where b.id >= " + firstBook + " order by b.id");
+        st.execute(insert + "select 'REVIEW', r.id, r.user_id, 'UPSERT', now() from reviews r where r.id >= " + firstReview + " order by r.id");
+        st.execute(insert + "select 'FAVORITE', f.book_id, f.user_id, 'UPSERT', now() from favorites f where f.id >= " + firstFavorite + " order by f.id");
+        st.execute(insert + "select 'HISTORY', h.id, h.user_id, 'UPSERT', now() from history h where h.id >= " + firstHistory + " order by h.id");
+    }
+
+    private void recordRatingStats(Statement st, long firstReview) throws SQLException {
+        log.info("Adding generated reviews to the rating stats");
+        st.execute("insert into book_rating_stats as s (book_id, rating_1, rating_2, rating_3, rating_4, rating_5) "
+                + "select book_id, count(*) filter (where rating = 1), count(*) filter (where rating = 2), "
+                + "count(*) filter (where rating = 3), count(*) filter (where rating = 4), count(*) filter (where rating = 5) "
+                + "from reviews where id >= " + firstReview + " group by book_id "
+                + "on conflict (book_id) do update set rating_1 = s.rating_1 + excluded.rating_1, "
+                + "rating_2 = s.rating_2 + excluded.rating_2, rating_3 = s.rating_3 + excluded.rating_3, "
+                + "rating_4 = s.rating_4 + excluded.rating_4, rating_5 = s.rating_5 + excluded.rating_5");
+    }
+
+    private long nextId(String table) throws SQLException {
+        try (Connection c = dataSource.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("select coalesce(max(id), 0) + 1 from " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private long activity(SplittableRandom random, double mean) {
+        double gaussian = gaussian(random);
+        return Math.round(mean * Math.exp(ACTIVITY_SIGMA * gaussian - ACTIVITY_SIGMA * ACTIVITY_SIGMA / 2));
+    }
+
+    private Instant recent(SplittableRandom random) {
+        // Squaring biases timestamps towards now, like real activity that grows over time.
+        double u = random.nextDouble();
+        return now.minusSeconds((long) (u * u * ACTIVITY_WINDOW_SECONDS));
+    }
+
+    private static long spread(long rank, long n) {
+        return (rank * PRIME_STRIDE) % n;
+    }
+
+    private static int rating(SplittableRandom random) {
+        double u = random.nextDouble();
+        if (u < 0.05) return 1;
+        if (u < 0.12) return 2;
+        if (u < 0.30) return 3;
+        if (u < 0.65) return 4;
+        return 5;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private static long mix(long seed, long salt, long index) {
+        long z = seed ^ (salt * 0x9E3779B97F4A7C15L) ^ (index * 0xBF58476D1CE4E5B9L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static String[] vocabulary(SplittableRandom random) {
+        Set<String> words = new HashSet<>();
+        String[] result = new String[VOCABULARY_SIZE];
+        int n = 0;
+        while (n < VOCABULARY_SIZE) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int i = 0; i < syllables; i++) word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            if (words.add(word.toString())) result[n++] = word.toString();
+        }
+        return result;
+    }
+
+    private static String phrase(SplittableRandom random, String[] vocabulary, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return sb.toString();
+    }
+
+    private static String name(SplittableRandom random, String[] vocabulary) {
+        return capitalize(vocabulary[random.nextInt(vocabulary.length)]) + " "
+                + capitalize(vocabulary[random.nextInt(vocabulary.length)]);
+    }
+
+    private static String authorName(int author, String[] vocabulary) {
+        // Derived from the author index so every book by the same author carries the same name.
+        SplittableRandom random = new SplittableRandom(author);
+        return name(random, vocabulary);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Runs the synthetic dataset generator when the {@code generate} profile is active, then shuts the
+ * application down. Sizes and skew are configured through {@code app.generator.*}.
+ */
+@Component
+@Profile("generate")
+@Order(Ordered.LOWEST_PRECEDENCE)
+@Slf4j
+public class DatasetGeneratorRunner implements ApplicationRunner {
+    private final DataSource dataSource;
+    private final BCryptPasswordEncoder encoder;
+    private final ConfigurableApplicationContext context;
+    private final DatasetGenerator.Settings settings;
+    private final String password;
+
+    public DatasetGeneratorRunner(DataSource dataSource, BCryptPasswordEncoder encoder,
+                                  ConfigurableApplicationContext context,
+                                  @Value("${app.generator.books:5000000}") long books,
+                                  @Value("${app.generator.users:1000000}") long users,
+                                  @Value("${app.generator.reviews:50000000}") long reviews,
+                                  @Value("${app.generator.favorites:10000000}") long favorites,
+                                  @Value("${app.generator.history:200000000}") long history,
+                                  @Value("${app.generator.threads:0}") int threads,
+                                  @Value("${app.generator.seed:42}") long seed,
+                                  @Value("${app.generator.genre-exponent:1.0}") double genreExponent,
+                                  @Value("${app.generator.author-exponent:1.1}") double authorExponent,
+                                  @Value("${app.generator.popularity-exponent:1.0}") double popularityExponent,
+                                  @Value("${app.generator.password:generated123}") String password) {
+        this.dataSource = dataSource;
+        this.encoder = encoder;
+        this.context = context;
+        this.password = password;
+        this.settings = DatasetGenerator.Settings.builder()
+                .books(books)
+                .users(users)
+                .reviews(reviews)
+                .favorites(favorites)
+                .history(history)
+                .threads(threads > 0 ? threads : Runtime.getRuntime().availableProcessors())
+                .seed(seed)
+                .genreExponent(genreExponent)
+                .authorExponent(authorExponent)
+                .popularityExponent(popularityExponent)
+                .build();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        log.info("Generating dataset: {}", settings);
+        long started = System.nanoTime();
+        // One hash for every generated user: BCrypt is deliberately slow and would dominate the run otherwise.
+        new DatasetGenerator(dataSource, settings, encoder.encode(password)).generate();
+        log.info("Dataset generated in {} s", (System.nanoTime() - started) / 1_000_000_000);
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,29 @@
+package com.library.generator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/** Samples ranks 0..n-1 where rank r has probability proportional to 1 / (r + 1)^exponent. */
+final class ZipfDistribution {
+    private final double[] cdf;
+
+    ZipfDistribution(int n, double exponent) {
+        if (n <= 0) throw new IllegalArgumentException("Zipf size must be positive: " + n);
+        cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) cdf[i] /= sum;
+    }
+
+    int sample(SplittableRandom random) {
+        int i = Arrays.binarySearch(cdf, random.nextDouble());
+        return i >= 0 ? i : Math.min(-i - 1, cdf.length - 1);
+    }
+
+    int size() {
+        return cdf.length;
+    }
+}
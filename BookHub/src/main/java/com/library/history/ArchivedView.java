@@ -0,0 +1,5 @@
+package com.library.history;
+
+/** One archived history row; {@code id} is the id it had in the {@code history} table. */
+public record ArchivedView(long id, long userId, long bookId, long openedAtMicros) {
+}
@@ -0,0 +1,375 @@
+package com.library.history;
+
+import com.library.history.HistorySegmentFile.Block;
+import com.library.history.HistorySegmentFile.Index;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cold storage for history views moved out of the {@code history} table. Views are partitioned by the UTC
+ * month they were opened in ({@code <archive-dir>/yyyy-MM/}); each compaction run adds one segment per
+ * month it touches, and a month with more than {@value #MAX_SEGMENTS_PER_PARTITION} segments is merged back
+ * into one. Segment indexes are kept in memory, so reading a user's archived views reads one compressed
+ * block per segment of the months it needs, newest month first.
+ * <p>
+ * Views are identified by their former history id and deduplicated on read and merge, so a batch archived
+ * twice (e.g. when deleting the rows failed after the segment was written) is harmless. Writes are
+ * serialized; readers work on an immutable view of the segment list and reload it if a merge removed a file
+ * under them. Several instances may share the directory as long as only one writes at a time and calls
+ * {@link #recover()} before it does; the others {@link #reload()} when told about the change. An empty
+ * {@code app.history.archive-dir} disables archiving.
+ */
+@Component
+@Slf4j
+public class HistoryArchive {
+    private static final int MAX_SEGMENTS_PER_PARTITION = 8;
+    private static final int MAX_READ_ATTEMPTS = 3;
+    private static final String SUFFIX = ".seg";
+    private static final Comparator<ArchivedView> NEWEST_FIRST = Comparator
+            .comparingLong(ArchivedView::openedAtMicros).thenComparingLong(ArchivedView::id).reversed();
+
+    private final Path dir;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ReentrantLock writeLock = new ReentrantLock(); // not a monitor: holders do file I/O
+    private volatile NavigableMap<YearMonth, List<Index>> partitions = new TreeMap<>();
+
+    public HistoryArchive(@Value("${app.history.archive-dir:}") String dir) {
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        load(false);
+        log.info("History archive opened: {} months, {} segments", partitions.size(),
+                partitions.values().stream().mapToInt(List::size).sum());
+    }
+
+    /** Rereads the segment list from disk, picking up segments written and removed by other instances. */
+    public void reload() throws IOException {
+        load(false);
+    }
+
+    /**
+     * Like {@link #reload()}, and also deletes temporary files left by an interrupted write. Only for the
+     * caller holding the cluster-wide archive lock, since other temporary files may still be being written.
+     */
+    public void recover() throws IOException {
+        load(true);
+    }
+
+    private void load(boolean removeTemporary) throws IOException {
+        writeLock.lock();
+        try {
+            if (dir == null || !Files.isDirectory(dir)) return;
+            NavigableMap<YearMonth, List<Index>> loaded = new TreeMap<>();
+            long maxSequence = 0;
+            try (DirectoryStream<Path> months = Files.newDirectoryStream(dir, Files::isDirectory)) {
+                for (Path monthDir : months) {
+                    YearMonth month;
+                    try {
+                        month = YearMonth.parse(monthDir.getFileName().toString());
+                    } catch (DateTimeParseException e) {
+                        continue;
+                    }
+                    List<Index> segments = new ArrayList<>();
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(monthDir)) {
+                        for (Path file : files) {
+                            String name = file.getFileName().toString();
+                            if (name.endsWith(".tmp")) {
+                                if (removeTemporary) Files.deleteIfExists(file);
+                            } else if (name.endsWith(SUFFIX)) {
+                                try {
+                                    segments.add(HistorySegmentFile.readIndex(file));
+                                } catch (NoSuchFileException e) {
+                                    continue; // removed by a writer on another instance since the listing
+                                }
+                                maxSequence = Math.max(maxSequence, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+                            }
+                        }
+                    }
+                    if (!segments.isEmpty()) loaded.put(month, segments);
+                }
+            }
+            sequence.accumulateAndGet(maxSequence, Math::max);
+            partitions = loaded;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Adds the views as one new segment per month, merging months that have accumulated too many segments. */
+    public void append(Collection<ArchivedView> views) throws IOException {
+        if (dir == null || views.isEmpty()) return;
+        writeLock.lock();
+        try {
+            Map<YearMonth, TreeMap<Long, List<ArchivedView>>> byMonth = new HashMap<>();
+            for (ArchivedView v : views) {
+                byMonth.computeIfAbsent(monthOf(v.openedAtMicros()), m -> new TreeMap<>())
+                        .computeIfAbsent(v.userId(), u -> new ArrayList<>()).add(v);
+            }
+            NavigableMap<YearMonth, List<Index>> next = copy(partitions);
+            List<Path> obsolete = new ArrayList<>();
+            for (Map.Entry<YearMonth, TreeMap<Long, List<ArchivedView>>> month : byMonth.entrySet()) {
+                List<Block> blocks = new ArrayList<>(month.getValue().size());
+                month.getValue().forEach((userId, userViews) -> {
+                    userViews.sort(NEWEST_FIRST);
+                    blocks.add(HistorySegmentFile.encode(userId, userViews));
+                });
+                Path file = newSegment(month.getKey());
+                HistorySegmentFile.write(file, blocks.size(), blocks.iterator());
+                List<Index> segments = next.computeIfAbsent(month.getKey(), m -> new ArrayList<>());
+                segments.add(HistorySegmentFile.readIndex(file));
+                if (segments.size() > MAX_SEGMENTS_PER_PARTITION) {
+                    Index merged = merge(month.getKey(), segments);
+                    segments.forEach(index -> obsolete.add(index.file));
+                    segments.clear();
+                    segments.add(merged);
+                }
+            }
+            publish(next, obsolete);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} of the user's archived views opened before the cursor, newest first. Pass
+     * {@link Long#MAX_VALUE} as {@code beforeMicros} to start at the newest view.
+     */
+    public List<ArchivedView> read(long userId, long beforeMicros, long beforeId, int limit) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return readOnce(userId, beforeMicros, beforeId, limit);
+            } catch (NoSuchFileException e) {
+                // Merged or rewritten, possibly by another instance.
+                if (attempt == MAX_READ_ATTEMPTS) throw new UncheckedIOException(e);
+                reloadQuietly();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private List<ArchivedView> readOnce(long userId, long beforeMicros, long beforeId, int limit) throws IOException {
+        List<ArchivedView> result = new ArrayList<>();
+        for (Map.Entry<YearMonth, List<Index>> month : partitions.descendingMap().entrySet()) {
+            if (startMicros(month.getKey()) > beforeMicros) continue;
+            Map<Long, ArchivedView> views = new HashMap<>();
+            for (Index index : month.getValue()) {
+                int slot = index.find(userId);
+                if (slot < 0) continue;
+                try (FileChannel channel = FileChannel.open(index.file, StandardOpenOption.READ)) {
+                    for (ArchivedView v : HistorySegmentFile.decode(HistorySegmentFile.readBlock(channel, index, slot))) {
+                        if (v.openedAtMicros() < beforeMicros || (v.openedAtMicros() == beforeMicros && v.id() < beforeId)) {
+                            views.putIfAbsent(v.id(), v);
+                        }
+                    }
+                }
+            }
+            List<ArchivedView> sorted = new ArrayList<>(views.values());
+            sorted.sort(NEWEST_FIRST);
+            result.addAll(sorted);
+            // Earlier months only hold older views.
+            if (result.size() >= limit) return result.subList(0, limit);
+        }
+        return result;
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Whether any segment holds views of the user. */
+    public boolean contains(long userId) {
+        for (List<Index> segments : partitions.values()) {
+            for (Index index : segments) {
+                if (index.find(userId) >= 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Rewrites the segments holding the user's views without them; other users' blocks are copied as is. */
+    public void removeUser(long userId) throws IOException {
+        if (dir == null) return;
+        writeLock.lock();
+        try {
+            NavigableMap<YearMonth, List<Index>> next = copy(partitions);
+            List<Path> obsolete = new ArrayList<>();
+            for (Map.Entry<YearMonth, List<Index>> month : next.entrySet()) {
+                List<Index> segments = month.getValue();
+                for (int i = 0; i < segments.size(); i++) {
+                    Index index = segments.get(i);
+                    int slot = index.find(userId);
+                    if (slot < 0) continue;
+                    obsolete.add(index.file);
+                    if (index.userIds.length == 1) {
+                        segments.remove(i--);
+                        continue;
+                    }
+                    Path file = newSegment(month.getKey());
+                    try (FileChannel channel = FileChannel.open(index.file, StandardOpenOption.READ)) {
+                        HistorySegmentFile.write(file, index.userIds.length - 1, new Iterator<>() {
+                            int next = slot == 0 ? 1 : 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < index.userIds.length;
+                            }
+
+                            @Override
+                            public Block next() {
+                                if (!hasNext()) throw new NoSuchElementException();
+                                try {
+                                    return HistorySegmentFile.readBlock(channel, index, next);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                } finally {
+                                    next++;
+                                    if (next == slot) next++;
+                                }
+                            }
+                        });
+                    }
+                    segments.set(i, HistorySegmentFile.readIndex(file));
+                }
+            }
+            next.values().removeIf(List::isEmpty);
+            publish(next, obsolete);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Deletes the months before {@code cutoff}; returns the number of segments removed. */
+    public int dropBefore(YearMonth cutoff) throws IOException {
+        if (dir == null) return 0;
+        writeLock.lock();
+        try {
+            NavigableMap<YearMonth, List<Index>> next = copy(partitions);
+            List<Path> obsolete = new ArrayList<>();
+            NavigableMap<YearMonth, List<Index>> expired = next.headMap(cutoff, false);
+            expired.values().forEach(segments -> segments.forEach(index -> obsolete.add(index.file)));
+            expired.clear();
+            publish(next, obsolete);
+            return obsolete.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Merges the segments of one month into a new one, user by user: a user found in a single segment has
+     * its block copied, otherwise the user's views are decoded, deduplicated and encoded again.
+     */
+    private Index merge(YearMonth month, List<Index> segments) throws IOException {
+        List<FileChannel> channels = new ArrayList<>();
+        try {
+            for (Index index : segments) channels.add(FileChannel.open(index.file, StandardOpenOption.READ));
+            TreeSet<Long> users = new TreeSet<>();
+            for (Index index : segments) {
+                for (long userId : index.userIds) users.add(userId);
+            }
+            Iterator<Long> userIds = users.iterator();
+            Path file = newSegment(month);
+            HistorySegmentFile.write(file, users.size(), new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return userIds.hasNext();
+                }
+
+                @Override
+                public Block next() {
+                    long userId = userIds.next();
+                    try {
+                        List<Block> blocks = new ArrayList<>();
+                        for (int i = 0; i < segments.size(); i++) {
+                            int slot = segments.get(i).find(userId);
+                            if (slot >= 0) blocks.add(HistorySegmentFile.readBlock(channels.get(i), segments.get(i), slot));
+                        }
+                        if (blocks.size() == 1) return blocks.get(0);
+                        Map<Long, ArchivedView> views = new HashMap<>();
+                        for (Block b : blocks) {
+                            for (ArchivedView v : HistorySegmentFile.decode(b)) views.putIfAbsent(v.id(), v);
+                        }
+                        List<ArchivedView> sorted = new ArrayList<>(views.values());
+                        sorted.sort(NEWEST_FIRST);
+                        return HistorySegmentFile.encode(userId, sorted);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            log.info("History archive {} merged: {} segments, {} users", month, segments.size(), users.size());
+            return HistorySegmentFile.readIndex(file);
+        } finally {
+            for (FileChannel channel : channels) channel.close();
+        }
+    }
+
+    /** Swaps in the new segment list; replaced files are deleted only afterwards, readers retry on them. */
+    private void publish(NavigableMap<YearMonth, List<Index>> next, List<Path> obsolete) throws IOException {
+        partitions = next;
+        for (Path file : obsolete) Files.deleteIfExists(file);
+    }
+
+    /**
+     * Segment numbers never go below the clock in milliseconds, so a name is not reused after the newest
+     * segment was removed, which a reader with an older segment list could mistake for the old file.
+     */
+    private Path newSegment(YearMonth month) {
+        long seq = sequence.updateAndGet(s -> Math.max(s + 1, System.currentTimeMillis()));
+        return dir.resolve(month.toString()).resolve(String.format("%019d%s", seq, SUFFIX));
+    }
+
+    private static NavigableMap<YearMonth, List<Index>> copy(NavigableMap<YearMonth, List<Index>> partitions) {
+        NavigableMap<YearMonth, List<Index>> copy = new TreeMap<>();
+        partitions.forEach((month, segments) -> copy.put(month, new ArrayList<>(segments)));
+        return copy;
+    }
+
+    static YearMonth monthOf(long micros) {
+        return YearMonth.from(Instant.EPOCH.plus(micros, ChronoUnit.MICROS).atOffset(ZoneOffset.UTC));
+    }
+
+    private static long startMicros(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() * 1000;
+    }
+}
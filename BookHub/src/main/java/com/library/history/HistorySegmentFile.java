@@ -0,0 +1,208 @@
+package com.library.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * File format of a history archive segment. A header (magic, format, user count, index CRC32) is followed by
+ * an index sorted by user id and one deflate-compressed block per user, so reading one user's views touches
+ * the index and a single block. Within a block the views are newest first and delta-encoded as varints.
+ * <p>
+ * Files are written to a temporary sibling and atomically moved into place and are never modified afterwards;
+ * a changed segment is written under a new name.
+ */
+final class HistorySegmentFile {
+    private static final int MAGIC = 0x42484853; // "BHHS"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int INDEX_ENTRY_BYTES = 24;
+
+    private HistorySegmentFile() {
+    }
+
+    /** Location of each user's block in a segment. */
+    static final class Index {
+        final Path file;
+        final long[] userIds;
+        final long[] offsets;
+        final int[] lengths;
+        final int[] counts;
+
+        Index(Path file, long[] userIds, long[] offsets, int[] lengths, int[] counts) {
+            this.file = file;
+            this.userIds = userIds;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.counts = counts;
+        }
+
+        int find(long userId) {
+            return Arrays.binarySearch(userIds, userId);
+        }
+    }
+
+    /** A compressed block of one user's views, as written to and read from a segment. */
+    record Block(long userId, int count, byte[] data) {
+    }
+
+    static Block encode(long userId, List<ArchivedView> newestFirst) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(newestFirst.size() * 8);
+        Deflater deflater = new Deflater();
+        try (OutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            long prevId = 0;
+            long prevOpened = 0;
+            for (ArchivedView v : newestFirst) {
+                writeVarLong(out, zigzag(prevId - v.id()));
+                writeVarLong(out, zigzag(v.bookId()));
+                writeVarLong(out, zigzag(prevOpened - v.openedAtMicros()));
+                prevId = v.id();
+                prevOpened = v.openedAtMicros();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deflater.end();
+        }
+        return new Block(userId, newestFirst.size(), bytes.toByteArray());
+    }
+
+    static List<ArchivedView> decode(Block block) throws IOException {
+        List<ArchivedView> views = new ArrayList<>(block.count());
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(block.data()))) {
+            long id = 0;
+            long opened = 0;
+            for (int i = 0; i < block.count(); i++) {
+                id -= unzigzag(readVarLong(in));
+                long bookId = unzigzag(readVarLong(in));
+                opened -= unzigzag(readVarLong(in));
+                views.add(new ArchivedView(id, block.userId(), bookId, opened));
+            }
+        }
+        return views;
+    }
+
+    /**
+     * Writes {@code users} blocks, which must come sorted by user id without duplicates. Blocks are streamed
+     * to the file, so a merge never holds more than one user's views at a time.
+     */
+    static void write(Path file, int users, Iterator<Block> blocks) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        ByteBuffer index = ByteBuffer.allocate(users * INDEX_ENTRY_BYTES);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = HEADER_BYTES + (long) users * INDEX_ENTRY_BYTES;
+            channel.position(offset);
+            int written = 0;
+            while (blocks.hasNext()) {
+                Block b = blocks.next();
+                if (++written > users) throw new IllegalArgumentException("More blocks than users");
+                index.putLong(b.userId()).putLong(offset).putInt(b.data().length).putInt(b.count());
+                writeFully(channel, ByteBuffer.wrap(b.data()));
+                offset += b.data().length;
+            }
+            if (written != users) throw new IllegalArgumentException("Expected " + users + " blocks, got " + written);
+            index.flip();
+            CRC32 crc = new CRC32();
+            crc.update(index.duplicate());
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC).putInt(FORMAT).putInt(users).putInt(0).putLong(crc.getValue());
+            header.flip();
+            channel.position(0);
+            writeFully(channel, header);
+            writeFully(channel, index);
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Index readIndex(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) throw new IOException("Not a history segment: " + file);
+            int format = header.getInt();
+            if (format != FORMAT) throw new IOException("Unsupported history segment format " + format);
+            int users = header.getInt();
+            header.getInt();
+            long checksum = header.getLong();
+            ByteBuffer index = readFully(channel, HEADER_BYTES, users * INDEX_ENTRY_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(index.duplicate());
+            if (crc.getValue() != checksum) throw new IOException("History segment index checksum mismatch: " + file);
+            long[] userIds = new long[users];
+            long[] offsets = new long[users];
+            int[] lengths = new int[users];
+            int[] counts = new int[users];
+            for (int i = 0; i < users; i++) {
+                userIds[i] = index.getLong();
+                offsets[i] = index.getLong();
+                lengths[i] = index.getInt();
+                counts[i] = index.getInt();
+            }
+            return new Index(file, userIds, offsets, lengths, counts);
+        }
+    }
+
+    static Block readBlock(FileChannel channel, Index index, int slot) throws IOException {
+        ByteBuffer data = readFully(channel, index.offsets[slot], index.lengths[slot]);
+        return new Block(index.userIds[slot], index.counts[slot], data.array());
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) throw new EOFException("Truncated history segment");
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated history block");
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed history block");
+    }
+}
@@ -0,0 +1,53 @@
+package com.library.limit;
+
+import com.library.exception.ConcurrencyLimitExceededException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/** Applies {@link ConcurrencyLimited} to controller methods. */
+@Component
+@Slf4j
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+    private static final String PERMIT = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final ConcurrencyLimiters limiters;
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimiters limiters) {
+        this.limiters = limiters;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) return true;
+        ConcurrencyLimited limited = AnnotatedElementUtils.findMergedAnnotation(method.getMethod(), ConcurrencyLimited.class);
+        if (limited == null) {
+            limited = AnnotatedElementUtils.findMergedAnnotation(method.getBeanType(), ConcurrencyLimited.class);
+        }
+        if (limited == null) return true;
+
+        String group = limited.value();
+        GradientLimiter limiter = limiters.limiter(group);
+        GradientLimiter.Permit permit = limiter.tryAcquire().orElse(null);
+        if (permit == null) {
+            limiters.rejected(group);
+            log.debug("Rejected {} {}: group '{}' at limit {}", request.getMethod(), request.getRequestURI(), group, limiter.getLimit());
+            throw new ConcurrencyLimitExceededException(
+                    "Too many concurrent requests, retry later", limiters.retryAfterSeconds(group));
+        }
+        request.setAttribute(PERMIT, permit);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT) instanceof GradientLimiter.Permit permit) {
+            request.removeAttribute(PERMIT);
+            permit.release(ex == null && response.getStatus() < 500);
+        }
+    }
+}
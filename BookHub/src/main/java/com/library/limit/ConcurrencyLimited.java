@@ -0,0 +1,19 @@
+package com.library.limit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated handler under the adaptive concurrency limit of the named endpoint group. Requests over
+ * the limit are rejected with 503 and {@code Retry-After} instead of queueing. Group limits are configured
+ * with {@code app.limits.<group>.*}.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConcurrencyLimited {
+    String value();
+}
@@ -0,0 +1,61 @@
+package com.library.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link GradientLimiter} per endpoint group, created on first use. Limits default to
+ * {@code app.limits.default.*} and can be set per group with {@code app.limits.<group>.*}. Each group
+ * publishes {@code concurrency.limit}, {@code concurrency.in.flight} and {@code concurrency.rejected}.
+ */
+@Component
+public class ConcurrencyLimiters {
+    private final Environment env;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiters(Environment env, MeterRegistry meterRegistry) {
+        this.env = env;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public GradientLimiter limiter(String group) {
+        return group(group).limiter();
+    }
+
+    void rejected(String group) {
+        group(group).rejected().increment();
+    }
+
+    /** Seconds a rejected client should wait before retrying. */
+    long retryAfterSeconds(String group) {
+        return setting(group, "retry-after-seconds", 1);
+    }
+
+    private Group group(String name) {
+        return groups.computeIfAbsent(name, g -> {
+            GradientLimiter limiter = new GradientLimiter(
+                    setting(g, "initial-limit", 20), setting(g, "min-limit", 2), setting(g, "max-limit", 200));
+            Gauge.builder("concurrency.limit", limiter, GradientLimiter::getLimit)
+                    .tag("group", g).register(meterRegistry);
+            Gauge.builder("concurrency.in.flight", limiter, GradientLimiter::getInFlight)
+                    .tag("group", g).register(meterRegistry);
+            Counter rejected = Counter.builder("concurrency.rejected").tag("group", g).register(meterRegistry);
+            return new Group(limiter, rejected);
+        });
+    }
+
+    private int setting(String group, String key, int fallback) {
+        Integer value = env.getProperty("app.limits." + group + "." + key, Integer.class);
+        return value != null ? value : env.getProperty("app.limits.default." + key, Integer.class, fallback);
+    }
+
+    private record Group(GradientLimiter limiter, Counter rejected) {
+    }
+}
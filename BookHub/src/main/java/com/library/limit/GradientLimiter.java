@@ -0,0 +1,82 @@
+package com.library.limit;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit driven by latency. A slow moving average of response time is the baseline; while
+ * recent responses are as fast as the baseline the limit moves toward the limit plus its square root, and when
+ * they slow down (the database or CPU is queueing) toward the limit scaled by the latency ratio, at most halved.
+ * Each sample moves the limit a fifth of the way to that target, so one slow response lowers it by at most 10%
+ * and halving it takes a sustained slowdown of seven or more samples. Failures do not contribute samples.
+ */
+public class GradientLimiter {
+    private static final double SMOOTHING = 0.2;
+    private static final double TOLERANCE = 1.5;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double longRtt;
+
+    public GradientLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limit range: " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /** Returns a permit if the request fits under the current limit; it must be released exactly once. */
+    public Optional<Permit> tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) return Optional.empty();
+            if (inFlight.compareAndSet(current, current + 1)) return Optional.of(new Permit(System.nanoTime()));
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        double rtt = Math.max(1, rttNanos);
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / LONG_WINDOW;
+        // After a long overload the baseline itself has drifted up; pull it back once latency recovers.
+        if (longRtt / rtt > 2) longRtt *= 0.95;
+        // Not using the current limit: latency says nothing about whether a higher one would be safe.
+        if (inFlightAtStart < limit / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public final class Permit {
+        private final long startedAt;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(long startedAt) {
+            this.startedAt = startedAt;
+            this.inFlightAtStart = inFlight.get();
+        }
+
+        /** Releases the permit; only successful requests feed the latency estimate. */
+        public void release(boolean success) {
+            if (released) return;
+            released = true;
+            inFlight.decrementAndGet();
+            if (success) onSample(System.nanoTime() - startedAt, inFlightAtStart);
+        }
+    }
+}
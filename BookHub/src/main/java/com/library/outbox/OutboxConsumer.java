@@ -0,0 +1,25 @@
+package com.library.outbox;
+
+import com.library.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Receives outbox events from {@link OutboxRelay} in delivery order, a batch at a time. A batch that throws
+ * is delivered again on the next poll, so handling must tolerate duplicates.
+ */
+public interface OutboxConsumer {
+
+    /** Unique name; durable consumers store their position under it. */
+    String name();
+
+    /**
+     * Durable consumers resume from their stored position and see every event at least once. Others start
+     * at the current end of the outbox whenever the application starts and keep their position in memory.
+     */
+    default boolean durable() {
+        return true;
+    }
+
+    void handle(List<OutboxEvent> events) throws Exception;
+}
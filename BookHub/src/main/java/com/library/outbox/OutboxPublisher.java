@@ -0,0 +1,77 @@
+package com.library.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.cluster.ClusterEventBus;
+import com.library.entity.OutboxEvent;
+import com.library.entity.OutboxEvent.AggregateType;
+import com.library.repository.OutboxEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+/**
+ * Appends domain events to the outbox. Events must be written in the transaction that makes the change,
+ * so they are stored if and only if the change commits; calling this outside a transaction fails. After
+ * commit the relay of this instance and, through the cluster bus, of the others is woken up.
+ * <p>
+ * Delivery is ordered by transaction id, which PostgreSQL assigns at a transaction's first write, not at
+ * commit. A write to an existing aggregate therefore calls {@link #lockAggregate} before it writes anything:
+ * a transaction that had to wait for another writer of the aggregate gets its id after that writer committed,
+ * so its events are delivered after the writer's. Creating an aggregate needs no lock, nothing can write to
+ * it before the creation commits.
+ */
+@Component
+public class OutboxPublisher {
+    static final String CLUSTER_TOPIC = "outbox";
+
+    private final OutboxEventRepository repo;
+    private final ObjectMapper objectMapper;
+    private final OutboxRelay relay;
+    private final ClusterEventBus clusterBus;
+
+    public OutboxPublisher(OutboxEventRepository repo, ObjectMapper objectMapper, OutboxRelay relay, ClusterEventBus clusterBus) {
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.relay = relay;
+        this.clusterBus = clusterBus;
+    }
+
+    /**
+     * Serializes the transactions writing to one aggregate until they end. Must be called before the
+     * transaction's first write, including flushes of modified entities; a later call does not order delivery.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockAggregate(AggregateType aggregateType, Long aggregateId) {
+        repo.lockAggregate(aggregateType.name() + ":" + aggregateId);
+    }
+
+    /** Stores an event; the payload is serialized to JSON. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(AggregateType aggregateType, Long aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event payload is not serializable: " + eventType, e);
+        }
+        repo.save(OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .payload(json)
+                .createdAt(Instant.now())
+                .build());
+        clusterBus.publish(CLUSTER_TOPIC, ClusterEventBus.ALL);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.wakeUp();
+            }
+        });
+    }
+}
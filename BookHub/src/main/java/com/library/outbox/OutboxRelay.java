@@ -0,0 +1,192 @@
+package com.library.outbox;
+
+import com.library.cluster.ClusterEventBus;
+import com.library.entity.OutboxEvent;
+import com.library.entity.OutboxOffset;
+import com.library.repository.OutboxEventRepository;
+import com.library.repository.OutboxOffsetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers outbox events to every {@link OutboxConsumer} in batches. Events are ordered by writing
+ * transaction, then by id, and a transaction's events are only read once every older transaction has
+ * finished, so a consumer never skips an event that commits late. Transaction ids are assigned at the first
+ * write, not at commit; per-aggregate order holds because writers take
+ * {@link OutboxPublisher#lockAggregate the aggregate's lock} before writing.
+ * <p>
+ * A consumer's position advances only after it handled a batch, so delivery is at least once. A long
+ * running transaction anywhere in the database holds delivery back until it ends.
+ * <p>
+ * Durable consumers get one instance at a time: each batch is delivered in a transaction holding an advisory
+ * lock on the consumer, starting from the stored position, and an instance that does not get the lock skips
+ * the consumer until its next run. Stored positions only move forward, and cleanup keeps every event after
+ * the oldest of them.
+ * <p>
+ * Besides polling, the relay runs as soon as an event commits on this or, through the cluster bus, any
+ * other instance.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+    private final OutboxEventRepository eventRepo;
+    private final OutboxOffsetRepository offsetRepo;
+    private final List<OutboxConsumer> consumers;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration retention;
+    private final MeterRegistry meterRegistry;
+    private final TaskScheduler scheduler;
+    private final TransactionTemplate tx;
+    private final Map<String, Position> positions = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean wakeUpQueued = new AtomicBoolean();
+
+    public OutboxRelay(OutboxEventRepository eventRepo, OutboxOffsetRepository offsetRepo, List<OutboxConsumer> consumers,
+                       ClusterEventBus clusterBus, TaskScheduler scheduler, PlatformTransactionManager transactionManager,
+                       @Value("${app.outbox.enabled:true}") boolean enabled,
+                       @Value("${app.outbox.batch-size:1000}") int batchSize,
+                       @Value("${app.outbox.max-batches-per-poll:50}") int maxBatches,
+                       @Value("${app.outbox.retention-hours:24}") long retentionHours,
+                       MeterRegistry meterRegistry) {
+        this.eventRepo = eventRepo;
+        this.offsetRepo = offsetRepo;
+        this.consumers = consumers;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.retention = Duration.ofHours(retentionHours);
+        this.meterRegistry = meterRegistry;
+        this.scheduler = scheduler;
+        this.tx = new TransactionTemplate(transactionManager);
+        clusterBus.subscribe(OutboxPublisher.CLUSTER_TOPIC, keys -> wakeUp());
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void relay() {
+        if (!enabled) return;
+        lock.lock();
+        try {
+            for (OutboxConsumer consumer : consumers) {
+                try {
+                    deliver(consumer);
+                } catch (Exception e) {
+                    counter("outbox.failures", consumer).increment();
+                    log.warn("Outbox delivery to {} failed, retrying on the next poll: {}", consumer.name(), e.getMessage());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Runs the relay on the scheduler now rather than at the next poll; bursts collapse into one run. */
+    public void wakeUp() {
+        if (!enabled || !wakeUpQueued.compareAndSet(false, true)) return;
+        scheduler.schedule(() -> {
+            wakeUpQueued.set(false);
+            relay();
+        }, Instant.now());
+    }
+
+    /** Delivers up to max-batches-per-poll batches to one consumer; returns the number of events delivered. */
+    int deliver(OutboxConsumer consumer) throws Exception {
+        int delivered = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int size = consumer.durable() ? deliverDurable(consumer) : deliverTransient(consumer);
+            if (size <= 0) break;
+            counter("outbox.delivered", consumer).increment(size);
+            delivered += size;
+            if (size < batchSize) break;
+        }
+        return delivered;
+    }
+
+    /** Delivers the batch after the stored position under the consumer's lock; -1 if another instance holds it. */
+    private int deliverDurable(OutboxConsumer consumer) throws Exception {
+        try {
+            Integer size = tx.execute(status -> {
+                if (!offsetRepo.tryLock(consumer.name())) return -1;
+                Position position = offsetRepo.findById(consumer.name())
+                        .map(o -> new Position(o.getTxId(), o.getEventId()))
+                        .orElse(new Position(0, 0));
+                List<OutboxEvent> batch = eventRepo.findVisibleAfter(position.txId(), position.eventId(), batchSize);
+                if (batch.isEmpty()) return 0;
+                try {
+                    consumer.handle(batch);
+                } catch (Exception e) {
+                    throw new HandlerFailure(e);
+                }
+                OutboxEvent last = batch.get(batch.size() - 1);
+                offsetRepo.upsert(consumer.name(), last.getTxId(), last.getId());
+                return batch.size();
+            });
+            return size == null ? 0 : size;
+        } catch (HandlerFailure e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private int deliverTransient(OutboxConsumer consumer) throws Exception {
+        Position position = positions.computeIfAbsent(consumer.name(), name -> new Position(eventRepo.findVisibleHorizon(), 0));
+        List<OutboxEvent> batch = eventRepo.findVisibleAfter(position.txId(), position.eventId(), batchSize);
+        if (batch.isEmpty()) return 0;
+        consumer.handle(batch);
+        OutboxEvent last = batch.get(batch.size() - 1);
+        positions.put(consumer.name(), new Position(last.getTxId(), last.getId()));
+        return batch.size();
+    }
+
+    /** Removes events older than the retention that every durable consumer has received. */
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:600000}",
+            initialDelayString = "${app.outbox.cleanup-interval-ms:600000}")
+    public void cleanup() {
+        if (!enabled) return;
+        Position oldest = new Position(Long.MAX_VALUE, Long.MAX_VALUE);
+        for (OutboxConsumer consumer : consumers) {
+            if (!consumer.durable()) continue;
+            Optional<OutboxOffset> offset = offsetRepo.findById(consumer.name());
+            if (offset.isEmpty()) return;
+            Position p = new Position(offset.get().getTxId(), offset.get().getEventId());
+            if (p.compareTo(oldest) < 0) oldest = p;
+        }
+        int removed = eventRepo.deleteDeliveredBefore(Instant.now().minus(retention), oldest.txId(), oldest.eventId());
+        if (removed > 0) log.info("Outbox cleaned up: {} delivered events removed", removed);
+    }
+
+    private Counter counter(String name, OutboxConsumer consumer) {
+        return Counter.builder(name).tag("consumer", consumer.name()).register(meterRegistry);
+    }
+
+    /** Carries a consumer's exception out of the delivery transaction, which is rolled back on the way. */
+    private static final class HandlerFailure extends RuntimeException {
+        HandlerFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    record Position(long txId, long eventId) implements Comparable<Position> {
+        @Override
+        public int compareTo(Position other) {
+            int c = Long.compare(txId, other.txId);
+            return c != 0 ? c : Long.compare(eventId, other.eventId);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.library.repository;
 
 import com.library.entity.Book;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,8 +15,25 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByAuthorContainingIgnoreCase(String author);
     List<Book> findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(String title, String author);
     List<Book> findByGenreIgnoreCase(String genre);
+    List<Book> findByGenreIgnoreCase(String genre, Pageable pageable);
     Page<Book> findAll(Pageable pageable);
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 
     @Query("select b.genre from Book b where b.genre is not null and b.genre <> '' group by b.genre order by count(b) desc")
     List<String> findTopGenres(org.springframework.data.domain.Pageable pageable);
+
+    /**
+     * Deletes the book's reviews, favorites and history in one statement and logs each delete for the owning
+     * user's delta sync. Returns the number of rows deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "with r as (delete from reviews where book_id = :bookId returning id, user_id), "
+            + "f as (delete from favorites where book_id = :bookId returning book_id, user_id), "
+            + "h as (delete from history where book_id = :bookId returning id, user_id) "
+            + "insert into change_log (entity_type, entity_id, user_id, operation, changed_at) "
+            + "select 'REVIEW', id, user_id, 'DELETE', now() from r "
+            + "union all select 'FAVORITE', book_id, user_id, 'DELETE', now() from f "
+            + "union all select 'HISTORY', id, user_id, 'DELETE', now() from h", nativeQuery = true)
+    int deleteDependents(Long bookId);
 }
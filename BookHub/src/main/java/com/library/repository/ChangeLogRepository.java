@@ -0,0 +1,72 @@
+package com.library.repository;
+
+import com.library.entity.ChangeLogEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+    /** Transactions with a lower id have all finished, so their entries can no longer appear out of order. */
+    String VISIBLE_HORIZON = "cast(cast(pg_snapshot_xmin(pg_current_snapshot()) as text) as bigint)";
+
+    /** Catalog entries after the (tx_id, id) position from finished transactions, in that order. */
+    @Query(value = "select * from change_log where user_id is null and (tx_id, id) > (:txId, :id) "
+            + "and tx_id < " + VISIBLE_HORIZON + " order by tx_id, id limit :limit", nativeQuery = true)
+    List<ChangeLogEntry> findCatalogChangesAfter(long txId, long id, int limit);
+
+    /** Entries of the given types after the (tx_id, id) position from finished transactions, in that order. */
+    @Query(value = "select * from change_log where entity_type in (:types) and (tx_id, id) > (:txId, :id) "
+            + "and tx_id < " + VISIBLE_HORIZON + " order by tx_id, id limit :limit", nativeQuery = true)
+    List<ChangeLogEntry> findChangesAfter(long txId, long id, Collection<String> types, int limit);
+
+    /** The user's entries after the (tx_id, id) position from finished transactions, in that order. */
+    @Query(value = "select * from change_log where user_id = :userId and (tx_id, id) > (:txId, :id) "
+            + "and tx_id < " + VISIBLE_HORIZON + " order by tx_id, id limit :limit", nativeQuery = true)
+    List<ChangeLogEntry> findUserChangesAfter(Long userId, long txId, long id, int limit);
+
+    /** Every transaction below this one has finished, so its committed entries are visible from now on. */
+    @Query(value = "select " + VISIBLE_HORIZON, nativeQuery = true)
+    long findVisibleHorizon();
+
+    @Modifying
+    @Query(value = "insert into change_log (entity_type, entity_id, user_id, operation, changed_at) "
+            + "select 'BOOK', b.id, null, 'UPSERT', now() from books b order by b.id", nativeQuery = true)
+    int backfillBooks();
+
+    @Modifying
+    @Query(value = "insert into change_log (entity_type, entity_id, user_id, operation, changed_at) "
+            + "select 'REVIEW', r.id, r.user_id, 'UPSERT', now() from reviews r order by r.id", nativeQuery = true)
+    int backfillReviews();
+
+    @Modifying
+    @Query(value = "insert into change_log (entity_type, entity_id, user_id, operation, changed_at) "
+            + "select 'FAVORITE', f.book_id, f.user_id, 'UPSERT', now() from favorites f order by f.id", nativeQuery = true)
+    int backfillFavorites();
+
+    @Modifying
+    @Query(value = "insert into change_log (entity_type, entity_id, user_id, operation, changed_at) "
+            + "select 'HISTORY', h.id, h.user_id, 'UPSERT', now() from history h order by h.id", nativeQuery = true)
+    int backfillHistory();
+
+    @Modifying
+    @Query(value = "delete from change_log c using change_log newer "
+            + "where newer.entity_type = c.entity_type and newer.entity_id = c.entity_id "
+            + "and coalesce(newer.user_id, -1) = coalesce(c.user_id, -1) and (newer.tx_id, newer.id) > (c.tx_id, c.id)",
+            nativeQuery = true)
+    int deleteSuperseded();
+
+    /** Drops the log entries of archived history rows; they are no longer part of delta sync. */
+    @Modifying
+    @Query(value = "delete from change_log where entity_type = 'HISTORY' and user_id in (:userIds) and entity_id in (:ids)",
+            nativeQuery = true)
+    int deleteHistoryEntries(Collection<Long> userIds, Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query(value = "delete from change_log where id in (select id from change_log where user_id = :userId "
+            + "limit :limit for update skip locked)", nativeQuery = true)
+    int deleteChunkByUserId(Long userId, int limit);
+}
@@ -1,12 +1,54 @@
 package com.library.repository;
 
 import com.library.entity.Favorite;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
+    @EntityGraph(attributePaths = {"user", "book"})
     List<Favorite> findByUserId(Long userId);
     boolean existsByUserIdAndBookId(Long userId, Long bookId);
-    void deleteByUserIdAndBookId(Long userId, Long bookId);
-}
 
+    @Modifying
+    @Query("delete from Favorite f where f.user.id = :userId and f.book.id = :bookId")
+    int deleteByUserIdAndBookId(Long userId, Long bookId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "delete from favorites where id in (select id from favorites where user_id = :userId "
+            + "limit :limit for update skip locked)", nativeQuery = true)
+    int deleteChunkByUserId(Long userId, int limit);
+
+    @Query("select f.book.id from Favorite f where f.user.id = :userId")
+    List<Long> findBookIdsByUserId(Long userId);
+
+    @Query("select f.book.id from Favorite f where f.user.id = :userId and f.book.id in :bookIds")
+    List<Long> findBookIdsByUserIdAndBookIdIn(Long userId, java.util.Collection<Long> bookIds);
+
+    /**
+     * Favorites every existing book of {@code bookIds} not yet favorited and logs each for delta sync, in one
+     * statement. Returns the ids of the books added.
+     */
+    @Transactional
+    @Query(value = "with f as (insert into favorites (user_id, book_id) select :userId, b.id from books b where b.id in (:bookIds) "
+            + "on conflict (user_id, book_id) do nothing returning book_id), "
+            + "c as (insert into change_log (entity_type, entity_id, user_id, operation, changed_at) "
+            + "select 'FAVORITE', book_id, :userId, 'UPSERT', now() from f) "
+            + "select book_id from f", nativeQuery = true)
+    List<Long> addBooks(Long userId, java.util.Collection<Long> bookIds);
+
+    /** Removes the favorites among {@code bookIds} and logs each delete; returns the ids of the books removed. */
+    @Transactional
+    @Query(value = "with f as (delete from favorites where user_id = :userId and book_id in (:bookIds) returning book_id), "
+            + "c as (insert into change_log (entity_type, entity_id, user_id, operation, changed_at) "
+            + "select 'FAVORITE', book_id, :userId, 'DELETE', now() from f) "
+            + "select book_id from f", nativeQuery = true)
+    List<Long> removeBooks(Long userId, java.util.Collection<Long> bookIds);
+
+    @Query("select f.book.genre, count(f) from Favorite f where f.user.id = :userId and f.book.genre is not null group by f.book.genre")
+    List<Object[]> countGenresByUserId(Long userId);
+}
@@ -1,10 +1,56 @@
 package com.library.repository;
 
 import com.library.entity.History;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
 import java.util.List;
 
 public interface HistoryRepository extends JpaRepository<History, Long> {
-    List<History> findByUserIdOrderByLastOpenedDesc(Long userId);
-}
+    @EntityGraph(attributePaths = {"book"})
+    List<History> findByUserIdOrderByLastOpenedDescIdDesc(Long userId, Limit limit);
+
+    @EntityGraph(attributePaths = {"book"})
+    @Query("select h from History h where h.user.id = :userId and (h.lastOpened, h.id) < (:before, :beforeId) "
+            + "order by h.lastOpened desc, h.id desc")
+    List<History> findByUserIdBefore(Long userId, Instant before, Long beforeId, Limit limit);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<History> findByIdIn(java.util.Collection<Long> ids);
+
+    @Query("select h.book.id from History h where h.lastOpened >= :since group by h.book.id order by count(h) desc")
+    List<Long> findTrendingBookIds(Instant since, Pageable pageable);
+
+    @Query("select h.book.genre, count(h) from History h where h.user.id = :userId and h.book.genre is not null group by h.book.genre")
+    List<Object[]> countGenresByUserId(Long userId);
 
+    @Modifying
+    @Transactional
+    @Query(value = "delete from history where id in (select id from history where user_id = :userId "
+            + "limit :limit for update skip locked)", nativeQuery = true)
+    int deleteChunkByUserId(Long userId, int limit);
+
+    /**
+     * Rows beyond the newest {@code keep} of their user, as (id, user id, book id, last opened in epoch
+     * microseconds), in id order. Accounts waiting to be purged are skipped.
+     */
+    @Query(value = "select h.id, h.user_id, h.book_id, cast(extract(epoch from h.last_opened) * 1000000 as bigint) "
+            + "from (select id, user_id, book_id, last_opened, "
+            + "row_number() over (partition by user_id order by last_opened desc, id desc) as rn from history "
+            + "where user_id in (select user_id from history group by user_id having count(*) > :keep) "
+            + "and user_id not in (select id from users where role = 'ROLE_DELETED')) h where h.rn > :keep order by h.id limit :limit", nativeQuery = true)
+    List<Object[]> findBeyondRecent(int keep, int limit);
+
+    @Modifying
+    @Query("delete from History h where h.id in :ids")
+    int deleteByIdIn(java.util.Collection<Long> ids);
+
+    /** Lets one instance at a time archive history; released when the transaction ends. */
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('history-retention'))", nativeQuery = true)
+    boolean tryLockRetention();
+}
@@ -0,0 +1,33 @@
+package com.library.repository;
+
+import com.library.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /** Events after the given position from transactions that have all finished, in delivery order. */
+    @Query(value = "select * from outbox_events where (tx_id, id) > (:txId, :eventId) "
+            + "and tx_id < cast(cast(pg_snapshot_xmin(pg_current_snapshot()) as text) as bigint) "
+            + "order by tx_id, id limit :limit", nativeQuery = true)
+    List<OutboxEvent> findVisibleAfter(long txId, long eventId, int limit);
+
+    /** Waits for and takes a lock on the aggregate, held until the transaction ends. */
+    @Query(value = "select 1 from pg_advisory_xact_lock(hashtextextended(:aggregate, 0))", nativeQuery = true)
+    int lockAggregate(String aggregate);
+
+    /** Transactions below this id have finished; the start position of a consumer that skips the backlog. */
+    @Query(value = "select cast(cast(pg_snapshot_xmin(pg_current_snapshot()) as text) as bigint)", nativeQuery = true)
+    long findVisibleHorizon();
+
+    @Modifying
+    @Transactional
+    @Query(value = "delete from outbox_events where created_at < :before and (tx_id, id) <= (:txId, :eventId)",
+            nativeQuery = true)
+    int deleteDeliveredBefore(Instant before, long txId, long eventId);
+}
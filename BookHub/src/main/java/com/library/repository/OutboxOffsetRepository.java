@@ -0,0 +1,23 @@
+package com.library.repository;
+
+import com.library.entity.OutboxOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String> {
+
+    /** Moves the consumer's position forward; a position at or before the stored one is ignored. */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into outbox_offsets (consumer, tx_id, event_id, updated_at) values (:consumer, :txId, :eventId, now()) "
+            + "on conflict (consumer) do update set tx_id = excluded.tx_id, event_id = excluded.event_id, "
+            + "updated_at = excluded.updated_at "
+            + "where (outbox_offsets.tx_id, outbox_offsets.event_id) < (excluded.tx_id, excluded.event_id)", nativeQuery = true)
+    void upsert(String consumer, long txId, long eventId);
+
+    /** Lets one instance at a time deliver to the consumer; released when the transaction ends. */
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('outbox:' || :consumer))", nativeQuery = true)
+    boolean tryLock(String consumer);
+}
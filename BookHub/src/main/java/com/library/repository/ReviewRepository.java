@@ -1,29 +1,144 @@
 package com.library.repository;
 
 import com.library.entity.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
+    /** Review count and rating sum per book ({@code totals}) and the average over all reviews ({@code prior}). */
+    String RATED_BOOKS = "with totals as (select book_id, rating_1 + rating_2 + rating_3 + rating_4 + rating_5 as reviews, "
+            + "rating_1 + 2 * rating_2 + 3 * rating_3 + 4 * rating_4 + 5 * rating_5 as points from book_rating_stats), "
+            + "prior as (select coalesce(cast(sum(points) as float8) / nullif(sum(reviews), 0), 0) as mean from totals) ";
+
+    @EntityGraph(attributePaths = {"user", "book"})
     List<Review> findByBookId(Long bookId);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<Review> findByIdIn(java.util.Collection<Long> ids);
+
     boolean existsByUserIdAndBookId(Long userId, Long bookId);
+
+    @EntityGraph(attributePaths = {"user", "book"})
     Optional<Review> findByUserIdAndBookId(Long userId, Long bookId);
 
-    @Query("select r.book.id as bookId, avg(r.rating) as avgRating from Review r group by r.book.id order by avg(r.rating) desc")
-    List<Object[]> findTopBooks(Pageable pageable);
+    // Rating rankings read the per-book counters in book_rating_stats instead of aggregating reviews. Books are
+    // ordered by Bayesian average: (priorWeight * mean + points) / (priorWeight + reviews), where mean is the
+    // average of all reviews, so a book needs many good reviews to outrank a well-established one. Rows are
+    // {book id, score}, best first (findLowestRatedBooks: worst first); the order matches the catalog read model's
+    // descending (ascending) rating sort.
+
+    @Query(value = RATED_BOOKS + "select t.book_id, (:priorWeight * p.mean + t.points) / (:priorWeight + t.reviews) as score "
+            + "from totals t cross join prior p where t.reviews > 0 order by score desc, t.book_id", nativeQuery = true)
+    List<Object[]> findTopBooks(double priorWeight, Pageable pageable);
+
+    @Query(value = RATED_BOOKS + "select t.book_id, (:priorWeight * p.mean + t.points) / (:priorWeight + t.reviews) as score "
+            + "from totals t cross join prior p where t.reviews > 0 order by score, t.book_id desc", nativeQuery = true)
+    List<Object[]> findLowestRatedBooks(double priorWeight, Pageable pageable);
+
+    @Query(value = RATED_BOOKS + "select t.book_id, (:priorWeight * p.mean + t.points) / (:priorWeight + t.reviews) as score "
+            + "from totals t cross join prior p join books b on b.id = t.book_id "
+            + "where t.reviews > 0 and upper(b.genre) = upper(:genre) order by score desc, t.book_id", nativeQuery = true)
+    List<Object[]> findTopBooksByGenre(String genre, double priorWeight, Pageable pageable);
+
+    @Query(value = "select count(*) from book_rating_stats "
+            + "where rating_1 + rating_2 + rating_3 + rating_4 + rating_5 > 0", nativeQuery = true)
+    long countRatedBooks();
+
+    @Query(value = "select count(*) from book_rating_stats s join books b on b.id = s.book_id "
+            + "where s.rating_1 + s.rating_2 + s.rating_3 + s.rating_4 + s.rating_5 > 0 "
+            + "and upper(b.genre) = upper(:genre)", nativeQuery = true)
+    long countRatedBooksByGenre(String genre);
+
+    // Review pages: one row per review with the reviewer's name, read by keyset in the order of the
+    // idx_reviews_book_id_* indexes. The first page of each sort has no cursor condition. Cursor conditions are
+    // row comparisons, which PostgreSQL turns into a start position in the index; an equivalent or-expansion
+    // is only a filter. The lowest-rated sort mixes directions, so it adds the redundant rating bound instead.
+
+    @Query("select r.id as id, r.rating as rating, r.comment as comment, r.createdAt as createdAt, u.fullName as userName "
+            + "from Review r join r.user u where r.book.id = :bookId order by r.createdAt desc, r.id desc")
+    List<ReviewRow> findNewest(Long bookId, Limit limit);
+
+    @Query("select r.id as id, r.rating as rating, r.comment as comment, r.createdAt as createdAt, u.fullName as userName "
+            + "from Review r join r.user u where r.book.id = :bookId "
+            + "and (r.createdAt, r.id) < (:createdAt, :id) "
+            + "order by r.createdAt desc, r.id desc")
+    List<ReviewRow> findNewestAfter(Long bookId, Instant createdAt, Long id, Limit limit);
+
+    @Query("select r.id as id, r.rating as rating, r.comment as comment, r.createdAt as createdAt, u.fullName as userName "
+            + "from Review r join r.user u where r.book.id = :bookId order by r.rating desc, r.createdAt desc, r.id desc")
+    List<ReviewRow> findHighest(Long bookId, Limit limit);
+
+    @Query("select r.id as id, r.rating as rating, r.comment as comment, r.createdAt as createdAt, u.fullName as userName "
+            + "from Review r join r.user u where r.book.id = :bookId "
+            + "and (r.rating, r.createdAt, r.id) < (:rating, :createdAt, :id) "
+            + "order by r.rating desc, r.createdAt desc, r.id desc")
+    List<ReviewRow> findHighestAfter(Long bookId, int rating, Instant createdAt, Long id, Limit limit);
+
+    @Query("select r.id as id, r.rating as rating, r.comment as comment, r.createdAt as createdAt, u.fullName as userName "
+            + "from Review r join r.user u where r.book.id = :bookId order by r.rating asc, r.createdAt desc, r.id desc")
+    List<ReviewRow> findLowest(Long bookId, Limit limit);
+
+    @Query("select r.id as id, r.rating as rating, r.comment as comment, r.createdAt as createdAt, u.fullName as userName "
+            + "from Review r join r.user u where r.book.id = :bookId and r.rating >= :rating "
+            + "and (r.rating > :rating or (r.rating = :rating and (r.createdAt, r.id) < (:createdAt, :id))) "
+            + "order by r.rating asc, r.createdAt desc, r.id desc")
+    List<ReviewRow> findLowestAfter(Long bookId, int rating, Instant createdAt, Long id, Limit limit);
+
+    /** Review count per rating, maintained by triggers on reviews; empty for a book never reviewed. */
+    @Query(value = "select rating_1 as rating1, rating_2 as rating2, rating_3 as rating3, rating_4 as rating4, "
+            + "rating_5 as rating5 from book_rating_stats where book_id = :bookId", nativeQuery = true)
+    Optional<RatingCounts> findRatingCounts(Long bookId);
 
     @Query("select avg(r.rating) from Review r")
     Double overallAverageRating();
 
-    @Query("select count(distinct r.book.id) from Review r")
-    long countDistinctBooksReviewed();
+    /** {book id, review count, rating sum} of every reviewed book. */
+    @Query(value = "select book_id, rating_1 + rating_2 + rating_3 + rating_4 + rating_5, "
+            + "rating_1 + 2 * rating_2 + 3 * rating_3 + 4 * rating_4 + 5 * rating_5 "
+            + "from book_rating_stats where rating_1 + rating_2 + rating_3 + rating_4 + rating_5 > 0", nativeQuery = true)
+    List<Object[]> sumRatingsByBook();
+
+    /** {book id, review count, rating sum} of the given books that have a rating row. */
+    @Query(value = "select book_id, rating_1 + rating_2 + rating_3 + rating_4 + rating_5, "
+            + "rating_1 + 2 * rating_2 + 3 * rating_3 + 4 * rating_4 + 5 * rating_5 "
+            + "from book_rating_stats where book_id in :bookIds", nativeQuery = true)
+    List<Object[]> sumRatingsByBookIds(Collection<Long> bookIds);
+
+    @Query("select distinct r.book.id from Review r where r.id in :ids")
+    List<Long> findBookIdsByIdIn(Collection<Long> ids);
+
+    /** Deletes up to {@code limit} of the user's reviews and returns their book ids, one per deleted row. */
+    @Transactional
+    @Query(value = "with r as (delete from reviews where id in (select id from reviews where user_id = :userId "
+            + "limit :limit for update skip locked) returning book_id) select book_id from r", nativeQuery = true)
+    List<Long> deleteChunkByUserId(Long userId, int limit);
 
     long countByCreatedAtAfter(Instant since);
 
     @Query("select r.user.email as email, count(r) as cnt from Review r group by r.user.email order by count(r) desc")
     List<Object[]> findTopReviewers(Pageable pageable);
+
+    interface ReviewRow {
+        Long getId();
+        int getRating();
+        String getComment();
+        Instant getCreatedAt();
+        String getUserName();
+    }
+
+    interface RatingCounts {
+        long getRating1();
+        long getRating2();
+        long getRating3();
+        long getRating4();
+        long getRating5();
+    }
 }
@@ -1,10 +1,34 @@
 package com.library.repository;
 
 import com.library.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    List<User> findByRole(String role, Limit limit);
+
+    /** Reviews, favorites and history rows of the user, counting at most {@code limit} per table. */
+    @Query(value = "select (select count(*) from (select 1 from reviews where user_id = :userId limit :limit) r) "
+            + "+ (select count(*) from (select 1 from favorites where user_id = :userId limit :limit) f) "
+            + "+ (select count(*) from (select 1 from history where user_id = :userId limit :limit) h)", nativeQuery = true)
+    long countDependents(Long userId, int limit);
+
+    /**
+     * Deletes the user's reviews, favorites, history and change-log entries in one statement. Returns the ids
+     * of the books whose reviews were deleted.
+     */
+    @Transactional
+    @Query(value = "with r as (delete from reviews where user_id = :userId returning book_id), "
+            + "f as (delete from favorites where user_id = :userId), "
+            + "h as (delete from history where user_id = :userId), "
+            + "c as (delete from change_log where user_id = :userId) "
+            + "select distinct book_id from r", nativeQuery = true)
+    List<Long> deleteDependents(Long userId);
 }
 
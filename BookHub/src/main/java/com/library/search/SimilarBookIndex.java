@@ -0,0 +1,499 @@
+package com.library.search;
+
+import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry;
+import com.library.entity.ChangeLogEntry.EntityType;
+import com.library.entity.ChangeLogEntry.Position;
+import com.library.repository.BookRepository;
+import com.library.repository.ChangeLogRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Content-based similarity index over title, description, genre and author.
+ * Books are stored as sparse hashed-feature vectors with sublinear term frequencies; IDF is applied
+ * at query time from live document frequencies. Candidates come from SimHash bands (multi-probe LSH)
+ * and are re-ranked by exact TF-IDF cosine. The index is persisted to a memory-mapped file.
+ * <p>
+ * The file records the change-log position the index includes. At startup, and every
+ * {@code app.similarity.refresh-interval-ms}, the book changes after it are replayed, so edits made while the
+ * instance was down or on other instances are picked up; local writes are applied after they commit.
+ */
+@Component
+@Slf4j
+public class SimilarBookIndex {
+
+    private static final int MAGIC = 0x42485349;
+    private static final int FORMAT_VERSION = 2;
+    private static final int FEATURE_BITS = 18;
+    private static final int FEATURE_MASK = (1 << FEATURE_BITS) - 1;
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = 16;
+    private static final int BAND_MASK = (1 << BAND_BITS) - 1;
+    private static final int EXACT_SCAN_LIMIT = 5_000;
+    private static final int HEADER_BYTES = 32;
+    private static final int REPLAY_BATCH = 1_000;
+    private static final int MAX_REPLAY = 100_000;
+    private static final List<String> REPLAYED_TYPES = List.of(EntityType.BOOK.name());
+    private static final long MAP_WINDOW = 64L << 20;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "in", "is", "it",
+            "its", "of", "on", "or", "that", "the", "this", "to", "was", "were", "with");
+
+    private final BookRepository bookRepo;
+    private final ChangeLogRepository changeLogRepo;
+    private final Path indexFile;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final int[] docFreq = new int[1 << FEATURE_BITS];
+    private final Map<Integer, LongBag> buckets = new HashMap<>();
+    private Position position = Position.START;
+    private volatile boolean ready;
+    private volatile boolean dirty;
+
+    public SimilarBookIndex(BookRepository bookRepo, ChangeLogRepository changeLogRepo,
+                            @Value("${app.similarity.index-file}") String indexFile) {
+        this.bookRepo = bookRepo;
+        this.changeLogRepo = changeLogRepo;
+        this.indexFile = Paths.get(indexFile);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        boolean loaded = false;
+        if (Files.exists(indexFile)) {
+            try {
+                loaded = load() && replay();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Similarity index file {} is unreadable, rebuilding: {}", indexFile, e.getMessage());
+            }
+        }
+        if (!loaded) {
+            rebuild();
+        }
+        ready = true;
+        log.info("Similarity index ready: {} books ({})", docs.size(), loaded ? "loaded from " + indexFile : "rebuilt");
+    }
+
+    /** Applies book changes committed since the last replay, here or on other instances. */
+    @Scheduled(fixedDelayString = "${app.similarity.refresh-interval-ms:10000}",
+            initialDelayString = "${app.similarity.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (!ready) return;
+        try {
+            if (!replay()) rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Similarity index replay failed, retrying on the next refresh: {}", e.getMessage());
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            // Read before the books: transactions below the horizon have finished, so the load sees their
+            // changes; entries from the horizon on are replayed, even those already included.
+            position = new Position(changeLogRepo.findVisibleHorizon(), 0);
+            int page = 0;
+            Page<Book> batch;
+            do {
+                batch = bookRepo.findAll(PageRequest.of(page++, 1000, Sort.by("id")));
+                for (Book b : batch) insert(vectorize(b));
+            } while (batch.hasNext());
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        flush();
+    }
+
+    /**
+     * Replays the book entries after the index's position, re-reading each book; false if there are more
+     * than {@link #MAX_REPLAY} of them, when a rebuild is cheaper.
+     */
+    private boolean replay() {
+        Position since;
+        lock.readLock().lock();
+        try {
+            since = position;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Position next = since;
+        Set<Long> bookIds = new HashSet<>();
+        int replayed = 0;
+        List<ChangeLogEntry> batch;
+        do {
+            batch = changeLogRepo.findChangesAfter(next.txId(), next.id(), REPLAYED_TYPES, REPLAY_BATCH);
+            for (ChangeLogEntry entry : batch) {
+                bookIds.add(entry.getEntityId());
+                next = Position.of(entry);
+            }
+            replayed += batch.size();
+            if (replayed > MAX_REPLAY) return false;
+        } while (batch.size() == REPLAY_BATCH);
+        if (next.equals(since)) return true;
+
+        List<Doc> upserts = new ArrayList<>();
+        for (Book b : bookRepo.findAllById(bookIds)) {
+            upserts.add(vectorize(b));
+            bookIds.remove(b.getId());
+        }
+        lock.writeLock().lock();
+        try {
+            // A rebuild in between already covers these entries.
+            if (!position.equals(since)) return true;
+            for (Long id : bookIds) delete(id);
+            for (Doc doc : upserts) {
+                delete(doc.id);
+                insert(doc);
+            }
+            position = next;
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Similarity index replayed up to {}: {} books updated, {} removed", next, upserts.size(), bookIds.size());
+        return true;
+    }
+
+    public void update(Book book) {
+        Doc doc = vectorize(book);
+        lock.writeLock().lock();
+        try {
+            delete(book.getId());
+            insert(doc);
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            if (delete(bookId)) dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> similar(Long bookId, int limit) {
+        lock.readLock().lock();
+        try {
+            Doc query = docs.get(bookId);
+            if (query == null || limit <= 0) return List.of();
+            double[] queryIdf = new double[query.features.length];
+            double queryNorm = 0;
+            for (int i = 0; i < query.features.length; i++) {
+                double idf = idf(query.features[i]);
+                queryIdf[i] = idf * idf;
+                queryNorm += query.weights[i] * query.weights[i] * queryIdf[i];
+            }
+            if (queryNorm == 0) return List.of();
+            queryNorm = Math.sqrt(queryNorm);
+
+            PriorityQueue<Scored> top = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a.score, b.score));
+            for (Doc candidate : candidates(query)) {
+                if (candidate.id == query.id) continue;
+                double score = cosine(query, queryIdf, queryNorm, candidate);
+                if (score <= 0) continue;
+                if (top.size() < limit) {
+                    top.add(new Scored(candidate.id, score));
+                } else if (score > top.peek().score) {
+                    top.poll();
+                    top.add(new Scored(candidate.id, score));
+                }
+            }
+            Long[] ids = new Long[top.size()];
+            for (int i = ids.length - 1; i >= 0; i--) ids[i] = top.poll().id;
+            return Arrays.asList(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.similarity.flush-interval-ms:30000}")
+    public void flushIfDirty() {
+        if (dirty) flush();
+    }
+
+    @PreDestroy
+    public void close() {
+        flushIfDirty();
+    }
+
+    private Collection<Doc> candidates(Doc query) {
+        if (docs.size() <= EXACT_SCAN_LIMIT) return docs.values();
+        Set<Long> ids = new HashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            int value = bandValue(query.signature, band);
+            collect(bandKey(band, value), ids);
+            for (int bit = 0; bit < BAND_BITS; bit++) {
+                collect(bandKey(band, value ^ (1 << bit)), ids);
+            }
+        }
+        List<Doc> result = new ArrayList<>(ids.size());
+        for (Long id : ids) result.add(docs.get(id));
+        return result;
+    }
+
+    private void collect(int key, Set<Long> into) {
+        LongBag bag = buckets.get(key);
+        if (bag == null) return;
+        for (int i = 0; i < bag.size; i++) into.add(bag.items[i]);
+    }
+
+    private double cosine(Doc query, double[] queryIdf, double queryNorm, Doc other) {
+        double dot = 0;
+        double otherNorm = 0;
+        int i = 0;
+        for (int j = 0; j < other.features.length; j++) {
+            int f = other.features[j];
+            double idf = idf(f);
+            otherNorm += other.weights[j] * other.weights[j] * idf * idf;
+            while (i < query.features.length && query.features[i] < f) i++;
+            if (i < query.features.length && query.features[i] == f) {
+                dot += query.weights[i] * other.weights[j] * queryIdf[i];
+            }
+        }
+        return otherNorm == 0 ? 0 : dot / (queryNorm * Math.sqrt(otherNorm));
+    }
+
+    private double idf(int feature) {
+        return Math.log((docs.size() + 1.0) / (docFreq[feature] + 1.0)) + 1.0;
+    }
+
+    private void insert(Doc doc) {
+        docs.put(doc.id, doc);
+        for (int f : doc.features) docFreq[f]++;
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bandKey(band, bandValue(doc.signature, band)), k -> new LongBag()).add(doc.id);
+        }
+    }
+
+    private boolean delete(Long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) return false;
+        for (int f : doc.features) docFreq[f]--;
+        for (int band = 0; band < BANDS; band++) {
+            int key = bandKey(band, bandValue(doc.signature, band));
+            LongBag bag = buckets.get(key);
+            if (bag != null && bag.remove(doc.id) && bag.size == 0) buckets.remove(key);
+        }
+        return true;
+    }
+
+    private void clear() {
+        docs.clear();
+        buckets.clear();
+        Arrays.fill(docFreq, 0);
+    }
+
+    private static int bandValue(long signature, int band) {
+        return (int) (signature >>> (band * BAND_BITS)) & BAND_MASK;
+    }
+
+    private static int bandKey(int band, int value) {
+        return (band << BAND_BITS) | value;
+    }
+
+    static Doc vectorize(Book book) {
+        Map<Integer, Integer> tf = new TreeMap<>();
+        addTokens(tf, "t:", book.getTitle(), 2);
+        addTokens(tf, "d:", book.getDescription(), 1);
+        addTokens(tf, "a:", book.getAuthor(), 2);
+        addWhole(tf, "A:", book.getAuthor(), 3);
+        addWhole(tf, "g:", book.getGenre(), 3);
+
+        int[] features = new int[tf.size()];
+        float[] weights = new float[tf.size()];
+        long[] acc = new long[64];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> e : tf.entrySet()) {
+            features[i] = e.getKey();
+            weights[i] = (float) (1.0 + Math.log(e.getValue()));
+            long h = mix64(e.getKey());
+            long w = Math.round(weights[i] * 1000);
+            for (int bit = 0; bit < 64; bit++) {
+                acc[bit] += ((h >>> bit) & 1L) == 1L ? w : -w;
+            }
+            i++;
+        }
+        long signature = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (acc[bit] > 0) signature |= 1L << bit;
+        }
+        return new Doc(book.getId(), features, weights, signature);
+    }
+
+    private static void addTokens(Map<Integer, Integer> tf, String field, String text, int weight) {
+        if (text == null || text.isBlank()) return;
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() < 2 || STOP_WORDS.contains(token)) continue;
+            tf.merge(hash(field, token), weight, Integer::sum);
+            if (!"d:".equals(field)) tf.merge(hash("d:", token), 1, Integer::sum);
+        }
+    }
+
+    private static void addWhole(Map<Integer, Integer> tf, String field, String text, int weight) {
+        if (text == null || text.isBlank()) return;
+        tf.merge(hash(field, text.trim().toLowerCase(Locale.ROOT)), weight, Integer::sum);
+    }
+
+    private static int hash(String field, String token) {
+        return (int) mix64((field + token).hashCode()) & FEATURE_MASK;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private boolean load() throws IOException {
+        lock.writeLock().lock();
+        try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            clear();
+            MappedRegion in = new MappedRegion(ch, FileChannel.MapMode.READ_ONLY, ch.size());
+            in.ensure(HEADER_BYTES);
+            if (in.buf.getInt() != MAGIC || in.buf.getInt() != FORMAT_VERSION || in.buf.getInt() != FEATURE_BITS) {
+                return false;
+            }
+            int count = in.buf.getInt();
+            position = new Position(in.buf.getLong(), in.buf.getLong());
+            for (int n = 0; n < count; n++) {
+                in.ensure(20);
+                long id = in.buf.getLong();
+                long signature = in.buf.getLong();
+                int nnz = in.buf.getInt();
+                in.ensure(nnz * 8);
+                int[] features = new int[nnz];
+                float[] weights = new float[nnz];
+                in.buf.asIntBuffer().get(features);
+                in.buf.position(in.buf.position() + nnz * 4);
+                in.buf.asFloatBuffer().get(weights);
+                in.buf.position(in.buf.position() + nnz * 4);
+                insert(new Doc(id, features, weights, signature));
+            }
+            dirty = false;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void flush() {
+        lock.readLock().lock();
+        try {
+            long size = HEADER_BYTES;
+            for (Doc d : docs.values()) size += 20L + d.features.length * 8L;
+            Path parent = indexFile.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedRegion out = new MappedRegion(ch, FileChannel.MapMode.READ_WRITE, size);
+                out.ensure(HEADER_BYTES);
+                out.buf.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(FEATURE_BITS).putInt(docs.size())
+                        .putLong(position.txId()).putLong(position.id());
+                for (Doc d : docs.values()) {
+                    out.ensure(20 + d.features.length * 8);
+                    out.buf.putLong(d.id).putLong(d.signature).putInt(d.features.length);
+                    for (int f : d.features) out.buf.putInt(f);
+                    for (float w : d.weights) out.buf.putFloat(w);
+                }
+                out.force();
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Failed to persist similarity index to {}: {}", indexFile, e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    record Doc(long id, int[] features, float[] weights, long signature) {
+    }
+
+    private record Scored(long id, double score) {
+    }
+
+    /** Sliding window over a file channel so files larger than 2 GB can be mapped piecewise. */
+    private static final class MappedRegion {
+        private final FileChannel ch;
+        private final FileChannel.MapMode mode;
+        private final long size;
+        private long base;
+        private MappedByteBuffer buf;
+
+        MappedRegion(FileChannel ch, FileChannel.MapMode mode, long size) throws IOException {
+            this.ch = ch;
+            this.mode = mode;
+            this.size = size;
+            this.buf = ch.map(mode, 0, Math.min(MAP_WINDOW, size));
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buf.remaining() >= bytes) return;
+            if (mode == FileChannel.MapMode.READ_WRITE) buf.force();
+            base += buf.position();
+            if (base + bytes > size) throw new IOException("Truncated similarity index file");
+            buf = ch.map(mode, base, Math.min(Math.max(MAP_WINDOW, bytes), size - base));
+        }
+
+        void force() {
+            buf.force();
+        }
+    }
+
+    private static final class LongBag {
+        private long[] items = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+
+        boolean remove(long value) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == value) {
+                    items[i] = items[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
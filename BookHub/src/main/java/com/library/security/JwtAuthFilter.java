@@ -37,8 +37,8 @@ public class JwtAuthFilter extends GenericFilterBean {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
 
-            if (jwtService.isValid(token)) {
-                String email = jwtService.extractEmail(token);
+            String email = jwtService.verifiedEmail(token);
+            if (email != null) {
                 User user = userRepo.findByEmail(email).orElse(null);
                 if (user != null) {
                     var auth = new UsernamePasswordAuthenticationToken(
@@ -2,6 +2,8 @@ package com.library.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.security.Key;
@@ -9,17 +11,33 @@ import java.util.Date;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
     private final Key key;
     private final long expirationMs;
+    private final JwtParser parser;
+    private final Timer validTimer;
+    private final Timer invalidTimer;
 
     public JwtService(
             @Value("${app.jwt.secret}") String secret,
-            @Value("${app.jwt.expiration:86400000}") long expirationMs) {
+            @Value("${app.jwt.expiration:86400000}") long expirationMs,
+            MeterRegistry meterRegistry) {
         this.key = buildKey(secret);
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.validTimer = verificationTimer(meterRegistry, "valid");
+        this.invalidTimer = verificationTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer verificationTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("security.jwt.verification")
+                .description("JWT signature and expiry verification")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
     }
 
     private Key buildKey(String secret) {
@@ -54,20 +72,23 @@ public class JwtService {
     }
 
     public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean isValid(String token) {
+        return verifiedEmail(token) != null;
+    }
+
+    /** Verifies the token once and returns its subject, or null when it is invalid or expired. */
+    public String verifiedEmail(String token) {
+        long start = System.nanoTime();
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
+            String email = parser.parseClaimsJws(token).getBody().getSubject();
+            validTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return email;
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
         }
     }
 }
@@ -0,0 +1,80 @@
+package com.library.service;
+
+import com.library.entity.User;
+import com.library.repository.ChangeLogRepository;
+import com.library.repository.FavoriteRepository;
+import com.library.repository.HistoryRepository;
+import com.library.repository.ReviewRepository;
+import com.library.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Removes accounts too large to delete in the request. {@link UserService#deleteAccount} anonymizes such an
+ * account and gives it {@link #DELETED_ROLE}; this job then deletes its reviews, favorites, history and
+ * change-log entries in chunks of {@code app.purge.chunk-size} rows, each chunk in its own short transaction
+ * that skips rows locked by another instance, then its archived history and finally the user row itself.
+ */
+@Service
+@Slf4j
+public class AccountPurgeService {
+    public static final String DELETED_ROLE = "ROLE_DELETED";
+    private static final int ACCOUNTS_PER_RUN = 10;
+
+    private final UserRepository userRepo;
+    private final ReviewRepository reviewRepo;
+    private final FavoriteRepository favoriteRepo;
+    private final HistoryRepository historyRepo;
+    private final ChangeLogRepository changeLogRepo;
+    private final ReviewService reviewService;
+    private final HistoryRetentionService historyRetention;
+    private final int chunkSize;
+
+    public AccountPurgeService(UserRepository userRepo, ReviewRepository reviewRepo, FavoriteRepository favoriteRepo,
+                               HistoryRepository historyRepo, ChangeLogRepository changeLogRepo, ReviewService reviewService,
+                               HistoryRetentionService historyRetention, @Value("${app.purge.chunk-size:1000}") int chunkSize) {
+        this.userRepo = userRepo;
+        this.reviewRepo = reviewRepo;
+        this.favoriteRepo = favoriteRepo;
+        this.historyRepo = historyRepo;
+        this.changeLogRepo = changeLogRepo;
+        this.reviewService = reviewService;
+        this.historyRetention = historyRetention;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Scheduled(fixedDelayString = "${app.purge.interval-ms:10000}")
+    public void purgeDeletedAccounts() {
+        for (User user : userRepo.findByRole(DELETED_ROLE, Limit.of(ACCOUNTS_PER_RUN))) {
+            try {
+                purge(user.getId());
+            } catch (RuntimeException e) {
+                log.warn("Purge of account {} failed, retrying on the next run: {}", user.getId(), e.getMessage());
+            }
+        }
+    }
+
+    void purge(Long userId) {
+        long started = System.nanoTime();
+        long rows = 0;
+        int deleted;
+        do {
+            List<Long> reviewedBooks = reviewRepo.deleteChunkByUserId(userId, chunkSize);
+            reviewService.reviewsRemoved(new HashSet<>(reviewedBooks));
+            deleted = reviewedBooks.size()
+                    + favoriteRepo.deleteChunkByUserId(userId, chunkSize)
+                    + historyRepo.deleteChunkByUserId(userId, chunkSize)
+                    + changeLogRepo.deleteChunkByUserId(userId, chunkSize);
+            rows += deleted;
+        } while (deleted > 0);
+        historyRetention.removeUser(userId);
+        userRepo.deleteById(userId);
+        log.info("Account {} purged: {} rows in {} ms", userId, rows, (System.nanoTime() - started) / 1_000_000);
+    }
+}
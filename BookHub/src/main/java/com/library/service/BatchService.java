@@ -0,0 +1,194 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.library.dto.BatchRequest;
+import com.library.dto.BatchResponseDTO;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs read sub-requests of a batch in-process, at most {@code app.batch.concurrency} at a time. Each
+ * sub-request goes through the security filter chain and the {@link DispatcherServlet} with the caller's
+ * Authorization and Cookie headers, so it passes through the same security rules, handlers and error mapping
+ * as a direct call and gets its own status code. The batch's own thread runs sub-requests as well and the
+ * others borrow read executor threads when there are any to spare, so a batch never waits for a Tomcat worker
+ * and always makes progress.
+ */
+@Service
+@Slf4j
+public class BatchService {
+    private final ObjectMapper objectMapper;
+    private final Filter securityFilterChain;
+    private final DispatcherServlet dispatcherServlet;
+    private final Executor executor;
+    private final int maxRequests;
+    private final int concurrency;
+    private final long timeoutMs;
+
+    public BatchService(ObjectMapper objectMapper,
+                        @Qualifier("springSecurityFilterChain") Filter securityFilterChain,
+                        DispatcherServlet dispatcherServlet,
+                        @Qualifier("readExecutor") Executor executor,
+                        @Value("${app.batch.max-requests:20}") int maxRequests,
+                        @Value("${app.batch.concurrency:4}") int concurrency,
+                        @Value("${app.batch.timeout-ms:5000}") long timeoutMs) {
+        this.objectMapper = objectMapper;
+        this.securityFilterChain = securityFilterChain;
+        this.dispatcherServlet = dispatcherServlet;
+        this.executor = executor;
+        this.maxRequests = maxRequests;
+        this.concurrency = Math.max(1, concurrency);
+        this.timeoutMs = timeoutMs;
+    }
+
+    public BatchResponseDTO execute(List<BatchRequest.Item> items, HttpServletRequest batch) {
+        if (items.size() > maxRequests) {
+            throw new IllegalArgumentException("At most " + maxRequests + " sub-requests per batch.");
+        }
+        AtomicReferenceArray<BatchResponseDTO.Item> responses = new AtomicReferenceArray<>(items.size());
+        List<Integer> pending = new ArrayList<>();
+        BatchSubRequest[] requests = new BatchSubRequest[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            BatchRequest.Item item = items.get(i);
+            BatchResponseDTO.Item rejected = validate(item);
+            if (rejected != null) {
+                responses.set(i, rejected);
+                continue;
+            }
+            URI uri = subRequestUri(item.getPath());
+            requests[i] = new BatchSubRequest(batch, uri.getRawPath(), uri.getRawQuery(), batch.getRequestId() + "-" + i);
+            pending.add(i);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(pending.size());
+        Runnable worker = () -> {
+            int n;
+            while (System.nanoTime() - deadline < 0 && (n = next.getAndIncrement()) < pending.size()) {
+                int i = pending.get(n);
+                responses.set(i, dispatch(items.get(i), requests[i]));
+                done.countDown();
+            }
+        };
+        for (int helpers = Math.min(concurrency, pending.size()) - 1; helpers > 0; helpers--) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break; // the pool is saturated; this thread works through the rest
+            }
+        }
+        SecurityContext callerContext = SecurityContextHolder.getContext();
+        try {
+            worker.run();
+        } finally {
+            SecurityContextHolder.setContext(callerContext); // the sub-requests' filter chain clears it
+        }
+        boolean interrupted = false;
+        try {
+            done.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted = true;
+        }
+
+        List<BatchResponseDTO.Item> result = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchResponseDTO.Item response = responses.get(i);
+            if (response == null) {
+                response = interrupted ? error(items.get(i), 503, "Interrupted")
+                        : error(items.get(i), 504, "Sub-request exceeded the batch deadline");
+            }
+            result.add(response);
+        }
+        return new BatchResponseDTO(result);
+    }
+
+    private BatchResponseDTO.Item validate(BatchRequest.Item item) {
+        String method = item.getMethod() == null ? "GET" : item.getMethod().toUpperCase(Locale.ROOT);
+        if (!"GET".equals(method)) return error(item, 405, "Only GET sub-requests are supported");
+        URI uri = subRequestUri(item.getPath());
+        if (uri == null) return error(item, 400, "Invalid path: " + item.getPath());
+        if (!uri.getRawPath().startsWith("/api/") || uri.getRawPath().startsWith("/api/batch")) {
+            return error(item, 400, "Unsupported path: " + item.getPath());
+        }
+        return null;
+    }
+
+    private BatchResponseDTO.Item dispatch(BatchRequest.Item item, BatchSubRequest request) {
+        BatchSubResponse response = new BatchSubResponse();
+        try {
+            securityFilterChain.doFilter(request, response, (req, res) -> dispatcherServlet.service(req, res));
+        } catch (Exception e) {
+            log.warn("Batch sub-request {} failed: {}", request.getRequestURI(), e.getMessage());
+            return error(item, 500, e.getMessage());
+        }
+        byte[] body = response.body();
+        if (body.length == 0 && response.getStatus() >= 400) {
+            HttpStatus status = HttpStatus.resolve(response.getStatus());
+            String message = response.errorMessage() != null ? response.errorMessage()
+                    : status != null ? status.getReasonPhrase() : null;
+            return error(item, response.getStatus(), message);
+        }
+        return new BatchResponseDTO.Item(item.getId(), response.getStatus(), parse(body));
+    }
+
+    /**
+     * The sub-request's path and query relative to this application, or null if the path is not an absolute
+     * path with an optional query. Dot segments are resolved before the caller checks the prefix, and the
+     * query is kept as sent so that escaped separators such as %26 keep their meaning.
+     */
+    static URI subRequestUri(String path) {
+        if (path == null || !path.startsWith("/") || path.startsWith("//")) return null;
+        try {
+            URI relative = new URI(path);
+            if (relative.getScheme() != null || relative.getRawAuthority() != null || relative.getRawFragment() != null) {
+                return null;
+            }
+            URI normalized = new URI(null, null, relative.getPath(), null).normalize();
+            if (normalized.getRawPath().startsWith("//")) return null;
+            return relative.getRawQuery() == null ? normalized : new URI(normalized.getRawPath() + "?" + relative.getRawQuery());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private JsonNode parse(byte[] body) {
+        if (body == null || body.length == 0) return NullNode.getInstance();
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return TextNode.valueOf(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    private BatchResponseDTO.Item error(BatchRequest.Item item, int status, String message) {
+        return new BatchResponseDTO.Item(item.getId(), status, objectMapper.valueToTree(Map.of("message", String.valueOf(message))));
+    }
+}
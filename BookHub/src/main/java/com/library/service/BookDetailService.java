@@ -0,0 +1,172 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BookDetailDTO;
+import com.library.dto.RatingHistogramDTO;
+import com.library.dto.RatingSummaryDTO;
+import com.library.dto.ReviewDTO;
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.exception.ConcurrencyLimitExceededException;
+import com.library.exception.DeadlineExceededException;
+import com.library.exception.ResourceNotFoundException;
+import com.library.favorites.FavoriteBitmapCache;
+import com.library.repository.BookRepository;
+import com.library.repository.ReviewRepository;
+import com.library.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Builds the book page in one call. The independent reads run concurrently on the read executor and the
+ * whole response is bounded by a deadline: optional parts that miss it are left empty, while a book that
+ * could not be loaded in time fails the request. Each read runs in a transaction whose timeout is the
+ * deadline, so the driver cancels a query still running when it passes. A saturated read executor fails the
+ * request with 503 and Retry-After; views are recorded on their own executor and dropped when it is full.
+ */
+@Service
+@Slf4j
+public class BookDetailService {
+    private final BookRepository bookRepo;
+    private final ReviewRepository reviewRepo;
+    private final FavoriteBitmapCache favorites;
+    private final UserRepository userRepo;
+    private final HistoryService historyService;
+    private final Executor executor;
+    private final Executor viewExecutor;
+    private final TransactionTemplate tx;
+    private final long timeoutMs;
+    private final int reviewPageSize;
+
+    public BookDetailService(BookRepository bookRepo, ReviewRepository reviewRepo, FavoriteBitmapCache favorites,
+                             UserRepository userRepo, HistoryService historyService,
+                             @Qualifier("readExecutor") Executor executor,
+                             @Qualifier("viewRecordingExecutor") Executor viewExecutor,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.books.detail-timeout-ms:2000}") long timeoutMs,
+                             @Value("${app.books.detail-reviews:10}") int reviewPageSize) {
+        this.bookRepo = bookRepo;
+        this.reviewRepo = reviewRepo;
+        this.favorites = favorites;
+        this.userRepo = userRepo;
+        this.historyService = historyService;
+        this.executor = executor;
+        this.viewExecutor = viewExecutor;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setReadOnly(true);
+        this.tx.setTimeout((int) Math.max(1, (timeoutMs + 999) / 1000)); // JDBC query timeouts are in seconds
+        this.timeoutMs = timeoutMs;
+        this.reviewPageSize = reviewPageSize;
+    }
+
+    public BookDetailDTO getDetail(Long bookId, String userEmail) {
+        List<CompletableFuture<?>> started = new ArrayList<>();
+        CompletableFuture<BookDTO> book;
+        CompletableFuture<RatingSummaryDTO> rating;
+        CompletableFuture<List<ReviewDTO>> reviews;
+        CompletableFuture<Optional<User>> user;
+        try {
+            book = started(started, read(() -> bookRepo.findById(bookId)
+                    .map(BookDTO::fromEntity)
+                    .orElseThrow(() -> new ResourceNotFoundException("Book not found: " + bookId))));
+            rating = started(started, read(() -> reviewRepo.findRatingCounts(bookId)
+                    .map(RatingHistogramDTO::of)
+                    .orElseGet(RatingHistogramDTO::empty)
+                    .toSummary()));
+            reviews = started(started, read(() -> reviewRepo.findNewest(bookId, Limit.of(reviewPageSize))
+                    .stream().map(r -> ReviewDTO.fromRow(r, bookId)).toList()));
+            user = userEmail == null
+                    ? CompletableFuture.completedFuture(Optional.empty())
+                    : started(started, read(() -> userRepo.findByEmail(userEmail)));
+        } catch (RejectedExecutionException e) {
+            started.forEach(part -> part.cancel(true));
+            throw new ConcurrencyLimitExceededException("Too many book pages loading, retry later", 1);
+        }
+        CompletableFuture<Boolean> favorite = user.thenApplyAsync(u -> u
+                .map(x -> tx.execute(status -> favorites.contains(x.getId(), bookId)))
+                .orElse(false), executor);
+        CompletableFuture<ReviewDTO> myReview = user.thenApplyAsync(u -> u
+                .flatMap(x -> tx.execute(status -> reviewRepo.findByUserIdAndBookId(x.getId(), bookId)))
+                .map(ReviewDTO::fromEntity)
+                .orElse(null), executor);
+
+        if (userEmail != null) recordView(userEmail, bookId);
+
+        CompletableFuture<?>[] parts = {book, rating, reviews, favorite, myReview};
+        try {
+            CompletableFuture.allOf(parts).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Book detail {} exceeded {} ms deadline, returning partial result", bookId, timeoutMs);
+        } catch (ExecutionException e) {
+            // Failures are inspected per part below; only a missing book fails the request.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException("Interrupted while loading book " + bookId);
+        }
+
+        if (!book.isDone()) {
+            for (CompletableFuture<?> part : parts) part.cancel(true);
+            throw new DeadlineExceededException("Book " + bookId + " could not be loaded within " + timeoutMs + " ms");
+        }
+        BookDTO loaded;
+        try {
+            loaded = book.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+        return BookDetailDTO.builder()
+                .book(loaded)
+                .rating(valueOrDefault(rating, RatingSummaryDTO.builder().build()))
+                .reviews(valueOrDefault(reviews, List.of()))
+                .favorite(valueOrDefault(favorite, false))
+                .myReview(valueOrDefault(myReview, null))
+                .build();
+    }
+
+    private <T> CompletableFuture<T> read(Supplier<T> read) {
+        return CompletableFuture.supplyAsync(() -> tx.execute(status -> read.get()), executor);
+    }
+
+    private static <T> CompletableFuture<T> started(List<CompletableFuture<?>> started, CompletableFuture<T> part) {
+        started.add(part);
+        return part;
+    }
+
+    private void recordView(String userEmail, Long bookId) {
+        try {
+            CompletableFuture.runAsync(() -> historyService.recordView(userEmail, bookId), viewExecutor)
+                    .exceptionally(e -> {
+                        log.debug("History not recorded for {} viewing book {}: {}", userEmail, bookId, e.getMessage());
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            log.debug("History not recorded for {} viewing book {}: view recording is saturated", userEmail, bookId);
+        }
+    }
+
+    private static <T> T valueOrDefault(CompletableFuture<T> future, T fallback) {
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            future.cancel(true);
+            return fallback;
+        }
+        return future.join();
+    }
+}
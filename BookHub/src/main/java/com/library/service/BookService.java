@@ -1,9 +1,18 @@
 package com.library.service;
 
+import com.library.catalog.CatalogReadModel;
+import com.library.cluster.ClusterEventBus;
+import com.library.dto.BookDTO;
 import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry.EntityType;
+import com.library.entity.OutboxEvent.AggregateType;
+import com.library.outbox.OutboxPublisher;
 import com.library.repository.BookRepository;
 import com.library.repository.ReviewRepository;
 import com.library.exception.ResourceNotFoundException;
+import com.library.search.SimilarBookIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,60 +20,199 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Sort.Order;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import lombok.extern.slf4j.Slf4j;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class BookService {
+    private static final String CLUSTER_TOPIC = "book";
+    private static final String UPLOADS_PREFIX = "/uploads/";
 
     private final BookRepository repo;
     private final ReviewRepository reviewRepo;
+    private final SimilarBookIndex similarIndex;
+    private final ChangeLogService changeLog;
+    private final OutboxPublisher outbox;
+    private final CatalogReadModel catalog;
+    private final ClusterEventBus clusterBus;
+    private final JsonResponseCache jsonCache;
+    private final FeedService feedService;
+    private final PlatformTransactionManager transactionManager;
+    private final Path uploadDir;
+    private final double ratingPriorWeight;
+    private final SingleFlight<Long, BookDTO> bookViews;
+    private final SingleFlight<Integer, List<BookDTO>> topBookViews;
 
-    public BookService(BookRepository repo, ReviewRepository reviewRepo) {
+    public BookService(BookRepository repo, ReviewRepository reviewRepo, SimilarBookIndex similarIndex, ChangeLogService changeLog,
+                       OutboxPublisher outbox, CatalogReadModel catalog, ClusterEventBus clusterBus, JsonResponseCache jsonCache,
+                       FeedService feedService, PlatformTransactionManager transactionManager, @Value("${app.coalescing.books.ttl-ms:1000}") long ttlMs,
+                       @Value("${app.uploads.dir}") String uploadDir, @Value("${app.ratings.prior-weight:10}") double ratingPriorWeight,
+                       MeterRegistry meterRegistry) {
         this.repo = repo;
         this.reviewRepo = reviewRepo;
+        this.similarIndex = similarIndex;
+        this.changeLog = changeLog;
+        this.outbox = outbox;
+        this.catalog = catalog;
+        this.clusterBus = clusterBus;
+        this.jsonCache = jsonCache;
+        this.feedService = feedService;
+        this.transactionManager = transactionManager;
+        this.uploadDir = Path.of(uploadDir).toAbsolutePath().normalize();
+        this.ratingPriorWeight = ratingPriorWeight;
+        this.bookViews = new SingleFlight<>("book", Duration.ofMillis(ttlMs), meterRegistry);
+        this.topBookViews = new SingleFlight<>("top-books", Duration.ofMillis(ttlMs), meterRegistry);
+        clusterBus.subscribe(CLUSTER_TOPIC, ids -> {
+            if (ids.contains(ClusterEventBus.ALL)) {
+                bookViews.invalidateAll();
+                jsonCache.allBooksChanged();
+                feedService.invalidateAll();
+            } else {
+                ids.forEach(id -> {
+                    bookViews.invalidate(Long.valueOf(id));
+                    jsonCache.bookChanged(Long.valueOf(id));
+                    feedService.bookRemoved(Long.valueOf(id));
+                });
+            }
+            topBookViews.invalidateAll();
+        });
     }
 
+    @Transactional(readOnly = true)
     public List<Book> getAllBooks() {
         return repo.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Book getBook(Long id) {
         return repo.findById(id).orElseThrow(() -> new ResourceNotFoundException("Book not found: " + id));
     }
 
+    /**
+     * Coalesced read of one book for the API; concurrent requests for the same id share one query. Not
+     * transactional, so requests waiting for the shared result hold no connection; only the lookup runs in a
+     * read-only transaction.
+     */
+    public BookDTO getBookView(Long id) {
+        return bookViews.execute(id, () -> readOnly("getBookView", () -> BookDTO.fromEntity(getBook(id))));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Book> getBooks(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        java.util.Map<Long, Book> map = new java.util.HashMap<>();
+        for (Book b : repo.findAllById(ids)) map.put(b.getId(), b);
+        java.util.List<Book> ordered = new java.util.ArrayList<>();
+        for (Long id : new java.util.LinkedHashSet<>(ids)) { Book b = map.get(id); if (b != null) ordered.add(b); }
+        return ordered;
+    }
+
     @Transactional
     public Book addBook(Book book) {
+        // Uploads save an existing book through here; it needs the same lock as updateBook.
+        if (book.getId() != null) outbox.lockAggregate(AggregateType.BOOK, book.getId());
         Book saved = repo.save(book);
+        changeLog.recordUpsert(EntityType.BOOK, saved.getId(), null);
+        outbox.publish(AggregateType.BOOK, saved.getId(), "BookSaved", BookDTO.fromEntity(saved));
+        afterCommit(() -> similarIndex.update(saved));
+        invalidateViews(saved.getId());
         log.info("Book created/updated: {} - {}", saved.getId(), saved.getTitle());
         return saved;
     }
 
     @Transactional
     public Book updateBook(Long id, Book updatedBook) {
+        outbox.lockAggregate(AggregateType.BOOK, id);
         Book existing = getBook(id);
         existing.setTitle(updatedBook.getTitle());
         existing.setAuthor(updatedBook.getAuthor());
         existing.setGenre(updatedBook.getGenre());
         existing.setDescription(updatedBook.getDescription());
         Book saved = repo.save(existing);
+        changeLog.recordUpsert(EntityType.BOOK, id, null);
+        outbox.publish(AggregateType.BOOK, id, "BookSaved", BookDTO.fromEntity(saved));
+        afterCommit(() -> similarIndex.update(saved));
+        invalidateViews(id);
         log.info("Book updated: {}", id);
         return saved;
     }
 
+    /** Deletes the book with its reviews, favorites and history; its uploaded files are removed after commit. */
     @Transactional
     public void deleteBook(Long id) {
+        outbox.lockAggregate(AggregateType.BOOK, id);
         Book existing = getBook(id);
+        int dependents = repo.deleteDependents(id);
         repo.delete(existing);
-        log.info("Book deleted: {}", id);
+        changeLog.recordDelete(EntityType.BOOK, id, null);
+        outbox.publish(AggregateType.BOOK, id, "BookDeleted", Map.of("id", id));
+        invalidateViews(id);
+        afterCommit(() -> {
+            similarIndex.remove(id);
+            deleteUploads(existing);
+        });
+        log.info("Book deleted: {} with {} reviews, favorites and history entries", id, dependents);
     }
 
+    private void deleteUploads(Book book) {
+        for (String url : new String[]{book.getCoverUrl(), book.getPdfUrl()}) {
+            if (url == null || !url.startsWith(UPLOADS_PREFIX)) continue;
+            Path file = uploadDir.resolve(url.substring(UPLOADS_PREFIX.length())).normalize();
+            if (!file.startsWith(uploadDir) || file.equals(uploadDir)) continue;
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Upload {} of deleted book {} not removed: {}", file, book.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void invalidateViews(Long id) {
+        clusterBus.publish(CLUSTER_TOPIC, id);
+        catalog.bookChanged(id);
+        bookViews.invalidate(id);
+        topBookViews.invalidateAll();
+        jsonCache.bookChanged(id);
+        // Feeds list title, author and genre too; other instances drop theirs through the cluster bus.
+        afterCommit(() -> feedService.bookRemoved(id));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Book> getSimilarBooks(Long id, int limit) {
+        getBook(id);
+        return getBooks(similarIndex.similar(id, limit));
+    }
+
+    @Transactional(readOnly = true)
     public List<Book> search(String keyword) {
         return searchByTitleOrAuthor(keyword);
     }
 
+    @Transactional(readOnly = true)
     public List<Book> searchByTitleOrAuthor(String keyword) {
         if (keyword == null || keyword.isBlank()) {
             return repo.findAll();
@@ -72,37 +220,93 @@ public class BookService {
         return repo.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(keyword, keyword);
     }
 
+    @Transactional(readOnly = true)
     public Page<Book> getAllSorted(String sortBy, int page, int size) {
         if (sortBy == null || sortBy.isBlank()) sortBy = "title";
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy).ascending());
-        return repo.findAll(pageable);
+        return getAll(PageRequest.of(page, size, Sort.by(sortBy).ascending()));
     }
 
+    @Transactional(readOnly = true)
     public java.util.List<Book> getTopBooks(int limit) {
-        var rows = reviewRepo.findTopBooks(PageRequest.of(0, limit));
+        var rows = reviewRepo.findTopBooks(ratingPriorWeight, PageRequest.of(0, limit));
         java.util.List<Long> ids = new java.util.ArrayList<>();
         for (Object[] r : rows) ids.add((Long) r[0]);
         if (ids.isEmpty()) return java.util.List.of();
-        return repo.findAllById(ids);
+        return inOrder(ids);
+    }
+
+    /** Reviewed books of the genre, best rated first. */
+    @Transactional(readOnly = true)
+    public Page<Book> getTopByGenre(String genre, Pageable pageable) {
+        var rows = reviewRepo.findTopBooksByGenre(genre, ratingPriorWeight, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        java.util.List<Long> ids = new java.util.ArrayList<>();
+        for (Object[] r : rows) ids.add((Long) r[0]);
+        return new PageImpl<>(inOrder(ids), pageable, reviewRepo.countRatedBooksByGenre(genre));
+    }
+
+    // The *Views methods below are not transactional: when the catalog read model serves them no
+    // transaction (and no pooled connection) is needed. The database fallbacks call this class directly,
+    // bypassing the proxy, so they open their read-only transaction themselves.
+
+    public List<BookDTO> getTopBookViews(int limit) {
+        return catalog.top(limit).orElseGet(() -> topBookViews.execute(limit, () -> readOnly("getTopBookViews",
+                () -> getTopBooks(limit).stream().map(BookDTO::fromEntity).toList())));
+    }
+
+    public Page<BookDTO> getTopByGenreViews(String genre, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        return catalog.genreByRating(genre, pageable).orElseGet(() -> readOnly("getTopByGenreViews",
+                () -> getTopByGenre(genre, pageable).map(BookDTO::fromEntity)));
+    }
+
+    public List<BookDTO> getByGenreViews(String genre) {
+        return catalog.byGenre(genre).orElseGet(() -> readOnly("getByGenreViews",
+                () -> getByGenre(genre).stream().map(BookDTO::fromEntity).toList()));
     }
 
+    public Page<BookDTO> getAllViews(Pageable pageable) {
+        return catalog.page(pageable).orElseGet(() -> readOnly("getAllViews",
+                () -> getAll(pageable).map(BookDTO::fromEntity)));
+    }
+
+    public Page<BookDTO> getAllSortedViews(String sortBy, int page, int size) {
+        String sort = (sortBy == null || sortBy.isBlank()) ? "title" : sortBy;
+        return catalog.page(PageRequest.of(page, size, Sort.by(sort).ascending()))
+                .orElseGet(() -> readOnly("getAllSortedViews", () -> getAllSorted(sort, page, size).map(BookDTO::fromEntity)));
+    }
+
+    private <T> T readOnly(String method, Supplier<T> read) {
+        return ReadOnlyTransactions.execute(transactionManager, BookService.class, method, read);
+    }
+
+    @Transactional(readOnly = true)
     public java.util.List<Book> getByGenre(String genre) {
         return repo.findByGenreIgnoreCase(genre);
     }
 
+    /** Sorting by rating lists reviewed books only: descending is best first, ascending (the default) worst first. */
+    @Transactional(readOnly = true)
     public Page<Book> getAll(Pageable pageable) {
         Order ratingOrder = pageable.getSort().getOrderFor("rating");
         if (ratingOrder != null) {
-            var rows = reviewRepo.findTopBooks(PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+            Pageable slice = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+            var rows = ratingOrder.isDescending()
+                    ? reviewRepo.findTopBooks(ratingPriorWeight, slice)
+                    : reviewRepo.findLowestRatedBooks(ratingPriorWeight, slice);
             java.util.List<Long> ids = new java.util.ArrayList<>();
             for (Object[] r : rows) ids.add((Long) r[0]);
-            java.util.Map<Long, Book> map = new java.util.HashMap<>();
-            for (Book b : repo.findAllById(ids)) map.put(b.getId(), b);
-            java.util.List<Book> ordered = new java.util.ArrayList<>();
-            for (Long id : ids) { Book b = map.get(id); if (b != null) ordered.add(b); }
-            long total = reviewRepo.countDistinctBooksReviewed();
-            return new PageImpl<>(ordered, pageable, total);
+            long total = reviewRepo.countRatedBooks();
+            return new PageImpl<>(inOrder(ids), pageable, total);
         }
         return repo.findAll(pageable);
     }
+
+    /** Books by id in the order of {@code ids}; ids without a book are skipped. */
+    private java.util.List<Book> inOrder(java.util.List<Long> ids) {
+        java.util.Map<Long, Book> map = new java.util.HashMap<>();
+        for (Book b : repo.findAllById(ids)) map.put(b.getId(), b);
+        java.util.List<Book> ordered = new java.util.ArrayList<>();
+        for (Long id : ids) { Book b = map.get(id); if (b != null) ordered.add(b); }
+        return ordered;
+    }
 }
@@ -0,0 +1,69 @@
+package com.library.service;
+
+import com.library.entity.ChangeLogEntry;
+import com.library.entity.ChangeLogEntry.EntityType;
+import com.library.entity.ChangeLogEntry.Operation;
+import com.library.repository.ChangeLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Append-only log of catalog and per-user changes backing delta sync. Entries are written in the caller's
+ * transaction, so a change and its log entry commit together; the change version is the
+ * entry's (tx_id, id) position.
+ */
+@Service
+@Slf4j
+public class ChangeLogService {
+    private final ChangeLogRepository repo;
+
+    public ChangeLogService(ChangeLogRepository repo) {
+        this.repo = repo;
+    }
+
+    public void recordUpsert(EntityType type, Long entityId, Long userId) {
+        record(type, entityId, userId, Operation.UPSERT);
+    }
+
+    public void recordDelete(EntityType type, Long entityId, Long userId) {
+        record(type, entityId, userId, Operation.DELETE);
+    }
+
+    private void record(EntityType type, Long entityId, Long userId, Operation operation) {
+        repo.save(ChangeLogEntry.builder()
+                .entityType(type)
+                .entityId(entityId)
+                .userId(userId)
+                .operation(operation)
+                .changedAt(Instant.now())
+                .build());
+    }
+
+    /** Seeds the log with the current rows once, so a sync from version 0 is a plain replay. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (repo.count() > 0) return;
+        int books = repo.backfillBooks();
+        int reviews = repo.backfillReviews();
+        int favorites = repo.backfillFavorites();
+        int history = repo.backfillHistory();
+        log.info("Change log backfilled: {} books, {} reviews, {} favorites, {} history entries",
+                books, reviews, favorites, history);
+    }
+
+    /** Drops entries superseded by a newer change of the same entity; the latest state is still conveyed. */
+    @Scheduled(fixedDelayString = "${app.sync.compaction-interval-ms:3600000}",
+            initialDelayString = "${app.sync.compaction-interval-ms:3600000}")
+    @Transactional
+    public void compact() {
+        int removed = repo.deleteSuperseded();
+        if (removed > 0) log.info("Change log compacted: {} superseded entries removed", removed);
+    }
+}
@@ -1,9 +1,14 @@
 package com.library.service;
 
 import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry.EntityType;
 import com.library.entity.Favorite;
+import com.library.entity.OutboxEvent.AggregateType;
 import com.library.entity.User;
 import com.library.exception.ResourceNotFoundException;
+import com.library.favorites.BookIdBitmap;
+import com.library.favorites.FavoriteBitmapCache;
+import com.library.outbox.OutboxPublisher;
 import com.library.repository.BookRepository;
 import com.library.repository.FavoriteRepository;
 import com.library.repository.UserRepository;
@@ -11,7 +16,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,13 +28,24 @@ public class FavoriteService {
     private final FavoriteRepository favoriteRepo;
     private final UserRepository userRepo;
     private final BookRepository bookRepo;
+    private final FeedService feedService;
+    private final ChangeLogService changeLog;
+    private final OutboxPublisher outbox;
+    private final FavoriteBitmapCache bitmaps;
 
-    public FavoriteService(FavoriteRepository favoriteRepo, UserRepository userRepo, BookRepository bookRepo) {
+    public FavoriteService(FavoriteRepository favoriteRepo, UserRepository userRepo, BookRepository bookRepo,
+                           FeedService feedService, ChangeLogService changeLog, OutboxPublisher outbox,
+                           FavoriteBitmapCache bitmaps) {
         this.favoriteRepo = favoriteRepo;
         this.userRepo = userRepo;
         this.bookRepo = bookRepo;
+        this.feedService = feedService;
+        this.changeLog = changeLog;
+        this.outbox = outbox;
+        this.bitmaps = bitmaps;
     }
 
+    @Transactional(readOnly = true)
     public List<Book> list(String userEmail) {
         User user = userRepo.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
@@ -34,14 +53,29 @@ public class FavoriteService {
                 .stream().map(Favorite::getBook).collect(Collectors.toList());
     }
 
+    /** Whether each of the books is among the user's favorites, in request order. */
+    public Map<Long, Boolean> flags(String userEmail, Collection<Long> bookIds) {
+        User user = userRepo.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
+        BookIdBitmap favorites = bitmaps.get(user.getId());
+        Map<Long, Boolean> flags = new LinkedHashMap<>();
+        for (Long id : bookIds) flags.put(id, favorites.contains(id));
+        return flags;
+    }
+
     @Transactional
     public void add(String userEmail, Long bookId) {
         User user = userRepo.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
         if (!favoriteRepo.existsByUserIdAndBookId(user.getId(), bookId)) {
+            outbox.lockAggregate(AggregateType.USER, user.getId());
             Book book = bookRepo.findById(bookId)
                     .orElseThrow(() -> new ResourceNotFoundException("Book not found: " + bookId));
             favoriteRepo.save(Favorite.builder().user(user).book(book).build());
+            changeLog.recordUpsert(EntityType.FAVORITE, bookId, user.getId());
+            outbox.publish(AggregateType.USER, user.getId(), "FavoriteAdded", Map.of("userId", user.getId(), "bookId", bookId));
+            bitmaps.added(user.getId(), List.of(bookId));
+            feedService.markActive(user.getId());
             log.info("Favorite added by {} for book {}", userEmail, bookId);
         }
     }
@@ -50,7 +84,50 @@ public class FavoriteService {
     public void remove(String userEmail, Long bookId) {
         User user = userRepo.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
+        outbox.lockAggregate(AggregateType.USER, user.getId());
         favoriteRepo.deleteByUserIdAndBookId(user.getId(), bookId);
+        bitmaps.removed(user.getId(), List.of(bookId));
+        changeLog.recordDelete(EntityType.FAVORITE, bookId, user.getId());
+        outbox.publish(AggregateType.USER, user.getId(), "FavoriteRemoved", Map.of("userId", user.getId(), "bookId", bookId));
+        feedService.markActive(user.getId());
         log.info("Favorite removed by {} for book {}", userEmail, bookId);
     }
+
+    /** Favorites the books in one statement; unknown and already favorited ids are skipped. Returns the ids added. */
+    @Transactional
+    public List<Long> addAll(String userEmail, Collection<Long> bookIds) {
+        User user = userRepo.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
+        if (bookIds.isEmpty()) return List.of();
+        outbox.lockAggregate(AggregateType.USER, user.getId());
+        List<Long> added = favoriteRepo.addBooks(user.getId(), bookIds);
+        for (Long bookId : added) {
+            outbox.publish(AggregateType.USER, user.getId(), "FavoriteAdded", Map.of("userId", user.getId(), "bookId", bookId));
+        }
+        if (!added.isEmpty()) {
+            bitmaps.added(user.getId(), added);
+            feedService.markActive(user.getId());
+        }
+        log.info("Favorites added by {}: {} of {} books", userEmail, added.size(), bookIds.size());
+        return added;
+    }
+
+    /** Unfavorites the books in one statement; returns the ids removed. */
+    @Transactional
+    public List<Long> removeAll(String userEmail, Collection<Long> bookIds) {
+        User user = userRepo.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
+        if (bookIds.isEmpty()) return List.of();
+        outbox.lockAggregate(AggregateType.USER, user.getId());
+        List<Long> removed = favoriteRepo.removeBooks(user.getId(), bookIds);
+        for (Long bookId : removed) {
+            outbox.publish(AggregateType.USER, user.getId(), "FavoriteRemoved", Map.of("userId", user.getId(), "bookId", bookId));
+        }
+        if (!removed.isEmpty()) {
+            bitmaps.removed(user.getId(), removed);
+            feedService.markActive(user.getId());
+        }
+        log.info("Favorites removed by {}: {} of {} books", userEmail, removed.size(), bookIds.size());
+        return removed;
+    }
 }
@@ -0,0 +1,247 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.exception.ResourceNotFoundException;
+import com.library.repository.BookRepository;
+import com.library.repository.FavoriteRepository;
+import com.library.repository.HistoryRepository;
+import com.library.repository.ReviewRepository;
+import com.library.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed personalized home feed. Feeds blend the user's genre affinity (history and favorites)
+ * with trending and top-rated books and are recomputed in batches by a background job, most recently
+ * active users first, so reading a feed is a single map lookup.
+ */
+@Service
+@Slf4j
+public class FeedService {
+    private static final int POOL_SIZE = 100;
+    private static final int GENRE_POOL_SIZE = 50;
+    private static final int TOP_GENRES = 3;
+
+    private final UserRepository userRepo;
+    private final BookRepository bookRepo;
+    private final ReviewRepository reviewRepo;
+    private final HistoryRepository historyRepo;
+    private final FavoriteRepository favoriteRepo;
+    private final int feedSize;
+    private final double ratingPriorWeight;
+    private final int batchSize;
+    private final Duration activeWindow;
+    private final Duration maxAge;
+    private final Map<Long, Feed> feeds = new ConcurrentHashMap<>();
+    private final Map<Long, Instant> lastActive = new ConcurrentHashMap<>();
+    private final Map<Long, Instant> lastSignal = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public FeedService(UserRepository userRepo, BookRepository bookRepo, ReviewRepository reviewRepo,
+                       HistoryRepository historyRepo, FavoriteRepository favoriteRepo,
+                       @Value("${app.feed.size:20}") int feedSize,
+                       @Value("${app.feed.batch-size:500}") int batchSize,
+                       @Value("${app.feed.active-window-hours:24}") long activeWindowHours,
+                       @Value("${app.feed.max-age-minutes:60}") long maxAgeMinutes,
+                       @Value("${app.ratings.prior-weight:10}") double ratingPriorWeight,
+                       MeterRegistry meterRegistry) {
+        this.userRepo = userRepo;
+        this.bookRepo = bookRepo;
+        this.reviewRepo = reviewRepo;
+        this.historyRepo = historyRepo;
+        this.favoriteRepo = favoriteRepo;
+        this.feedSize = feedSize;
+        this.ratingPriorWeight = ratingPriorWeight;
+        this.batchSize = batchSize;
+        this.activeWindow = Duration.ofHours(activeWindowHours);
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.hits = Counter.builder("cache.gets").tag("cache", "feed").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "feed").tag("result", "miss").register(meterRegistry);
+    }
+
+    public List<BookDTO> getFeed(String userEmail) {
+        User user = userRepo.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
+        lastActive.put(user.getId(), Instant.now());
+        Feed feed = feeds.get(user.getId());
+        if (feed != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            feed = compute(user.getId(), new Inputs());
+            feeds.put(user.getId(), feed);
+        }
+        return feed.books();
+    }
+
+    /** Records a view, favorite or other signal that should refresh the user's feed on the next batch. */
+    public void markActive(Long userId) {
+        Instant now = Instant.now();
+        lastActive.put(userId, now);
+        lastSignal.put(userId, now);
+    }
+
+    /**
+     * Drops the cached feeds that list the book, after it was deleted or changed; they are recomputed on the
+     * next read or batch.
+     */
+    public void bookRemoved(Long bookId) {
+        feeds.values().removeIf(feed -> feed.books().stream().anyMatch(b -> bookId.equals(b.getId())));
+    }
+
+    /** Drops every cached feed. */
+    public void invalidateAll() {
+        feeds.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${app.feed.refresh-interval-ms:60000}",
+            initialDelayString = "${app.feed.refresh-interval-ms:60000}")
+    public void refreshActiveUsers() {
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(activeWindow);
+        Instant staleBefore = now.minus(maxAge);
+        lastActive.entrySet().removeIf(e -> e.getValue().isBefore(cutoff));
+        lastSignal.keySet().removeIf(userId -> !lastActive.containsKey(userId));
+        feeds.keySet().removeIf(userId -> !lastActive.containsKey(userId));
+
+        List<Long> batch = lastActive.entrySet().stream()
+                .filter(e -> {
+                    Feed feed = feeds.get(e.getKey());
+                    Instant signal = lastSignal.get(e.getKey());
+                    return feed == null
+                            || feed.computedAt().isBefore(staleBefore)
+                            || (signal != null && feed.computedAt().isBefore(signal));
+                })
+                .sorted(Map.Entry.<Long, Instant>comparingByValue().reversed())
+                .limit(batchSize)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (batch.isEmpty()) return;
+
+        Inputs inputs = new Inputs();
+        for (Long userId : batch) {
+            try {
+                feeds.put(userId, compute(userId, inputs));
+            } catch (RuntimeException e) {
+                log.warn("Feed recomputation failed for user {}: {}", userId, e.getMessage());
+            }
+        }
+        log.info("Feeds recomputed for {} active users", batch.size());
+    }
+
+    private Feed compute(Long userId, Inputs inputs) {
+        Map<String, Double> affinity = genreAffinity(userId);
+        Set<Long> favorites = new HashSet<>(favoriteRepo.findBookIdsByUserId(userId));
+
+        Map<Long, Book> candidates = new LinkedHashMap<>(inputs.trendingBooks());
+        candidates.putAll(inputs.topRatedBooks());
+        affinity.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(TOP_GENRES)
+                .forEach(e -> inputs.genreBooks(e.getKey()).forEach(b -> candidates.putIfAbsent(b.getId(), b)));
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (Book b : candidates.values()) {
+            if (favorites.contains(b.getId())) continue;
+            double genreScore = b.getGenre() == null ? 0 : affinity.getOrDefault(b.getGenre().toLowerCase(), 0.0);
+            double score = 0.5 * genreScore
+                    + 0.3 * rankScore(inputs.trendingIds(), b.getId())
+                    + 0.2 * rankScore(inputs.topRatedIds(), b.getId());
+            scores.put(b.getId(), score);
+        }
+        List<BookDTO> books = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(feedSize)
+                .map(e -> BookDTO.fromEntity(candidates.get(e.getKey())))
+                .toList();
+        return new Feed(books, Instant.now());
+    }
+
+    private Map<String, Double> genreAffinity(Long userId) {
+        Map<String, Double> counts = new HashMap<>();
+        for (Object[] row : historyRepo.countGenresByUserId(userId)) {
+            counts.merge(((String) row[0]).toLowerCase(), ((Number) row[1]).doubleValue(), Double::sum);
+        }
+        for (Object[] row : favoriteRepo.countGenresByUserId(userId)) {
+            counts.merge(((String) row[0]).toLowerCase(), 2 * ((Number) row[1]).doubleValue(), Double::sum);
+        }
+        double max = counts.values().stream().max(Comparator.naturalOrder()).orElse(0.0);
+        if (max > 0) counts.replaceAll((genre, count) -> count / max);
+        return counts;
+    }
+
+    private static double rankScore(List<Long> ranking, Long bookId) {
+        int rank = ranking.indexOf(bookId);
+        return rank < 0 ? 0 : 1.0 - (double) rank / ranking.size();
+    }
+
+    private record Feed(List<BookDTO> books, Instant computedAt) {
+    }
+
+    /** Inputs shared by every feed computed in one batch. */
+    private final class Inputs {
+        private List<Long> trendingIds;
+        private List<Long> topRatedIds;
+        private Map<Long, Book> trendingBooks;
+        private Map<Long, Book> topRatedBooks;
+        private final Map<String, List<Book>> genreBooks = new HashMap<>();
+
+        List<Long> trendingIds() {
+            if (trendingIds == null) {
+                trendingIds = historyRepo.findTrendingBookIds(Instant.now().minus(7, ChronoUnit.DAYS), PageRequest.of(0, POOL_SIZE));
+            }
+            return trendingIds;
+        }
+
+        List<Long> topRatedIds() {
+            if (topRatedIds == null) {
+                topRatedIds = new ArrayList<>();
+                for (Object[] r : reviewRepo.findTopBooks(ratingPriorWeight, PageRequest.of(0, POOL_SIZE))) topRatedIds.add((Long) r[0]);
+            }
+            return topRatedIds;
+        }
+
+        Map<Long, Book> trendingBooks() {
+            if (trendingBooks == null) trendingBooks = load(trendingIds());
+            return trendingBooks;
+        }
+
+        Map<Long, Book> topRatedBooks() {
+            if (topRatedBooks == null) topRatedBooks = load(topRatedIds());
+            return topRatedBooks;
+        }
+
+        List<Book> genreBooks(String genre) {
+            return genreBooks.computeIfAbsent(genre, g -> bookRepo.findByGenreIgnoreCase(g, PageRequest.of(0, GENRE_POOL_SIZE)));
+        }
+
+        private Map<Long, Book> load(List<Long> ids) {
+            Map<Long, Book> books = new LinkedHashMap<>();
+            if (ids.isEmpty()) return books;
+            for (Book b : bookRepo.findAllById(ids)) books.put(b.getId(), b);
+            return books;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.library.service;
+
+import com.library.cluster.ClusterEventBus;
+import com.library.history.ArchivedView;
+import com.library.history.HistoryArchive;
+import com.library.repository.ChangeLogRepository;
+import com.library.repository.HistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the {@code history} table small: every user keeps their newest {@code app.history.hot-limit} views
+ * there, older ones are moved to the {@link HistoryArchive} in batches of {@code app.history.batch-size}.
+ * A batch is written to the archive before its rows are deleted, in one transaction holding an advisory lock
+ * so only one instance compacts at a time; if the delete fails the batch is archived again on the next run,
+ * which the archive deduplicates. Archived months older than {@code app.history.archive-retention-months}
+ * are dropped (0 keeps them forever).
+ * <p>
+ * Every archive write goes through here and holds the same lock, so instances sharing the archive directory
+ * never write concurrently; the others reload their segment list when told through the cluster bus.
+ */
+@Service
+@Slf4j
+public class HistoryRetentionService {
+    private static final String CLUSTER_TOPIC = "history-archive";
+
+    private final HistoryRepository historyRepo;
+    private final ChangeLogRepository changeLogRepo;
+    private final HistoryArchive archive;
+    private final ClusterEventBus clusterBus;
+    private final TransactionTemplate tx;
+    private final int hotLimit;
+    private final int batchSize;
+    private final int retentionMonths;
+
+    public HistoryRetentionService(HistoryRepository historyRepo, ChangeLogRepository changeLogRepo, HistoryArchive archive,
+                                   ClusterEventBus clusterBus, PlatformTransactionManager transactionManager,
+                                   @Value("${app.history.hot-limit:500}") int hotLimit,
+                                   @Value("${app.history.batch-size:5000}") int batchSize,
+                                   @Value("${app.history.archive-retention-months:0}") int retentionMonths) {
+        this.historyRepo = historyRepo;
+        this.changeLogRepo = changeLogRepo;
+        this.archive = archive;
+        this.clusterBus = clusterBus;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.hotLimit = Math.max(1, hotLimit);
+        this.batchSize = Math.max(1, batchSize);
+        this.retentionMonths = retentionMonths;
+        clusterBus.subscribe(CLUSTER_TOPIC, keys -> {
+            try {
+                archive.reload();
+            } catch (IOException e) {
+                log.warn("History archive reload failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.history.compaction-interval-ms:3600000}",
+            initialDelayString = "${app.history.compaction-interval-ms:3600000}")
+    public void compact() {
+        if (!archive.isEnabled()) return;
+        long started = System.nanoTime();
+        long archived = 0;
+        try {
+            int moved;
+            do {
+                moved = compactBatch();
+                archived += Math.max(moved, 0);
+            } while (moved >= batchSize);
+            if (retentionMonths > 0) {
+                YearMonth cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths);
+                Integer dropped = tx.execute(status -> {
+                    if (!historyRepo.tryLockRetention()) return 0;
+                    return write(() -> archive.dropBefore(cutoff));
+                });
+                if (dropped != null && dropped > 0) log.info("History archive: {} expired segments dropped", dropped);
+            }
+        } catch (RuntimeException e) {
+            log.warn("History compaction failed, retrying on the next run: {}", e.getMessage());
+        }
+        if (archived > 0) {
+            log.info("History compacted: {} views archived in {} ms", archived, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /** Archives one batch; returns the number of rows moved, or -1 if another instance holds the lock. */
+    int compactBatch() {
+        Integer moved = tx.execute(status -> {
+            if (!historyRepo.tryLockRetention()) return -1;
+            List<Object[]> rows = historyRepo.findBeyondRecent(hotLimit, batchSize);
+            if (rows.isEmpty()) return 0;
+            List<ArchivedView> views = new ArrayList<>(rows.size());
+            List<Long> ids = new ArrayList<>(rows.size());
+            Set<Long> userIds = new HashSet<>();
+            for (Object[] r : rows) {
+                ArchivedView v = new ArchivedView(((Number) r[0]).longValue(), ((Number) r[1]).longValue(),
+                        ((Number) r[2]).longValue(), ((Number) r[3]).longValue());
+                views.add(v);
+                ids.add(v.id());
+                userIds.add(v.userId());
+            }
+            write(() -> {
+                archive.append(views);
+                return null;
+            });
+            historyRepo.deleteByIdIn(ids);
+            changeLogRepo.deleteHistoryEntries(userIds, ids);
+            return rows.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    /**
+     * Removes a purged account's archived views. Fails if compaction holds the archive at the moment; the
+     * purge is then retried on its next run.
+     */
+    public void removeUser(long userId) {
+        if (!archive.isEnabled()) return;
+        tx.executeWithoutResult(status -> {
+            if (!historyRepo.tryLockRetention()) throw new IllegalStateException("History archive is being compacted");
+            write(() -> {
+                archive.removeUser(userId);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Runs an archive write under the lock taken in the current transaction, on the segment list as it is on
+     * disk, and tells the other instances after commit.
+     */
+    private <T> T write(ArchiveWrite<T> action) {
+        try {
+            archive.recover();
+            T result = action.run();
+            clusterBus.publish(CLUSTER_TOPIC, ClusterEventBus.ALL);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ArchiveWrite<T> {
+        T run() throws IOException;
+    }
+}
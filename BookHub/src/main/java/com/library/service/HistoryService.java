@@ -1,19 +1,31 @@
 package com.library.service;
 
+import com.library.dto.BookDTO;
+import com.library.dto.HistoryEntryDTO;
+import com.library.dto.HistoryPageDTO;
 import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry.EntityType;
 import com.library.entity.History;
 import com.library.entity.User;
 import com.library.exception.ResourceNotFoundException;
+import com.library.history.ArchivedView;
+import com.library.history.HistoryArchive;
 import com.library.repository.BookRepository;
 import com.library.repository.HistoryRepository;
 import com.library.repository.UserRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -21,18 +33,87 @@ public class HistoryService {
     private final HistoryRepository historyRepo;
     private final UserRepository userRepo;
     private final BookRepository bookRepo;
+    private final FeedService feedService;
+    private final ChangeLogService changeLog;
+    private final HistoryArchive archive;
 
-    public HistoryService(HistoryRepository historyRepo, UserRepository userRepo, BookRepository bookRepo) {
+    public HistoryService(HistoryRepository historyRepo, UserRepository userRepo, BookRepository bookRepo,
+                          FeedService feedService, ChangeLogService changeLog, HistoryArchive archive) {
         this.historyRepo = historyRepo;
         this.userRepo = userRepo;
         this.bookRepo = bookRepo;
+        this.feedService = feedService;
+        this.changeLog = changeLog;
+        this.archive = archive;
     }
 
-    public List<Book> list(String userEmail) {
+    /**
+     * One page of the user's history, newest first. Recent views come from the table; once they run out the
+     * page continues with archived views, which are all older. {@code cursor} is the {@code nextCursor} of the
+     * previous page, or null for the first one.
+     */
+    @Transactional(readOnly = true)
+    public HistoryPageDTO page(String userEmail, String cursor, int limit) {
         User u = userRepo.findByEmail(userEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
-        return historyRepo.findByUserIdOrderByLastOpenedDesc(u.getId())
-                .stream().map(History::getBook).collect(Collectors.toList());
+        long[] position = parseCursor(cursor);
+        List<History> recent = position == null
+                ? historyRepo.findByUserIdOrderByLastOpenedDescIdDesc(u.getId(), Limit.of(limit + 1))
+                : historyRepo.findByUserIdBefore(u.getId(), toInstant(position[0]), position[1], Limit.of(limit + 1));
+        List<HistoryEntryDTO> items = new ArrayList<>(limit);
+        for (History h : recent.subList(0, Math.min(limit, recent.size()))) {
+            items.add(HistoryEntryDTO.fromEntity(h));
+            position = new long[]{toMicros(h.getLastOpened()), h.getId()};
+        }
+        boolean hasMore = recent.size() > limit;
+        if (!hasMore && archive.isEnabled()) {
+            int missing = limit - items.size();
+            List<ArchivedView> archived = position == null
+                    ? archive.read(u.getId(), Long.MAX_VALUE, Long.MAX_VALUE, missing + 1)
+                    : archive.read(u.getId(), position[0], position[1], missing + 1);
+            hasMore = archived.size() > missing;
+            archived = archived.subList(0, Math.min(missing, archived.size()));
+            Map<Long, Book> books = new HashMap<>();
+            if (!archived.isEmpty()) {
+                for (Book b : bookRepo.findAllById(archived.stream().map(ArchivedView::bookId).distinct().toList())) {
+                    books.put(b.getId(), b);
+                }
+            }
+            for (ArchivedView v : archived) {
+                Book book = books.get(v.bookId());
+                if (book != null) {
+                    items.add(HistoryEntryDTO.builder()
+                            .id(v.id())
+                            .book(BookDTO.fromEntity(book))
+                            .viewedAt(LocalDateTime.ofInstant(toInstant(v.openedAtMicros()), ZoneId.systemDefault()))
+                            .build());
+                }
+                position = new long[]{v.openedAtMicros(), v.id()};
+            }
+        }
+        return HistoryPageDTO.builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? position[0] + "-" + position[1] : null)
+                .build();
+    }
+
+    private static long[] parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        int dash = cursor.indexOf('-');
+        try {
+            return new long[]{Long.parseLong(cursor.substring(0, dash)), Long.parseLong(cursor.substring(dash + 1))};
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor: " + cursor);
+        }
+    }
+
+    private static long toMicros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant toInstant(long micros) {
+        return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
     }
 
     @Transactional
@@ -43,6 +124,8 @@ public class HistoryService {
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found: " + bookId));
         History h = History.builder().user(u).book(b).lastOpened(Instant.now()).build();
         historyRepo.save(h);
+        changeLog.recordUpsert(EntityType.HISTORY, h.getId(), u.getId());
+        feedService.markActive(u.getId());
         log.info("History recorded for {} viewing book {}", userEmail, bookId);
     }
 }
@@ -0,0 +1,171 @@
+package com.library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.catalog.CatalogReadModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized responses of the hottest catalog reads (book by id, top books, genre pages) as ready-to-write
+ * UTF-8 JSON, so a hit skips both the DTO mapping and Jackson. Entries carry the versions they were built
+ * from: a per-book version for single books, and for lists a catalog version plus the
+ * {@link CatalogReadModel#revision() read model revision}. Versions are read before loading and bumped on
+ * writes before and after commit, so an entry built from data older than a write is never served after it.
+ * <p>
+ * Writes on other instances arrive through the cluster bus (lists also follow the read model); entries
+ * older than {@code app.json-cache.ttl-ms} are rebuilt anyway, which bounds staleness when the bus is down.
+ * The byte arrays are shared between requests and must not be modified. Empty lists (such as an unknown genre)
+ * are not kept, so arbitrary request parameters cannot fill the cache with them. When the cache holds more than
+ * {@code app.json-cache.max-bytes} or {@code app.json-cache.max-entries}, arbitrary entries are dropped until
+ * both are back under three quarters.
+ */
+@Service
+public class JsonResponseCache {
+    private final ObjectMapper objectMapper;
+    private final CatalogReadModel catalog;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Long> bookVersions = new ConcurrentHashMap<>();
+    private final AtomicLong allBooksVersion = new AtomicLong();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Region books;
+    private final Region top;
+    private final Region genres;
+
+    public JsonResponseCache(ObjectMapper objectMapper, CatalogReadModel catalog,
+                             @Value("${app.json-cache.enabled:true}") boolean enabled,
+                             @Value("${app.json-cache.max-bytes:67108864}") long maxBytes,
+                             @Value("${app.json-cache.max-entries:10000}") int maxEntries,
+                             @Value("${app.json-cache.ttl-ms:60000}") long ttlMs,
+                             MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.catalog = catalog;
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = Duration.ofMillis(ttlMs).toNanos();
+        this.books = new Region("json-book", false, meterRegistry);
+        this.top = new Region("json-top-books", true, meterRegistry);
+        this.genres = new Region("json-genre", true, meterRegistry);
+        Gauge.builder("cache.size", bytes, AtomicLong::get).tag("cache", "json").baseUnit("bytes").register(meterRegistry);
+    }
+
+    public byte[] book(Long id, Supplier<?> loader) {
+        return get(books, id, allBooksVersion.get() + bookVersions.getOrDefault(id, 0L), loader);
+    }
+
+    public byte[] topBooks(int limit, Supplier<?> loader) {
+        return get(top, limit, catalogVersion.get(), loader);
+    }
+
+    public byte[] genre(String genre, Supplier<?> loader) {
+        return get(genres, genre == null ? "" : genre.toLowerCase(Locale.ROOT), catalogVersion.get(), loader);
+    }
+
+    /** A book was created, updated or deleted; stales the book and every list. */
+    public void bookChanged(Long id) {
+        bumpNowAndAfterCommit(() -> {
+            bookVersions.merge(id, 1L, Long::sum);
+            catalogVersion.incrementAndGet();
+        });
+    }
+
+    /** Every book may have changed, e.g. after a reset message from another instance. */
+    public void allBooksChanged() {
+        bumpNowAndAfterCommit(() -> {
+            allBooksVersion.incrementAndGet();
+            catalogVersion.incrementAndGet();
+        });
+    }
+
+    /** A rating changed; stales the lists, which may be ordered by rating. */
+    public void ratingsChanged() {
+        bumpNowAndAfterCommit(catalogVersion::incrementAndGet);
+    }
+
+    private byte[] get(Region region, Object key, long version, Supplier<?> loader) {
+        if (!enabled) return serialize(loader.get());
+        long revision = region.catalogDependent ? catalog.revision() : 0;
+        Key k = new Key(region.name, key);
+        long now = System.nanoTime();
+        Entry cached = entries.get(k);
+        if (cached != null && cached.version == version && cached.revision == revision && now - cached.createdAt < ttlNanos) {
+            region.hits.increment();
+            return cached.json;
+        }
+        region.misses.increment();
+        Object value = loader.get();
+        byte[] json = serialize(value);
+        if (value instanceof Collection<?> list && list.isEmpty()) return json;
+        Entry previous = entries.put(k, new Entry(version, revision, now, json));
+        long total = bytes.addAndGet(json.length - (previous == null ? 0 : previous.json.length));
+        if (total > maxBytes || entries.size() > maxEntries) evict();
+        return json;
+    }
+
+    private void evict() {
+        long targetBytes = maxBytes / 4 * 3;
+        int targetEntries = maxEntries / 4 * 3;
+        for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+            if (bytes.get() <= targetBytes && entries.size() <= targetEntries) return;
+            if (entries.remove(e.getKey(), e.getValue())) bytes.addAndGet(-e.getValue().json.length);
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response not serializable", e);
+        }
+    }
+
+    private static void bumpNowAndAfterCommit(Runnable bump) {
+        bump.run();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump.run();
+            }
+        });
+    }
+
+    private record Key(String region, Object key) {
+    }
+
+    private record Entry(long version, long revision, long createdAt, byte[] json) {
+    }
+
+    private static final class Region {
+        final String name;
+        final boolean catalogDependent;
+        final Counter hits;
+        final Counter misses;
+
+        Region(String name, boolean catalogDependent, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.catalogDependent = catalogDependent;
+            this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").register(meterRegistry);
+            this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss").register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.library.service;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Read-only transactions named like {@code @Transactional(readOnly = true)} service methods, for reads that run
+ * outside the service proxy (coalesced loaders call their own service directly). The name is what sends them
+ * to the replica, see {@link com.library.datasource.ReadWriteRoutingDataSource}.
+ */
+final class ReadOnlyTransactions {
+    private ReadOnlyTransactions() {
+    }
+
+    static <T> T execute(PlatformTransactionManager transactionManager, Class<?> service, String method, Supplier<T> read) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setName(service.getName() + "." + method);
+        tx.setReadOnly(true);
+        return tx.execute(status -> read.get());
+    }
+}
@@ -1,37 +1,159 @@
 package com.library.service;
 
+import com.library.catalog.CatalogReadModel;
+import com.library.cluster.ClusterEventBus;
+import com.library.dto.RatingHistogramDTO;
+import com.library.dto.ReviewDTO;
+import com.library.dto.ReviewPageDTO;
 import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry.EntityType;
+import com.library.entity.OutboxEvent.AggregateType;
 import com.library.entity.Review;
 import com.library.entity.User;
 import com.library.repository.BookRepository;
 import com.library.repository.ReviewRepository;
+import com.library.repository.ReviewRepository.ReviewRow;
 import com.library.repository.UserRepository;
 import com.library.exception.DuplicateReviewException;
 import com.library.exception.ResourceNotFoundException;
+import com.library.outbox.OutboxPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class ReviewService {
+    private static final String CLUSTER_TOPIC = "book-reviews";
+
+    /** Orders of a review page; the rating sorts show the newest first within a rating. */
+    public enum Sort {
+        NEWEST, HIGHEST, LOWEST;
+
+        public static Sort parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown review sort: " + value);
+            }
+        }
+    }
+
     private final ReviewRepository reviewRepo;
     private final UserRepository userRepo;
     private final BookRepository bookRepo;
+    private final ChangeLogService changeLog;
+    private final OutboxPublisher outbox;
+    private final CatalogReadModel catalog;
+    private final ClusterEventBus clusterBus;
+    private final JsonResponseCache jsonCache;
+    private final PlatformTransactionManager transactionManager;
+    private final SingleFlight<Long, List<ReviewDTO>> bookReviews;
 
-    public ReviewService(ReviewRepository reviewRepo, UserRepository userRepo, BookRepository bookRepo) {
+    public ReviewService(ReviewRepository reviewRepo, UserRepository userRepo, BookRepository bookRepo, ChangeLogService changeLog,
+                         OutboxPublisher outbox, CatalogReadModel catalog, ClusterEventBus clusterBus, JsonResponseCache jsonCache,
+                         PlatformTransactionManager transactionManager, @Value("${app.coalescing.reviews.ttl-ms:1000}") long ttlMs, MeterRegistry meterRegistry) {
         this.reviewRepo = reviewRepo;
         this.userRepo = userRepo;
         this.bookRepo = bookRepo;
+        this.changeLog = changeLog;
+        this.outbox = outbox;
+        this.catalog = catalog;
+        this.clusterBus = clusterBus;
+        this.jsonCache = jsonCache;
+        this.transactionManager = transactionManager;
+        this.bookReviews = new SingleFlight<>("book-reviews", Duration.ofMillis(ttlMs), meterRegistry);
+        clusterBus.subscribe(CLUSTER_TOPIC, bookIds -> {
+            if (bookIds.contains(ClusterEventBus.ALL)) {
+                bookReviews.invalidateAll();
+            } else {
+                bookIds.forEach(id -> bookReviews.invalidate(Long.valueOf(id)));
+            }
+            jsonCache.ratingsChanged();
+        });
     }
 
+    @Transactional(readOnly = true)
     public List<Review> getByBook(Long bookId) {
         return reviewRepo.findByBookId(bookId);
     }
 
+    /**
+     * Coalesced review list for the API; concurrent requests for the same book share one query. Not
+     * transactional, so requests waiting for the shared result hold no connection; only the query runs in a
+     * read-only transaction, and it fetches reviewers and the book with the reviews.
+     */
+    public List<ReviewDTO> getViewsByBook(Long bookId) {
+        return bookReviews.execute(bookId, () -> ReadOnlyTransactions.execute(transactionManager, ReviewService.class,
+                "getViewsByBook", () -> getByBook(bookId).stream().map(ReviewDTO::fromEntity).toList()));
+    }
+
+    /**
+     * One page of a book's reviews with the book's rating histogram. {@code cursor} is the {@code nextCursor}
+     * of the previous page of the same sort, or null for the first one.
+     */
+    @Transactional(readOnly = true)
+    public ReviewPageDTO page(Long bookId, Sort sort, String cursor, int limit) {
+        Limit fetch = Limit.of(limit + 1);
+        List<ReviewRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = switch (sort) {
+                case NEWEST -> reviewRepo.findNewest(bookId, fetch);
+                case HIGHEST -> reviewRepo.findHighest(bookId, fetch);
+                case LOWEST -> reviewRepo.findLowest(bookId, fetch);
+            };
+        } else {
+            long[] position = parseCursor(cursor);
+            int rating = (int) position[0];
+            Instant createdAt = Instant.EPOCH.plus(position[1], ChronoUnit.MICROS);
+            rows = switch (sort) {
+                case NEWEST -> reviewRepo.findNewestAfter(bookId, createdAt, position[2], fetch);
+                case HIGHEST -> reviewRepo.findHighestAfter(bookId, rating, createdAt, position[2], fetch);
+                case LOWEST -> reviewRepo.findLowestAfter(bookId, rating, createdAt, position[2], fetch);
+            };
+        }
+        boolean hasMore = rows.size() > limit;
+        List<ReviewRow> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ReviewRow last = page.get(page.size() - 1);
+            nextCursor = last.getRating() + "-" + ChronoUnit.MICROS.between(Instant.EPOCH, last.getCreatedAt()) + "-" + last.getId();
+        }
+        return ReviewPageDTO.builder()
+                .items(page.stream().map(r -> ReviewDTO.fromRow(r, bookId)).toList())
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .rating(getRatingHistogram(bookId))
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public RatingHistogramDTO getRatingHistogram(Long bookId) {
+        return reviewRepo.findRatingCounts(bookId).map(RatingHistogramDTO::of).orElseGet(RatingHistogramDTO::empty);
+    }
+
+    private static long[] parseCursor(String cursor) {
+        String[] parts = cursor.split("-");
+        try {
+            if (parts.length != 3) throw new NumberFormatException();
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid review cursor: " + cursor);
+        }
+    }
+
     @Transactional
     public Review add(String userEmail, Long bookId, int rating, String comment) {
         User user = userRepo.findByEmail(userEmail)
@@ -49,6 +171,12 @@ public class ReviewService {
                 .createdAt(Instant.now())
                 .build();
         Review saved = reviewRepo.save(review);
+        changeLog.recordUpsert(EntityType.REVIEW, saved.getId(), user.getId());
+        outbox.publish(AggregateType.REVIEW, saved.getId(), "ReviewSaved", ReviewDTO.fromEntity(saved));
+        bookReviews.invalidate(bookId);
+        clusterBus.publish(CLUSTER_TOPIC, bookId);
+        catalog.ratingChanged(bookId);
+        jsonCache.ratingsChanged();
         log.info("Review added by {} for book {}", userEmail, bookId);
         return saved;
     }
@@ -59,9 +187,16 @@ public class ReviewService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
         Review existing = reviewRepo.findByUserIdAndBookId(user.getId(), bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
+        outbox.lockAggregate(AggregateType.REVIEW, existing.getId());
         existing.setRating(rating);
         existing.setComment(comment);
         Review saved = reviewRepo.save(existing);
+        changeLog.recordUpsert(EntityType.REVIEW, saved.getId(), user.getId());
+        outbox.publish(AggregateType.REVIEW, saved.getId(), "ReviewSaved", ReviewDTO.fromEntity(saved));
+        bookReviews.invalidate(bookId);
+        clusterBus.publish(CLUSTER_TOPIC, bookId);
+        catalog.ratingChanged(bookId);
+        jsonCache.ratingsChanged();
         log.info("Review updated by {} for book {}", userEmail, bookId);
         return saved;
     }
@@ -72,7 +207,25 @@ public class ReviewService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
         Review review = reviewRepo.findByUserIdAndBookId(user.getId(), bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
+        outbox.lockAggregate(AggregateType.REVIEW, review.getId());
         reviewRepo.delete(review);
+        changeLog.recordDelete(EntityType.REVIEW, review.getId(), user.getId());
+        outbox.publish(AggregateType.REVIEW, review.getId(), "ReviewDeleted", Map.of("id", review.getId(), "bookId", bookId));
+        bookReviews.invalidate(bookId);
+        clusterBus.publish(CLUSTER_TOPIC, bookId);
+        catalog.ratingChanged(bookId);
+        jsonCache.ratingsChanged();
         log.info("Review deleted by {} for book {}", userEmail, bookId);
     }
+
+    /** Refreshes review lists and ratings of books whose reviews were deleted in bulk (account deletion). */
+    public void reviewsRemoved(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) return;
+        for (Long bookId : bookIds) {
+            bookReviews.invalidate(bookId);
+            clusterBus.publish(CLUSTER_TOPIC, bookId);
+            catalog.ratingChanged(bookId);
+        }
+        jsonCache.ratingsChanged();
+    }
 }
@@ -0,0 +1,119 @@
+package com.library.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent reads: the first caller for a key runs the loader, callers arriving while
+ * it runs wait for and share its result (or exception). With a positive TTL the result is also served to
+ * later callers until it expires or the key is invalidated, so load follows distinct keys, not requests.
+ * Results are shared between callers and must be immutable.
+ */
+public class SingleFlight<K, V> {
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Counter loads;
+    private final Counter joined;
+    private final Counter cached;
+
+    public SingleFlight(String name, Duration ttl, MeterRegistry meterRegistry) {
+        this.ttlNanos = ttl.toNanos();
+        this.loads = counter(meterRegistry, name, "load");
+        this.joined = counter(meterRegistry, name, "joined");
+        this.cached = counter(meterRegistry, name, "cached");
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        while (true) {
+            long now = System.nanoTime();
+            Entry<V> current = entries.get(key);
+            if (current != null && current.usableAt(now)) {
+                (current.future.isDone() ? cached : joined).increment();
+                return await(current.future);
+            }
+            Entry<V> mine = new Entry<>();
+            boolean leader = current == null ? entries.putIfAbsent(key, mine) == null : entries.replace(key, current, mine);
+            if (leader) return load(key, mine, loader);
+        }
+    }
+
+    /**
+     * Drops the cached result and detaches any in-flight load, so the next caller reads fresh data. Inside a
+     * transaction this is repeated after commit, since a read between now and the commit still sees old rows.
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+        afterCommit(() -> entries.remove(key));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        afterCommit(entries::clear);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private V load(K key, Entry<V> entry, Supplier<V> loader) {
+        loads.increment();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        entry.expiresAt = System.nanoTime() + ttlNanos;
+        entry.future.complete(value);
+        if (ttlNanos <= 0) {
+            entries.remove(key, entry);
+        } else if (entries.size() > PURGE_THRESHOLD) {
+            long now = System.nanoTime();
+            entries.values().removeIf(e -> !e.usableAt(now));
+        }
+        return value;
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String result) {
+        return Counter.builder("coalescing.calls").tag("name", name).tag("result", result).register(registry);
+    }
+
+    private static final class Entry<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        volatile long expiresAt;
+
+        boolean usableAt(long now) {
+            if (!future.isDone()) return true;
+            return !future.isCompletedExceptionally() && now - expiresAt < 0;
+        }
+    }
+}
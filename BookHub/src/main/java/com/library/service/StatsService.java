@@ -3,8 +3,12 @@ package com.library.service;
 import com.library.repository.BookRepository;
 import com.library.repository.UserRepository;
 import com.library.repository.ReviewRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
@@ -16,14 +20,23 @@ public class StatsService {
     private final BookRepository bookRepo;
     private final UserRepository userRepo;
     private final ReviewRepository reviewRepo;
+    private final SingleFlight<String, StatsDTO> stats;
 
-    public StatsService(BookRepository bookRepo, UserRepository userRepo, ReviewRepository reviewRepo) {
+    public StatsService(BookRepository bookRepo, UserRepository userRepo, ReviewRepository reviewRepo,
+                        @Value("${app.coalescing.stats.ttl-ms:5000}") long ttlMs, MeterRegistry meterRegistry) {
         this.bookRepo = bookRepo;
         this.userRepo = userRepo;
         this.reviewRepo = reviewRepo;
+        this.stats = new SingleFlight<>("stats", Duration.ofMillis(ttlMs), meterRegistry);
     }
 
+    /** Concurrent callers share one computation; the result may be up to the configured TTL old. */
+    @Transactional(readOnly = true)
     public StatsDTO getStats() {
+        return stats.execute("stats", this::computeStats);
+    }
+
+    private StatsDTO computeStats() {
         long books = bookRepo.count();
         long users = userRepo.count();
         long reviews = reviewRepo.count();
@@ -46,6 +59,7 @@ public class StatsService {
                 .build();
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getExtendedStats() {
         StatsDTO dto = getStats();
         Map<String, Object> stats = new HashMap<>();
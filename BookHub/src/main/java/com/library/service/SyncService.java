@@ -0,0 +1,161 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.dto.HistoryEntryDTO;
+import com.library.dto.ReviewDTO;
+import com.library.dto.SyncResponseDTO;
+import com.library.dto.SyncResponseDTO.Tombstone;
+import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry;
+import com.library.entity.ChangeLogEntry.EntityType;
+import com.library.entity.ChangeLogEntry.Operation;
+import com.library.entity.History;
+import com.library.entity.Review;
+import com.library.entity.User;
+import com.library.exception.ResourceNotFoundException;
+import com.library.repository.BookRepository;
+import com.library.repository.ChangeLogRepository;
+import com.library.repository.FavoriteRepository;
+import com.library.repository.HistoryRepository;
+import com.library.repository.ReviewRepository;
+import com.library.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Delta sync over the change log. Catalog changes and the caller's own changes are read through separate
+ * index range scans and merged by version, so the cost of a sync follows the number of changes since the
+ * client's version rather than the size of the data set.
+ * <p>
+ * A version is the position {@code txId-id} of the last entry returned. Entries are read in (tx_id, id) order
+ * and only from transactions older than the oldest one still running, so an entry that commits late is never
+ * behind a version already handed out. A long-running transaction holds sync back until it ends. A plain
+ * number, as returned by older servers, restarts from that id within the entries written before the upgrade,
+ * followed by everything written since.
+ */
+@Service
+public class SyncService {
+    private final ChangeLogRepository changeRepo;
+    private final UserRepository userRepo;
+    private final BookRepository bookRepo;
+    private final ReviewRepository reviewRepo;
+    private final FavoriteRepository favoriteRepo;
+    private final HistoryRepository historyRepo;
+
+    public SyncService(ChangeLogRepository changeRepo, UserRepository userRepo, BookRepository bookRepo,
+                       ReviewRepository reviewRepo, FavoriteRepository favoriteRepo, HistoryRepository historyRepo) {
+        this.changeRepo = changeRepo;
+        this.userRepo = userRepo;
+        this.bookRepo = bookRepo;
+        this.reviewRepo = reviewRepo;
+        this.favoriteRepo = favoriteRepo;
+        this.historyRepo = historyRepo;
+    }
+
+    @Transactional(readOnly = true)
+    public SyncResponseDTO changesSince(String userEmail, String since, int limit) {
+        User user = userRepo.findByEmail(userEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userEmail));
+        long[] position = parseVersion(since);
+        List<ChangeLogEntry> changes = new ArrayList<>(changeRepo.findCatalogChangesAfter(position[0], position[1], limit + 1));
+        changes.addAll(changeRepo.findUserChangesAfter(user.getId(), position[0], position[1], limit + 1));
+        changes.sort(Comparator.comparing(ChangeLogEntry::getTxId).thenComparing(ChangeLogEntry::getId));
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) changes = changes.subList(0, limit);
+        ChangeLogEntry last = changes.isEmpty() ? null : changes.get(changes.size() - 1);
+        String version = last == null ? position[0] + "-" + position[1] : last.getTxId() + "-" + last.getId();
+
+        Map<EntityType, Set<Long>> upserts = new EnumMap<>(EntityType.class);
+        Map<EntityType, Set<Long>> deletes = new EnumMap<>(EntityType.class);
+        for (EntityType type : EntityType.values()) {
+            upserts.put(type, new LinkedHashSet<>());
+            deletes.put(type, new LinkedHashSet<>());
+        }
+        for (ChangeLogEntry c : changes) {
+            boolean upsert = c.getOperation() == Operation.UPSERT;
+            (upsert ? upserts : deletes).get(c.getEntityType()).add(c.getEntityId());
+            (upsert ? deletes : upserts).get(c.getEntityType()).remove(c.getEntityId());
+        }
+
+        List<BookDTO> books = new ArrayList<>();
+        Set<Long> found = new HashSet<>();
+        if (!upserts.get(EntityType.BOOK).isEmpty()) {
+            for (Book b : bookRepo.findAllById(upserts.get(EntityType.BOOK))) {
+                books.add(BookDTO.fromEntity(b));
+                found.add(b.getId());
+            }
+        }
+        tombstoneMissing(EntityType.BOOK, upserts, deletes, found);
+
+        List<ReviewDTO> reviews = new ArrayList<>();
+        found = new HashSet<>();
+        if (!upserts.get(EntityType.REVIEW).isEmpty()) {
+            for (Review r : reviewRepo.findByIdIn(upserts.get(EntityType.REVIEW))) {
+                if (!r.getUser().getId().equals(user.getId())) continue;
+                reviews.add(ReviewDTO.fromEntity(r));
+                found.add(r.getId());
+            }
+        }
+        tombstoneMissing(EntityType.REVIEW, upserts, deletes, found);
+
+        List<Long> favorites = upserts.get(EntityType.FAVORITE).isEmpty()
+                ? List.of()
+                : favoriteRepo.findBookIdsByUserIdAndBookIdIn(user.getId(), upserts.get(EntityType.FAVORITE));
+        tombstoneMissing(EntityType.FAVORITE, upserts, deletes, new HashSet<>(favorites));
+
+        List<HistoryEntryDTO> history = new ArrayList<>();
+        found = new HashSet<>();
+        if (!upserts.get(EntityType.HISTORY).isEmpty()) {
+            for (History h : historyRepo.findByIdIn(upserts.get(EntityType.HISTORY))) {
+                if (!h.getUser().getId().equals(user.getId())) continue;
+                history.add(HistoryEntryDTO.fromEntity(h));
+                found.add(h.getId());
+            }
+        }
+        tombstoneMissing(EntityType.HISTORY, upserts, deletes, found);
+
+        List<Tombstone> deleted = new ArrayList<>();
+        deletes.forEach((type, ids) -> ids.forEach(id -> deleted.add(new Tombstone(type.name(), id))));
+
+        return SyncResponseDTO.builder()
+                .version(version)
+                .hasMore(hasMore)
+                .books(books)
+                .reviews(reviews)
+                .favorites(favorites)
+                .history(history)
+                .deleted(deleted)
+                .build();
+    }
+
+    /** {txId, id} of a version; a plain number is an id from before the change log had transaction ids. */
+    private static long[] parseVersion(String version) {
+        if (version == null || version.isBlank()) return new long[]{0, 0};
+        int dash = version.indexOf('-');
+        try {
+            long[] position = dash < 0
+                    ? new long[]{0, Long.parseLong(version)}
+                    : new long[]{Long.parseLong(version.substring(0, dash)), Long.parseLong(version.substring(dash + 1))};
+            if (position[0] < 0 || position[1] < 0) throw new IllegalArgumentException();
+            return position;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid sync version: " + version);
+        }
+    }
+
+    private static void tombstoneMissing(EntityType type, Map<EntityType, Set<Long>> upserts,
+                                         Map<EntityType, Set<Long>> deletes, Set<Long> found) {
+        for (Long id : upserts.get(type)) {
+            if (!found.contains(id)) deletes.get(type).add(id);
+        }
+    }
+}
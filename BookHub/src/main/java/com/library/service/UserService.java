@@ -1,22 +1,37 @@
 package com.library.service;
 
+import com.library.entity.OutboxEvent.AggregateType;
 import com.library.entity.User;
 import com.library.exception.ResourceNotFoundException;
+import com.library.history.HistoryArchive;
+import com.library.outbox.OutboxPublisher;
 import com.library.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Map;
+
 @Service
 @Slf4j
 public class UserService {
     private final UserRepository userRepo;
     private final BCryptPasswordEncoder encoder;
+    private final OutboxPublisher outbox;
+    private final ReviewService reviewService;
+    private final HistoryArchive archive;
+    private final int inlineDeleteLimit;
 
-    public UserService(UserRepository userRepo, BCryptPasswordEncoder encoder) {
+    public UserService(UserRepository userRepo, BCryptPasswordEncoder encoder, OutboxPublisher outbox, ReviewService reviewService,
+                       HistoryArchive archive, @Value("${app.purge.inline-limit:1000}") int inlineDeleteLimit) {
         this.userRepo = userRepo;
         this.encoder = encoder;
+        this.outbox = outbox;
+        this.reviewService = reviewService;
+        this.archive = archive;
+        this.inlineDeleteLimit = inlineDeleteLimit;
     }
 
     public User getByEmail(String email) {
@@ -27,17 +42,38 @@ public class UserService {
     @Transactional
     public User updateProfile(String email, String fullName, String newPassword) {
         User user = getByEmail(email);
+        outbox.lockAggregate(AggregateType.USER, user.getId());
         if (fullName != null && !fullName.isBlank()) user.setFullName(fullName);
         if (newPassword != null && !newPassword.isBlank()) user.setPasswordHash(encoder.encode(newPassword));
         User saved = userRepo.save(user);
+        outbox.publish(AggregateType.USER, saved.getId(), "UserUpdated", Map.of("id", saved.getId()));
         log.info("Profile updated for {}", email);
         return saved;
     }
 
+    /**
+     * Deletes the account with its reviews, favorites and history in a fixed number of statements. Accounts
+     * with more than {@code app.purge.inline-limit} such rows are anonymized and locked instead, and removed
+     * in the background by {@link AccountPurgeService}, as are accounts with archived history, whose segments
+     * are rewritten outside the request.
+     */
     @Transactional
     public void deleteAccount(String email) {
         User user = getByEmail(email);
-        userRepo.delete(user);
-        log.info("Account deleted for {}", email);
+        outbox.lockAggregate(AggregateType.USER, user.getId());
+        if (archive.contains(user.getId())
+                || userRepo.countDependents(user.getId(), inlineDeleteLimit + 1) > inlineDeleteLimit) {
+            user.setEmail("deleted-" + user.getId() + "@purge.invalid");
+            user.setFullName(null);
+            user.setPasswordHash("!"); // not a BCrypt hash, so no password matches
+            user.setRole(AccountPurgeService.DELETED_ROLE);
+            userRepo.save(user);
+            log.info("Account {} of {} scheduled for purge", user.getId(), email);
+        } else {
+            reviewService.reviewsRemoved(userRepo.deleteDependents(user.getId()));
+            userRepo.delete(user);
+            log.info("Account deleted for {}", email);
+        }
+        outbox.publish(AggregateType.USER, user.getId(), "UserDeleted", Map.of("id", user.getId()));
     }
 }
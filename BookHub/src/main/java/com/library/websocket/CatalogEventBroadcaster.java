@@ -0,0 +1,41 @@
+package com.library.websocket;
+
+import com.library.entity.OutboxEvent;
+import com.library.entity.OutboxEvent.AggregateType;
+import com.library.outbox.OutboxConsumer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Pushes book and review events to connected realtime clients as {@code event:{...}} messages. Every
+ * instance broadcasts to its own sessions, so the position is per instance and not stored.
+ */
+@Component
+public class CatalogEventBroadcaster implements OutboxConsumer {
+    private final RealtimeWebSocketHandler handler;
+
+    public CatalogEventBroadcaster(RealtimeWebSocketHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public String name() {
+        return "websocket-broadcast";
+    }
+
+    @Override
+    public boolean durable() {
+        return false;
+    }
+
+    @Override
+    public void handle(List<OutboxEvent> events) {
+        if (handler.sessionCount() == 0) return;
+        for (OutboxEvent e : events) {
+            if (e.getAggregateType() == AggregateType.USER) continue;
+            handler.broadcast("event:{\"type\":\"" + e.getEventType() + "\",\"aggregate\":\"" + e.getAggregateType()
+                    + "\",\"id\":" + e.getAggregateId() + ",\"payload\":" + e.getPayload() + "}");
+        }
+    }
+}
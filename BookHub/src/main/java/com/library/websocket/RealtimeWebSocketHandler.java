@@ -1,34 +1,93 @@
 package com.library.websocket;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @Slf4j
 public class RealtimeWebSocketHandler extends TextWebSocketHandler {
 
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+
+    public RealtimeWebSocketHandler(
+            @Value("${app.websocket.send-time-limit-ms:5000}") int sendTimeLimitMs,
+            @Value("${app.websocket.buffer-size-limit:524288}") int bufferSizeLimit,
+            MeterRegistry meterRegistry) {
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        Gauge.builder("websocket.sessions", sessions, Map::size)
+                .description("Open realtime WebSocket sessions")
+                .register(meterRegistry);
+        Gauge.builder("websocket.send.buffer", this, RealtimeWebSocketHandler::bufferedBytes)
+                .description("Bytes queued for sending across all sessions")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private double bufferedBytes() {
+        long total = 0;
+        for (WebSocketSession s : sessions.values()) {
+            if (s instanceof ConcurrentWebSocketSessionDecorator d) total += d.getBufferSize();
+        }
+        return total;
+    }
+
+    int sessionCount() {
+        return sessions.size();
+    }
+
+    /** Sends a message to every open session; a session that fails to receive it is closed. */
+    void broadcast(String payload) {
+        TextMessage message = new TextMessage(payload);
+        for (WebSocketSession s : sessions.values()) {
+            try {
+                s.sendMessage(message);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Broadcast to {} failed: {}", s.getId(), e.getMessage());
+                try {
+                    s.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException ignored) {
+                    // afterConnectionClosed removes it either way
+                }
+            }
+        }
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws IOException {
         log.info("WebSocket connected: {}", session.getId());
-        session.sendMessage(new TextMessage("connected:" + Instant.now()));
+        // Sends may come from any request or background thread; the decorator serializes them per session
+        // and bounds the time and memory a slow client can hold.
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit);
+        sessions.put(session.getId(), concurrent);
+        concurrent.sendMessage(new TextMessage("connected:" + Instant.now()));
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
         String payload = message.getPayload();
         log.debug("WebSocket message from {}: {}", session.getId(), payload);
+        WebSocketSession target = sessions.getOrDefault(session.getId(), session);
         if ("ping".equalsIgnoreCase(payload.trim())) {
-            session.sendMessage(new TextMessage("pong:" + Instant.now()));
+            target.sendMessage(new TextMessage("pong:" + Instant.now()));
             return;
         }
-        session.sendMessage(new TextMessage("echo:" + payload));
+        target.sendMessage(new TextMessage("echo:" + payload));
     }
 
     @Override
@@ -38,6 +97,7 @@ public class RealtimeWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
         log.info("WebSocket disconnected: {} ({})", session.getId(), status);
     }
 }
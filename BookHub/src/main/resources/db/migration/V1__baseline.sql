@@ -0,0 +1,53 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update).
+
+create table users (
+    id            bigint generated by default as identity primary key,
+    email         varchar(255) not null constraint uk_users_email unique,
+    full_name     varchar(255),
+    password_hash varchar(255) not null,
+    role          varchar(255) not null
+);
+
+create table books (
+    id          bigint generated by default as identity primary key,
+    author      varchar(255) not null,
+    cover_url   varchar(255),
+    description varchar(5000),
+    genre       varchar(255),
+    pdf_url     varchar(255),
+    title       varchar(255) not null
+);
+
+create table reviews (
+    id         bigint generated by default as identity primary key,
+    comment    varchar(255),
+    created_at timestamp(6) with time zone not null,
+    rating     integer not null check (rating >= 1 and rating <= 5),
+    book_id    bigint not null constraint fk_reviews_book references books,
+    user_id    bigint not null constraint fk_reviews_user references users
+);
+
+create table favorites (
+    id      bigint generated by default as identity primary key,
+    book_id bigint not null constraint fk_favorites_book references books,
+    user_id bigint not null constraint fk_favorites_user references users,
+    constraint uk_favorites_user_id_book_id unique (user_id, book_id)
+);
+
+create table history (
+    id          bigint generated by default as identity primary key,
+    last_opened timestamp(6) with time zone not null,
+    book_id     bigint not null constraint fk_history_book references books,
+    user_id     bigint not null constraint fk_history_user references users
+);
+
+create table change_log (
+    id          bigint generated by default as identity primary key,
+    entity_type varchar(16) not null check (entity_type in ('BOOK', 'REVIEW', 'FAVORITE', 'HISTORY')),
+    entity_id   bigint not null,
+    user_id     bigint,
+    operation   varchar(8) not null check (operation in ('UPSERT', 'DELETE')),
+    changed_at  timestamp(6) with time zone not null
+);
+
+create index idx_change_log_user_id_id on change_log (user_id, id);
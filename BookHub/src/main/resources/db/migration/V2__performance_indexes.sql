@@ -0,0 +1,4 @@
+-- Spring Data's IgnoreCase finders compare upper(column), so the trigram and genre indexes use upper() too.
+-- The indexes themselves are built concurrently by V8, outside a transaction, so that upgrading a populated
+-- database does not block writes to books, reviews, favorites and history while they are built.
+create extension if not exists pg_trgm;
@@ -0,0 +1,24 @@
+-- Transactional outbox. tx_id is the writing transaction's id; the relay only reads transactions older than
+-- the oldest one still running, so events are never skipped when a later transaction commits first.
+create table outbox_events (
+    id             bigint generated by default as identity primary key,
+    tx_id          bigint not null default cast(cast(pg_current_xact_id() as text) as bigint),
+    aggregate_type varchar(16) not null check (aggregate_type in ('BOOK', 'REVIEW', 'USER')),
+    aggregate_id   bigint not null,
+    event_type     varchar(32) not null,
+    payload        text not null,
+    created_at     timestamp(6) with time zone not null
+);
+
+-- findVisibleAfter: (tx_id, id) range scans in delivery order.
+create index idx_outbox_events_tx_id_id on outbox_events (tx_id, id);
+-- deleteDeliveredBefore
+create index idx_outbox_events_created_at on outbox_events (created_at);
+
+-- Position of each durable consumer: the last delivered (tx_id, id).
+create table outbox_offsets (
+    consumer   varchar(64) primary key,
+    tx_id      bigint not null,
+    event_id   bigint not null,
+    updated_at timestamp(6) with time zone not null
+);
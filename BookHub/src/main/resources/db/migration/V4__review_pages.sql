@@ -0,0 +1,66 @@
+-- Review pages are read by keyset; their indexes are built concurrently by V8.
+
+-- Review count per rating and book, kept up to date by the statement triggers below, so the rating histogram
+-- and summary are a primary key lookup instead of an aggregate over the book's reviews.
+create table book_rating_stats (
+    book_id  bigint primary key constraint fk_book_rating_stats_book references books on delete cascade,
+    rating_1 bigint not null default 0,
+    rating_2 bigint not null default 0,
+    rating_3 bigint not null default 0,
+    rating_4 bigint not null default 0,
+    rating_5 bigint not null default 0
+);
+
+insert into book_rating_stats (book_id, rating_1, rating_2, rating_3, rating_4, rating_5)
+select book_id,
+       count(*) filter (where rating = 1), count(*) filter (where rating = 2), count(*) filter (where rating = 3),
+       count(*) filter (where rating = 4), count(*) filter (where rating = 5)
+from reviews
+group by book_id;
+
+-- Applies the rows a statement removed (old_rows) and added (new_rows), one update per book. Books are locked
+-- in id order, so concurrent bulk deletes touching the same books cannot deadlock on the counters. Bulk loads
+-- set bookhub.skip_rating_stats = on and add their rows afterwards.
+create function book_rating_stats_apply() returns trigger language plpgsql as $$
+begin
+    if current_setting('bookhub.skip_rating_stats', true) = 'on' then
+        return null;
+    end if;
+    if tg_op in ('DELETE', 'UPDATE') then
+        perform 1 from book_rating_stats where book_id in (select book_id from old_rows) order by book_id for update;
+        update book_rating_stats s
+        set rating_1 = s.rating_1 - d.rating_1, rating_2 = s.rating_2 - d.rating_2, rating_3 = s.rating_3 - d.rating_3,
+            rating_4 = s.rating_4 - d.rating_4, rating_5 = s.rating_5 - d.rating_5
+        from (select book_id,
+                     count(*) filter (where rating = 1) as rating_1, count(*) filter (where rating = 2) as rating_2,
+                     count(*) filter (where rating = 3) as rating_3, count(*) filter (where rating = 4) as rating_4,
+                     count(*) filter (where rating = 5) as rating_5
+              from old_rows group by book_id) d
+        where s.book_id = d.book_id;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        insert into book_rating_stats as s (book_id, rating_1, rating_2, rating_3, rating_4, rating_5)
+        select book_id,
+               count(*) filter (where rating = 1), count(*) filter (where rating = 2), count(*) filter (where rating = 3),
+               count(*) filter (where rating = 4), count(*) filter (where rating = 5)
+        from new_rows
+        group by book_id
+        order by book_id
+        on conflict (book_id) do update
+        set rating_1 = s.rating_1 + excluded.rating_1, rating_2 = s.rating_2 + excluded.rating_2,
+            rating_3 = s.rating_3 + excluded.rating_3, rating_4 = s.rating_4 + excluded.rating_4,
+            rating_5 = s.rating_5 + excluded.rating_5;
+    end if;
+    return null;
+end
+$$;
+
+-- Transition tables allow a single event per trigger.
+create trigger reviews_rating_stats_insert after insert on reviews
+    referencing new table as new_rows for each statement execute function book_rating_stats_apply();
+create trigger reviews_rating_stats_update after update on reviews
+    referencing old table as old_rows new table as new_rows for each statement execute function book_rating_stats_apply();
+create trigger reviews_rating_stats_delete after delete on reviews
+    referencing old table as old_rows for each statement execute function book_rating_stats_apply();
+
+analyze book_rating_stats;
@@ -0,0 +1,7 @@
+-- Delta sync reads the change log by (tx_id, id) and only from transactions older than the oldest one still
+-- running, like the outbox relay. Ids are assigned at insert, not at commit, so reading by id alone skipped
+-- entries whose transaction committed after a higher id had already been returned. Existing rows are all
+-- committed and keep tx_id 0, which sorts them first in id order.
+alter table change_log add column tx_id bigint not null default 0;
+alter table change_log alter column tx_id set default cast(cast(pg_current_xact_id() as text) as bigint);
+-- The (user_id, tx_id, id) index replacing idx_change_log_user_id_id is built concurrently by V8.
@@ -0,0 +1,4 @@
+-- History pages are read by keyset on (last_opened, id). With id in the index the whole cursor is a range
+-- bound of the scan instead of a filter on the rows sharing the cursor's timestamp. Built concurrently, so
+-- history writes continue during the build; see the .conf file next to this script.
+create index concurrently if not exists idx_history_user_id_last_opened on history (user_id, last_opened desc, id desc);
@@ -0,0 +1,3 @@
+-- The catalog read model replays book and review entries of all users by (tx_id, id). Built concurrently, so
+-- writes to change_log continue during the build; see the .conf file next to this script.
+create index concurrently idx_change_log_tx_id_id on change_log (tx_id, id);
@@ -0,0 +1,40 @@
+-- Indexes on tables that already hold data, built without blocking writes; see the .conf file next to this
+-- script. A build that fails leaves an invalid index behind: drop it before running the migration again.
+
+-- findByTitleContainingIgnoreCase / findByAuthorContainingIgnoreCase: like '%term%' needs trigrams.
+create index concurrently if not exists idx_books_title_trgm on books using gin (upper(title) gin_trgm_ops);
+create index concurrently if not exists idx_books_author_trgm on books using gin (upper(author) gin_trgm_ops);
+
+-- findByGenreIgnoreCase
+create index concurrently if not exists idx_books_genre_upper on books (upper(genre));
+
+-- findTopGenres only groups non-empty genres.
+create index concurrently if not exists idx_books_genre_nonempty on books (genre) where genre is not null and genre <> '';
+
+-- Review pages (V4) are read by keyset: (created_at, id) for the newest first, (rating, created_at, id) for
+-- the rating sorts. The id tie-breaker makes each position unique. Also findByBookId and the books FK on delete.
+create index concurrently if not exists idx_reviews_book_id_created_at on reviews (book_id, created_at desc, id desc);
+create index concurrently if not exists idx_reviews_book_id_rating_desc on reviews (book_id, rating desc, created_at desc, id desc);
+create index concurrently if not exists idx_reviews_book_id_rating_asc on reviews (book_id, rating, created_at desc, id desc);
+
+-- existsByUserIdAndBookId / findByUserIdAndBookId and the users FK on delete.
+create index concurrently if not exists idx_reviews_user_id_book_id on reviews (user_id, book_id);
+-- countByCreatedAtAfter
+create index concurrently if not exists idx_reviews_created_at on reviews (created_at);
+
+-- favorites(user_id, book_id) is covered by its unique constraint; book_id is needed for deletes.
+create index concurrently if not exists idx_favorites_book_id on favorites (book_id);
+
+-- findTrendingBookIds
+create index concurrently if not exists idx_history_last_opened on history (last_opened);
+create index concurrently if not exists idx_history_book_id on history (book_id);
+
+-- Delta sync (V5) reads a user's change log by (tx_id, id).
+create index concurrently if not exists idx_change_log_user_id_tx_id_id on change_log (user_id, tx_id, id);
+drop index concurrently if exists idx_change_log_user_id_id;
+
+analyze books;
+analyze reviews;
+analyze favorites;
+analyze history;
+analyze change_log;
@@ -0,0 +1,128 @@
+package com.library;
+
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.repository.FavoriteRepository;
+import com.library.repository.ReviewRepository;
+import com.library.repository.UserRepository;
+import com.library.service.AccountPurgeService;
+import com.library.service.BookService;
+import com.library.service.FavoriteService;
+import com.library.service.HistoryService;
+import com.library.service.ReviewService;
+import com.library.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"app.purge.inline-limit=4", "app.purge.chunk-size=2"})
+class AccountDeletionIntegrationTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountPurgeService purgeService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private FavoriteService favoriteService;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Test
+    void smallAccountIsDeletedWithItsRowsAtOnce() {
+        User user = createUser();
+        Book book = createBook(null);
+        reviewService.add(user.getEmail(), book.getId(), 5, "Gone soon");
+        favoriteService.add(user.getEmail(), book.getId());
+
+        userService.deleteAccount(user.getEmail());
+
+        assertThat(userRepository.findById(user.getId())).isEmpty();
+        assertThat(reviewRepository.findByBookId(book.getId())).isEmpty();
+    }
+
+    @Test
+    void largeAccountIsLockedAndPurgedInChunks() {
+        User user = createUser();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Book book = createBook(null);
+            books.add(book);
+            reviewService.add(user.getEmail(), book.getId(), 4, "Review " + i);
+            favoriteService.add(user.getEmail(), book.getId());
+            historyService.recordView(user.getEmail(), book.getId());
+        }
+
+        userService.deleteAccount(user.getEmail());
+
+        assertThat(userRepository.findByEmail(user.getEmail())).isEmpty();
+        assertThat(userRepository.findById(user.getId())).get()
+                .extracting(User::getRole).isEqualTo(AccountPurgeService.DELETED_ROLE);
+
+        purgeService.purgeDeletedAccounts();
+
+        assertThat(userRepository.findById(user.getId())).isEmpty();
+        assertThat(favoriteRepository.findBookIdsByUserId(user.getId())).isEmpty();
+        books.forEach(book -> assertThat(reviewRepository.findByBookId(book.getId())).isEmpty());
+    }
+
+    @Test
+    void deletingBookRemovesDependentsAndUploads() throws Exception {
+        Path cover = Path.of("./uploads", "cover-" + UUID.randomUUID() + ".png");
+        Files.createDirectories(cover.getParent());
+        Files.write(cover, new byte[]{1, 2, 3});
+        Book book = createBook("/uploads/" + cover.getFileName());
+        User user = createUser();
+        reviewService.add(user.getEmail(), book.getId(), 3, "Meh");
+        favoriteService.add(user.getEmail(), book.getId());
+        historyService.recordView(user.getEmail(), book.getId());
+
+        bookService.deleteBook(book.getId());
+
+        assertThat(reviewRepository.findByBookId(book.getId())).isEmpty();
+        assertThat(favoriteRepository.findBookIdsByUserId(user.getId())).isEmpty();
+        assertThat(cover).doesNotExist();
+    }
+
+    private User createUser() {
+        return userRepository.save(User.builder()
+                .email("purge-" + UUID.randomUUID() + "@example.com")
+                .passwordHash("x")
+                .fullName("Purge User")
+                .role("ROLE_USER")
+                .build());
+    }
+
+    private Book createBook(String coverUrl) {
+        return bookService.addBook(Book.builder()
+                .title("Purge " + UUID.randomUUID())
+                .author("Purge Author")
+                .coverUrl(coverUrl)
+                .build());
+    }
+}
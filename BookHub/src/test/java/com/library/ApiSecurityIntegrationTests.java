@@ -12,7 +12,9 @@ import org.springframework.http.MediaType;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -150,6 +152,45 @@ class ApiSecurityIntegrationTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getUnknownBookDetailReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/api/books/999999999/detail"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getBooksBatchSkipsUnknownIds() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/books/batch").param("ids", "999999998,999999999"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode json = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertThat(json.isArray()).isTrue();
+        assertThat(json.size()).isZero();
+    }
+
+    @Test
+    void batchSubRequestsRunInProcessWithTheCallersAuthentication() throws Exception {
+        String token = loginAndGetToken("user1@library.com", "user123");
+        String payload = objectMapper.writeValueAsString(Map.of("requests", List.of(
+                Map.of("id", "missing", "path", "/api/books/999999999"),
+                Map.of("id", "favorites", "path", "/api/favorites"))));
+
+        JsonNode signedIn = batch(payload, token);
+        assertThat(signedIn.at("/responses/0/status").asInt()).isEqualTo(404);
+        assertThat(signedIn.at("/responses/1/status").asInt()).isEqualTo(200);
+
+        JsonNode anonymous = batch(payload, null);
+        assertThat(anonymous.at("/responses/1/status").asInt()).isIn(401, 403);
+    }
+
+    private JsonNode batch(String payload, String token) throws Exception {
+        MockHttpServletRequestBuilder request = post("/api/batch").contentType(MediaType.APPLICATION_JSON).content(payload);
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
     private void ensureAdminCredentials() {
         User admin = userRepository.findByEmail("admin@library.com")
                 .orElseGet(() -> User.builder()
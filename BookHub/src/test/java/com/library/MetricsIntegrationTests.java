@@ -0,0 +1,74 @@
+package com.library;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void prometheusEndpointExportsRequestSecurityAndQueryMetrics() throws Exception {
+        login("user1@library.com", "user123");
+        mockMvc.perform(get("/api/books/999999999")).andExpect(status().isNotFound());
+        String adminToken = login("admin@library.com", "admin123");
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(metrics)
+                .contains("http_server_requests_seconds_bucket")
+                .contains("security_password_hash_seconds_count")
+                .contains("spring_data_repository_invocations_seconds_count")
+                .contains("hikaricp_connections_active")
+                .contains("websocket_sessions");
+    }
+
+    @Test
+    void actuatorEndpointsOtherThanHealthAreNotPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+
+        for (String endpoint : new String[]{"/actuator/metrics", "/actuator/prometheus"}) {
+            int status = mockMvc.perform(get(endpoint)).andReturn().getResponse().getStatus();
+            assertThat(status).as(endpoint).isIn(401, 403);
+        }
+    }
+
+    @Test
+    void prometheusEndpointIsAdminOnly() throws Exception {
+        String userToken = login("user1@library.com", "user123");
+
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+    }
+
+    private String login(String email, String password) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("email", email, "password", password))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).path("token").asText();
+    }
+}
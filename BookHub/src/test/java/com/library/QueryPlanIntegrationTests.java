@@ -0,0 +1,86 @@
+package com.library;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the SQL behind the main repository finders can be served by the indexes from
+ * V2__performance_indexes.sql. Sequential scans are disabled so the result does not depend on table size.
+ */
+@SpringBootTest
+class QueryPlanIntegrationTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "idx_books_title_trgm            | select * from books where upper(title) like upper('%orwell%')",
+            "idx_books_author_trgm           | select * from books where upper(title) like upper('%orwell%') or upper(author) like upper('%orwell%')",
+            "idx_books_genre_upper           | select * from books where upper(genre) = upper('fantasy')",
+            "idx_books_genre_nonempty        | select genre from books where genre is not null and genre <> '' group by genre order by count(*) desc limit 1",
+            "idx_reviews_book_id_created_at  | select * from reviews where book_id = 1 order by created_at desc limit 10",
+            "idx_reviews_book_id_rating_desc | select * from reviews where book_id = 1 order by rating desc, created_at desc, id desc limit 10",
+            "idx_reviews_book_id_rating_asc  | select * from reviews where book_id = 1 order by rating, created_at desc, id desc limit 10",
+            "book_rating_stats_pkey          | select * from book_rating_stats where book_id = 1",
+            "idx_reviews_user_id_book_id     | select * from reviews where user_id = 1 and book_id = 1",
+            "idx_history_user_id_last_opened | select * from history where user_id = 1 order by last_opened desc, id desc",
+            "idx_history_last_opened         | select book_id from history where last_opened >= now() - interval '7 days' group by book_id",
+            "idx_change_log_user_id_tx_id_id | select * from change_log where user_id = 1 and (tx_id, id) > (5, 10) order by tx_id, id limit 500",
+            "idx_change_log_user_id_tx_id_id | select * from change_log where user_id is null and (tx_id, id) > (5, 10) order by tx_id, id limit 500"
+    })
+    void queryUsesIndex(String index, String sql) {
+        String plan = String.join("\n", explain(sql));
+
+        assertThat(plan).contains(index).doesNotContain("Seq Scan");
+    }
+
+    /** The cursor of the *After / *Before page queries must bound the index scan, not filter its rows. */
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "idx_reviews_book_id_created_at  | created_at  | select * from reviews where book_id = 1 "
+                    + "and (created_at, id) < ('2024-01-01', 10) order by created_at desc, id desc limit 10",
+            "idx_reviews_book_id_rating_desc | created_at  | select * from reviews where book_id = 1 "
+                    + "and (rating, created_at, id) < (4, '2024-01-01', 10) order by rating desc, created_at desc, id desc limit 10",
+            "idx_reviews_book_id_rating_asc  | rating >= 2 | select * from reviews where book_id = 1 and rating >= 2 "
+                    + "and (rating > 2 or (rating = 2 and (created_at, id) < ('2024-01-01', 10))) "
+                    + "order by rating, created_at desc, id desc limit 10",
+            "idx_history_user_id_last_opened | last_opened | select * from history where user_id = 1 "
+                    + "and (last_opened, id) < ('2024-01-01', 10) order by last_opened desc, id desc limit 20"
+    })
+    void keysetCursorBoundsTheIndexScan(String index, String bound, String sql) {
+        String plan = String.join("\n", explain(sql));
+
+        assertThat(plan).contains(index).doesNotContain("Seq Scan").doesNotContain("Sort");
+        assertThat(plan.lines().filter(line -> line.contains("Index Cond:"))).anyMatch(line -> line.contains(bound));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "select * from favorites where user_id = 1",
+            "select 1 from favorites where user_id = 1 and book_id = 1"
+    })
+    void favoritesLookupUsesUniqueIndex(String sql) {
+        assertThat(String.join("\n", explain(sql))).doesNotContain("Seq Scan");
+    }
+
+    private List<String> explain(String sql) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return tx.execute(status -> {
+            jdbcTemplate.execute("set local enable_seqscan = off");
+            return jdbcTemplate.queryForList("explain " + sql, String.class);
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package com.library;
+
+import com.library.dto.ReviewDTO;
+import com.library.dto.ReviewPageDTO;
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.repository.UserRepository;
+import com.library.service.BookService;
+import com.library.service.ReviewService;
+import com.library.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReviewPageIntegrationTests {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void pagesThroughEachSortWithoutGapsOrDuplicates() {
+        Book book = createBook();
+        int[] ratings = {3, 5, 1, 5, 4};
+        for (int rating : ratings) reviewService.add(createUser().getEmail(), book.getId(), rating, "Rated " + rating);
+
+        assertThat(readAll(book, ReviewService.Sort.HIGHEST)).extracting(ReviewDTO::getRating).containsExactly(5, 5, 4, 3, 1);
+        assertThat(readAll(book, ReviewService.Sort.LOWEST)).extracting(ReviewDTO::getRating).containsExactly(1, 3, 4, 5, 5);
+        List<ReviewDTO> newest = readAll(book, ReviewService.Sort.NEWEST);
+        assertThat(newest).extracting(ReviewDTO::getRating).containsExactly(4, 5, 1, 5, 3);
+        assertThat(newest).allSatisfy(r -> assertThat(r.getUserName()).isEqualTo("Page Reader"));
+    }
+
+    @Test
+    void histogramFollowsReviewChanges() {
+        Book book = createBook();
+        User first = createUser();
+        User second = createUser();
+        reviewService.add(first.getEmail(), book.getId(), 2, "Meh");
+        reviewService.add(second.getEmail(), book.getId(), 4, "Good");
+
+        reviewService.update(first.getEmail(), book.getId(), 5, "Grew on me");
+        userService.deleteAccount(second.getEmail());
+
+        ReviewPageDTO page = reviewService.page(book.getId(), ReviewService.Sort.NEWEST, null, 10);
+        assertThat(page.getRating().getCounts()).containsExactly(0L, 0L, 0L, 0L, 1L);
+        assertThat(page.getRating().getCount()).isEqualTo(1);
+        assertThat(page.getRating().getAverage()).isEqualTo(5.0);
+    }
+
+    private List<ReviewDTO> readAll(Book book, ReviewService.Sort sort) {
+        List<ReviewDTO> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            ReviewPageDTO page = reviewService.page(book.getId(), sort, cursor, 2);
+            all.addAll(page.getItems());
+            assertThat(page.getRating().getCount()).isEqualTo(5);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    private User createUser() {
+        return userRepository.save(User.builder()
+                .email("page-" + UUID.randomUUID() + "@example.com")
+                .passwordHash("x")
+                .fullName("Page Reader")
+                .role("ROLE_USER")
+                .build());
+    }
+
+    private Book createBook() {
+        return bookService.addBook(Book.builder()
+                .title("Reviews " + UUID.randomUUID())
+                .author("Page Author")
+                .build());
+    }
+}
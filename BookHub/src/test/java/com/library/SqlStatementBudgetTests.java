@@ -0,0 +1,427 @@
+package com.library;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.repository.UserRepository;
+import com.library.security.JwtService;
+import com.library.service.BookService;
+import com.library.service.FavoriteService;
+import com.library.service.FeedService;
+import com.library.service.HistoryService;
+import com.library.service.ReviewService;
+import com.library.support.SqlBudget;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets per endpoint. List endpoints are exercised with several rows owned by different users,
+ * so an N+1 mapping pushes the count over budget. An authenticated request costs one extra statement for the
+ * user lookup in the JWT filter, every write one more for its outbox event, and a write to an existing book,
+ * review or account one more for the aggregate lock that orders its events. POST /api/batch is not listed:
+ * it only forwards to the endpoints below.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SqlStatementBudgetTests {
+    private static final int ROWS = 5;
+    private static final String PASSWORD = "budget123";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private FavoriteService favoriteService;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private FeedService feedService;
+
+    private String passwordHash;
+    private User user;
+    private String userToken;
+    private String adminToken;
+    private Book reviewedBook;
+    private final List<Book> books = new ArrayList<>();
+
+    @BeforeAll
+    void createFixture() {
+        passwordHash = passwordEncoder.encode(PASSWORD);
+        user = createUser("ROLE_USER");
+        userToken = token(user);
+        adminToken = token(createUser("ROLE_ADMIN"));
+
+        reviewedBook = createBook();
+        for (int i = 0; i < ROWS; i++) {
+            reviewService.add(createUser("ROLE_USER").getEmail(), reviewedBook.getId(), 1 + i % 5, "Review " + i);
+            Book book = createBook();
+            books.add(book);
+            favoriteService.add(user.getEmail(), book.getId());
+            historyService.recordView(user.getEmail(), book.getId());
+        }
+        reviewService.add(user.getEmail(), reviewedBook.getId(), 5, "Own review");
+    }
+
+    // Catalog
+
+    @Test
+    void listBooks() throws Exception {
+        expect(2, get("/api/books").param("page", "0").param("size", "20"));
+    }
+
+    @Test
+    void listBooksByRating() throws Exception {
+        expect(3, get("/api/books").param("sort", "rating,desc"));
+    }
+
+    @Test
+    void getBooksBatch() throws Exception {
+        expect(1, get("/api/books/batch").param("ids", ids(books)));
+    }
+
+    @Test
+    void getBookAnonymously() throws Exception {
+        expect(1, get("/api/books/" + reviewedBook.getId()));
+    }
+
+    @Test
+    void getBookRecordsHistory() throws Exception {
+        // filter, user, book, history insert, change log insert, book
+        expect(6, auth(get("/api/books/" + reviewedBook.getId()), userToken));
+    }
+
+    @Test
+    void getBookDetail() throws Exception {
+        expect(3, get("/api/books/" + reviewedBook.getId() + "/detail"));
+    }
+
+    @Test
+    void getSimilarBooks() throws Exception {
+        expect(2, get("/api/books/" + reviewedBook.getId() + "/similar"));
+    }
+
+    @Test
+    void searchBooks() throws Exception {
+        expect(1, get("/api/books/search").param("q", "Budget"));
+    }
+
+    @Test
+    void sortedBooks() throws Exception {
+        expect(2, get("/api/books/sorted").param("size", "20"));
+    }
+
+    @Test
+    void topBooks() throws Exception {
+        expect(2, get("/api/books/top"));
+    }
+
+    @Test
+    void topBooksByGenre() throws Exception {
+        expect(3, get("/api/books/genre/top").param("genre", "Budget"));
+    }
+
+    @Test
+    void booksByGenre() throws Exception {
+        expect(1, get("/api/books/genre").param("genre", "Budget"));
+    }
+
+    @Test
+    void graphQlBooks() throws Exception {
+        expect(1, graphQl("{ books { id title } }"));
+    }
+
+    @Test
+    void graphQlBookById() throws Exception {
+        expect(1, graphQl("{ bookById(id: " + reviewedBook.getId() + ") { id title } }"));
+    }
+
+    // Catalog administration
+
+    @Test
+    void createBookAsAdmin() throws Exception {
+        expect(4, auth(json(post("/api/books"), Map.of("title", "Budget new", "author", "Budget Author")), adminToken));
+    }
+
+    @Test
+    void updateBook() throws Exception {
+        Book book = createBook();
+        expect(6, auth(json(put("/api/books/" + book.getId()), Map.of("title", "Budget updated", "author", "Budget Author")), adminToken));
+    }
+
+    @Test
+    void deleteBook() throws Exception {
+        Book book = createBook();
+        for (int i = 0; i < ROWS; i++) {
+            User reader = createUser("ROLE_USER");
+            reviewService.add(reader.getEmail(), book.getId(), 4, "Doomed " + i);
+            favoriteService.add(reader.getEmail(), book.getId());
+            historyService.recordView(reader.getEmail(), book.getId());
+        }
+        expect(7, auth(delete("/api/books/" + book.getId()), adminToken), 204);
+    }
+
+    @Test
+    void uploadCover() throws Exception {
+        Book book = createBook();
+        MockMultipartFile file = new MockMultipartFile("file", "cover.png", "image/png", new byte[]{1, 2, 3});
+        expect(7, auth(multipart("/api/books/" + book.getId() + "/cover").file(file), adminToken));
+    }
+
+    @Test
+    void uploadPdf() throws Exception {
+        Book book = createBook();
+        MockMultipartFile file = new MockMultipartFile("file", "book.pdf", "application/pdf", new byte[]{1, 2, 3});
+        expect(7, auth(multipart("/api/books/" + book.getId() + "/pdf").file(file), adminToken));
+    }
+
+    @Test
+    void adminStats() throws Exception {
+        expect(8, auth(get("/api/admin/stats"), adminToken));
+    }
+
+    @Test
+    void adminExtendedStats() throws Exception {
+        expect(8, auth(get("/api/admin/stats/extended"), adminToken));
+    }
+
+    // Reviews
+
+    @Test
+    void listReviews() throws Exception {
+        expect(1, get("/api/reviews/" + reviewedBook.getId()));
+    }
+
+    @Test
+    void reviewPage() throws Exception {
+        // page with reviewer names, rating histogram
+        expect(2, get("/api/reviews/" + reviewedBook.getId() + "/page").param("sort", "highest"));
+    }
+
+    @Test
+    void reviewPageAfterCursor() throws Exception {
+        String cursor = reviewService.page(reviewedBook.getId(), ReviewService.Sort.HIGHEST, null, 2).getNextCursor();
+        expect(2, get("/api/reviews/" + reviewedBook.getId() + "/page").param("sort", "highest").param("cursor", cursor).param("size", "2"));
+    }
+
+    @Test
+    void addReview() throws Exception {
+        Book book = createBook();
+        expect(7, auth(json(post("/api/reviews/" + book.getId()), Map.of("rating", 4, "comment", "Budget")), userToken));
+    }
+
+    @Test
+    void updateReview() throws Exception {
+        Book book = createBook();
+        reviewService.add(user.getEmail(), book.getId(), 3, "Before");
+        expect(7, auth(json(put("/api/reviews/" + book.getId()), Map.of("rating", 4, "comment", "After")), userToken));
+    }
+
+    @Test
+    void deleteReview() throws Exception {
+        Book book = createBook();
+        reviewService.add(user.getEmail(), book.getId(), 3, "Gone soon");
+        expect(7, auth(delete("/api/reviews/" + book.getId()), userToken), 204);
+    }
+
+    // Per-user data
+
+    @Test
+    void listFavorites() throws Exception {
+        expect(3, auth(get("/api/favorites"), userToken));
+    }
+
+    @Test
+    void addFavorite() throws Exception {
+        Book book = createBook();
+        expect(8, auth(post("/api/favorites").param("bookId", book.getId().toString()), userToken));
+    }
+
+    @Test
+    void removeFavorite() throws Exception {
+        Book book = createBook();
+        favoriteService.add(user.getEmail(), book.getId());
+        expect(6, auth(delete("/api/favorites").param("bookId", book.getId().toString()), userToken), 204);
+    }
+
+    @Test
+    void favoriteFlags() throws Exception {
+        // filter, user, favorite ids on a cold cache
+        expect(3, auth(get("/api/favorites/flags").param("ids", "1,2,3"), userToken));
+    }
+
+    @Test
+    void addFavoritesInBulk() throws Exception {
+        Book first = createBook();
+        Book second = createBook();
+        // filter, user, aggregate lock, favorites and change log insert, outbox per book
+        expect(6, auth(post("/api/favorites/bulk").param("bookIds", first.getId() + "," + second.getId()), userToken));
+    }
+
+    @Test
+    void removeFavoritesInBulk() throws Exception {
+        Book first = createBook();
+        Book second = createBook();
+        favoriteService.addAll(user.getEmail(), List.of(first.getId(), second.getId()));
+        expect(6, auth(delete("/api/favorites/bulk").param("bookIds", first.getId() + "," + second.getId()), userToken));
+    }
+
+    @Test
+    void listHistory() throws Exception {
+        expect(3, auth(get("/api/history"), userToken));
+    }
+
+    @Test
+    void historyPageAfterCursor() throws Exception {
+        String cursor = historyService.page(user.getEmail(), null, 2).getNextCursor();
+        expect(3, auth(get("/api/history").param("cursor", cursor).param("size", "2"), userToken));
+    }
+
+    @Test
+    void getFeed() throws Exception {
+        feedService.getFeed(user.getEmail());
+        expect(2, auth(get("/api/feed"), userToken));
+    }
+
+    @Test
+    void syncFromScratch() throws Exception {
+        // filter, user, catalog and user change scans, then one load per entity type
+        expect(8, auth(get("/api/sync").param("since", "0").param("limit", "5000"), userToken));
+    }
+
+    // Account
+
+    @Test
+    void login() throws Exception {
+        expect(1, json(post("/api/auth/login"), Map.of("email", user.getEmail(), "password", PASSWORD)));
+    }
+
+    @Test
+    void register() throws Exception {
+        expect(2, json(post("/api/auth/register"), Map.of("email", uniqueEmail(), "password", PASSWORD, "fullName", "Budget")));
+    }
+
+    @Test
+    void refreshToken() throws Exception {
+        expect(2, auth(post("/api/auth/refresh"), userToken));
+    }
+
+    @Test
+    void resetPassword() throws Exception {
+        User other = createUser("ROLE_USER");
+        // filter, user, then merge of the detached user (select + update)
+        expect(4, auth(json(post("/api/auth/reset"), Map.of("currentPassword", PASSWORD, "newPassword", "budget456")), token(other)));
+    }
+
+    @Test
+    void me() throws Exception {
+        expect(2, auth(get("/api/users/me"), userToken));
+    }
+
+    @Test
+    void updateProfile() throws Exception {
+        User other = createUser("ROLE_USER");
+        expect(5, auth(json(post("/api/users/update"), Map.of("fullName", "Budget Renamed")), token(other)));
+    }
+
+    @Test
+    void deleteAccount() throws Exception {
+        User other = createUser("ROLE_USER");
+        for (Book book : books) {
+            reviewService.add(other.getEmail(), book.getId(), 3, "Leaving");
+            favoriteService.add(other.getEmail(), book.getId());
+            historyService.recordView(other.getEmail(), book.getId());
+        }
+        expect(7, auth(delete("/api/users/delete"), token(other)));
+    }
+
+    private void expect(int budget, MockHttpServletRequestBuilder request) throws Exception {
+        expect(budget, request, 200);
+    }
+
+    private void expect(int budget, MockHttpServletRequestBuilder request, int expectedStatus) throws Exception {
+        SqlBudget.assertAtMost(budget, () -> mockMvc.perform(request).andExpect(status().is(expectedStatus)));
+    }
+
+    private MockHttpServletRequestBuilder graphQl(String query) throws Exception {
+        return json(post("/graphql"), Map.of("query", query));
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+
+    private static MockHttpServletRequestBuilder auth(MockHttpServletRequestBuilder request, String token) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    private User createUser(String role) {
+        return userRepository.save(User.builder()
+                .email(uniqueEmail())
+                .passwordHash(passwordHash)
+                .fullName("Budget User")
+                .role(role)
+                .build());
+    }
+
+    private Book createBook() {
+        return bookService.addBook(Book.builder()
+                .title("Budget " + UUID.randomUUID())
+                .author("Budget Author")
+                .genre("Budget")
+                .build());
+    }
+
+    private String token(User u) {
+        return jwtService.generateToken(u.getEmail(), u.getRole());
+    }
+
+    private static String uniqueEmail() {
+        return "budget+" + UUID.randomUUID() + "@example.com";
+    }
+
+    private static String ids(List<Book> list) {
+        return String.join(",", list.stream().map(b -> b.getId().toString()).toList());
+    }
+}
@@ -0,0 +1,180 @@
+package com.library.catalog;
+
+import com.library.dto.BookDTO;
+import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry;
+import com.library.entity.ChangeLogEntry.EntityType;
+import com.library.entity.ChangeLogEntry.Operation;
+import com.library.repository.BookRepository;
+import com.library.repository.ChangeLogRepository;
+import com.library.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogReadModelTests {
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final ReviewRepository reviewRepo = mock(ReviewRepository.class);
+    private final ChangeLogRepository changeLogRepo = mock(ChangeLogRepository.class);
+    private CatalogReadModel catalog;
+
+    @BeforeEach
+    void setUp() {
+        List<Book> books = List.of(
+                book(1L, "Clean Code", "Robert C. Martin", "Programming"),
+                book(2L, "animal Farm", "George Orwell", "Dystopia"),
+                book(3L, "The Hobbit", "J.R.R. Tolkien", "Fantasy"),
+                book(4L, "1984", "George Orwell", "dystopia"));
+        when(bookRepo.count()).thenReturn((long) books.size());
+        when(bookRepo.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenReturn(books);
+        when(reviewRepo.sumRatingsByBook()).thenReturn(rows(new Object[]{1L, 2L, 7L}, new Object[]{4L, 1L, 5L}));
+        catalog = new CatalogReadModel(bookRepo, reviewRepo, changeLogRepo, true, 1_000, "", 10);
+        catalog.rebuild();
+    }
+
+    @Test
+    void sortsByTitleIgnoringCaseInBothDirections() {
+        assertThat(ids(catalog.page(PageRequest.of(0, 10, Sort.by("title"))).orElseThrow()))
+                .containsExactly(4L, 2L, 1L, 3L);
+        assertThat(ids(catalog.page(PageRequest.of(0, 2, Sort.by("title").descending())).orElseThrow()))
+                .containsExactly(3L, 1L);
+    }
+
+    @Test
+    void pagesCarryTheTotalAndStopAtTheEnd() {
+        Page<BookDTO> page = catalog.page(PageRequest.of(1, 3, Sort.by("author"))).orElseThrow();
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(ids(page)).containsExactly(1L);
+    }
+
+    @Test
+    void ratingSortListsOnlyReviewedBooksBestFirst() {
+        Page<BookDTO> page = catalog.page(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "rating"))).orElseThrow();
+
+        assertThat(ids(page)).containsExactly(4L, 1L);
+        assertThat(catalog.top(1).orElseThrow()).extracting(BookDTO::getId).containsExactly(4L);
+    }
+
+    @Test
+    void ratingSortIsWorstFirstByDefault() {
+        assertThat(ids(catalog.page(PageRequest.of(0, 10, Sort.by("rating"))).orElseThrow())).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void filtersByGenreIgnoringCase() {
+        assertThat(catalog.byGenre("DYSTOPIA").orElseThrow()).extracting(BookDTO::getId).containsExactlyInAnyOrder(2L, 4L);
+        assertThat(catalog.byGenre("Poetry").orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void unsupportedSortFallsBackToTheDatabase() {
+        assertThat(catalog.page(PageRequest.of(0, 10, Sort.by("genre")))).isEmpty();
+    }
+
+    @Test
+    void patchesChangedBooksAndRatings() {
+        when(bookRepo.findAllById(anyIterable())).thenReturn(List.of(
+                book(2L, "Zoo", "George Orwell", "Dystopia"),
+                book(5L, "Brave New World", "Aldous Huxley", "Dystopia")));
+        when(reviewRepo.sumRatingsByBookIds(anyCollection())).thenReturn(rows(new Object[]{3L, 1L, 5L}));
+        catalog.bookChanged(2L);
+        catalog.bookChanged(5L);
+        catalog.bookChanged(1L);
+        catalog.ratingChanged(3L);
+        catalog.ratingChanged(4L);
+
+        catalog.applyPending();
+
+        assertThat(ids(catalog.page(PageRequest.of(0, 10, Sort.by("title"))).orElseThrow()))
+                .containsExactly(4L, 5L, 3L, 2L);
+        assertThat(catalog.top(10).orElseThrow()).extracting(BookDTO::getId).containsExactly(3L);
+        assertThat(catalog.byGenre("dystopia").orElseThrow()).extracting(BookDTO::getId).containsExactlyInAnyOrder(2L, 4L, 5L);
+    }
+
+    @Test
+    void ratingOrderPullsFewReviewsTowardsTheOverallAverage() {
+        // The overall average at build time is 4.0: one 5-star review scores (10 * 4 + 5) / 11.
+        when(reviewRepo.sumRatingsByBookIds(anyCollection())).thenReturn(rows(
+                new Object[]{1L, 1_000L, 4_800L}, new Object[]{2L, 4L, 20L}, new Object[]{3L, 1L, 5L}));
+        catalog.ratingChanged(1L);
+        catalog.ratingChanged(2L);
+        catalog.ratingChanged(3L);
+
+        catalog.applyPending();
+
+        assertThat(catalog.top(10).orElseThrow()).extracting(BookDTO::getId).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(ids(catalog.genreByRating("DYSTOPIA", PageRequest.of(0, 10)).orElseThrow())).containsExactly(2L, 4L);
+        assertThat(ids(catalog.genreByRating("fantasy", PageRequest.of(0, 10)).orElseThrow())).containsExactly(3L);
+        assertThat(catalog.genreByRating("Poetry", PageRequest.of(0, 10)).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void ratingOnlyPatchDropsBooksWithoutReviewsAndIgnoresUnknownBooks() {
+        when(reviewRepo.sumRatingsByBookIds(anyCollection())).thenReturn(rows(new Object[]{2L, 3L, 15L}));
+        catalog.ratingChanged(2L);
+        catalog.ratingChanged(4L);
+        catalog.ratingChanged(9L);
+
+        catalog.applyPending();
+
+        assertThat(catalog.top(10).orElseThrow()).extracting(BookDTO::getId).containsExactly(2L, 1L);
+        assertThat(ids(catalog.genreByRating("dystopia", PageRequest.of(0, 10)).orElseThrow())).containsExactly(2L);
+        assertThat(ids(catalog.page(PageRequest.of(0, 10, Sort.by("title"))).orElseThrow()))
+                .containsExactly(4L, 2L, 1L, 3L);
+    }
+
+    @Test
+    void replaysEntriesOfTransactionsThatCommitLateByPosition() {
+        when(changeLogRepo.findVisibleHorizon()).thenReturn(100L);
+        catalog.rebuild();
+        // Transaction 102 wrote entry 40 before 101 wrote entry 50 but committed after it.
+        when(changeLogRepo.findChangesAfter(eq(100L), eq(0L), anyCollection(), anyInt())).thenReturn(List.of(bookEntry(101, 50, 2L)));
+        when(changeLogRepo.findChangesAfter(eq(101L), eq(50L), anyCollection(), anyInt())).thenReturn(List.of(bookEntry(102, 40, 3L)));
+        List<Book> updated = List.of(book(2L, "Zoo", "George Orwell", "Dystopia"), book(3L, "Another Hobbit", "J.R.R. Tolkien", "Fantasy"));
+        when(bookRepo.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Book> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) inv.getArgument(0)) updated.stream().filter(b -> b.getId().equals(id)).forEach(found::add);
+            return found;
+        });
+
+        catalog.applyPending();
+        catalog.applyPending();
+
+        assertThat(ids(catalog.page(PageRequest.of(0, 10, Sort.by("title"))).orElseThrow()))
+                .containsExactly(4L, 3L, 1L, 2L);
+    }
+
+    private static ChangeLogEntry bookEntry(long txId, long id, Long bookId) {
+        return ChangeLogEntry.builder().txId(txId).id(id).entityType(EntityType.BOOK).entityId(bookId)
+                .operation(Operation.UPSERT).build();
+    }
+
+    private static List<Long> ids(Page<BookDTO> page) {
+        return page.getContent().stream().map(BookDTO::getId).toList();
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static Book book(Long id, String title, String author, String genre) {
+        return Book.builder().id(id).title(title).author(author).genre(genre).build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.library.catalog;
+
+import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotFileTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void restoresColumnsPermutationsAndVersion() throws IOException {
+        CatalogSnapshot original = snapshot();
+        Path file = tempDir.resolve("catalog.snapshot");
+
+        CatalogSnapshotFile.write(original, file);
+        CatalogSnapshot restored = CatalogSnapshotFile.read(file);
+
+        assertThat(restored.version).isEqualTo(new Position(42, 7));
+        assertThat(restored.priorMean).isEqualTo(4.0);
+        assertThat(restored.priorWeight).isEqualTo(10.0);
+        assertThat(restored.ids).containsExactly(original.ids);
+        assertThat(restored.byTitle).containsExactly(original.byTitle);
+        assertThat(restored.byAuthor).containsExactly(original.byAuthor);
+        assertThat(restored.byRating).containsExactly(original.byRating);
+        assertThat(restored.ratingSums).containsExactly(original.ratingSums);
+        assertThat(restored.views).containsExactly(original.views);
+        assertThat(restored.byGenre).isDeepEqualTo(original.byGenre);
+    }
+
+    @Test
+    void restoredSnapshotCanBePatched() throws IOException {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(snapshot(), file);
+
+        CatalogSnapshot patched = CatalogSnapshotFile.read(file).patch(
+                Map.of(5L, book(5L, "Brave New World", "Aldous Huxley", "Dystopia", "b.png")),
+                Set.of(1L), Map.of(), new Position(43, 2));
+
+        assertThat(patched.version).isEqualTo(new Position(43, 2));
+        assertThat(patched.ids).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(Arrays.stream(patched.byTitle).mapToLong(row -> patched.ids[row]).toArray()).containsExactly(4L, 2L, 5L, 3L);
+    }
+
+    @Test
+    void rejectsCorruptedFile() throws IOException {
+        Path file = tempDir.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(snapshot(), file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), Files.size(file) - 1);
+        }
+
+        assertThatThrownBy(() -> CatalogSnapshotFile.read(file)).hasMessageContaining("checksum");
+    }
+
+    private static CatalogSnapshot snapshot() {
+        Map<Long, long[]> ratings = new HashMap<>();
+        ratings.put(1L, new long[]{2, 7});
+        ratings.put(4L, new long[]{1, 5});
+        return CatalogSnapshot.build(List.of(
+                book(1L, "Clean Code", "Robert C. Martin", "Programming", null),
+                book(2L, "animal Farm", "George Orwell", "Dystopia", "farm.png"),
+                book(3L, "The Hobbit", "J.R.R. Tolkien", null, null),
+                book(4L, "1984", "George Orwell", "dystopia", "1984.png")), ratings, new Position(42, 7), 10);
+    }
+
+    private static Book book(Long id, String title, String author, String genre, String coverUrl) {
+        return Book.builder().id(id).title(title).author(author).genre(genre)
+                .description("\u00dcn\u00efcode description of " + title).coverUrl(coverUrl).build();
+    }
+}
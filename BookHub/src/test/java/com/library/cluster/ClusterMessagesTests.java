@@ -0,0 +1,51 @@
+package com.library.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterMessagesTests {
+
+    @Test
+    void burstIsCoalescedIntoOneMessage() {
+        Map<String, Set<String>> topics = new LinkedHashMap<>();
+        topics.put("book", Set.of("1", "2", "3"));
+        topics.put("outbox", Set.of(ClusterEventBus.ALL));
+
+        List<String> payloads = ClusterMessages.encode("node-a", topics, 100);
+
+        assertThat(payloads).hasSize(1);
+        ClusterMessages.Message message = ClusterMessages.decode(payloads.get(0));
+        assertThat(message.node()).isEqualTo("node-a");
+        assertThat(message.topics()).isEqualTo(topics);
+    }
+
+    @Test
+    void tooManyKeysCollapseToAll() {
+        Set<String> ids = IntStream.range(0, 50).mapToObj(String::valueOf).collect(Collectors.toSet());
+
+        List<String> payloads = ClusterMessages.encode("node-a", Map.of("book", ids), 10);
+
+        assertThat(payloads).containsExactly("node-a|book=*");
+    }
+
+    @Test
+    void largeBatchesAreSplitBelowThePayloadLimit() {
+        Set<String> ids = IntStream.range(1_000_000, 1_003_000).mapToObj(String::valueOf).collect(Collectors.toSet());
+
+        List<String> payloads = ClusterMessages.encode("node-a", Map.of("book", ids), 10_000);
+
+        assertThat(payloads).hasSizeGreaterThan(1).allSatisfy(p -> assertThat(p.length()).isLessThanOrEqualTo(ClusterMessages.MAX_PAYLOAD));
+        Set<String> decoded = new HashSet<>();
+        payloads.forEach(p -> decoded.addAll(ClusterMessages.decode(p).topics().get("book")));
+        assertThat(decoded).isEqualTo(ids);
+    }
+}
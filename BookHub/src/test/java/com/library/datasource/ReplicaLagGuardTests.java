@@ -0,0 +1,76 @@
+package com.library.datasource;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaLagGuardTests {
+
+    private static final Duration MAX_LAG = Duration.ofSeconds(2);
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final ReplicaLagGuard writer = new ReplicaLagGuard(MAX_LAG, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void writeCookieKeepsReadsOnThePrimaryOfAnotherInstance() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        writer.recordWrite("reader@example.com");
+        Cookie cookie = response.getCookie(ReplicaLagGuard.COOKIE);
+        assertThat(cookie).isNotNull();
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).contains("HttpOnly");
+
+        withCookie(cookie.getValue());
+        assertThat(otherInstanceAt(NOW.plusMillis(1_500)).recentlyWrote("reader@example.com")).isTrue();
+        RequestContextHolder.resetRequestAttributes();
+        assertThat(otherInstanceAt(NOW.plusMillis(1_500)).recentlyWrote("reader@example.com")).isFalse();
+    }
+
+    @Test
+    void ignoresExpiredFutureAndMalformedCookies() {
+        withCookie(Long.toString(NOW.minusMillis(2_000).toEpochMilli()));
+        assertThat(otherInstanceAt(NOW).recentlyWrote("reader@example.com")).isFalse();
+
+        withCookie(Long.toString(NOW.plusSeconds(3_600).toEpochMilli()));
+        assertThat(otherInstanceAt(NOW).recentlyWrote("reader@example.com")).isFalse();
+
+        withCookie("soon");
+        assertThat(otherInstanceAt(NOW).recentlyWrote("reader@example.com")).isFalse();
+    }
+
+    @Test
+    void writesOutsideARequestAreRememberedLocally() {
+        writer.recordWrite("job@example.com");
+
+        assertThat(writer.recentlyWrote("job@example.com")).isTrue();
+        assertThat(writer.recentlyWrote("other@example.com")).isFalse();
+        assertThat(writer.recentlyWrote(null)).isFalse();
+    }
+
+    private static void withCookie(String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReplicaLagGuard.COOKIE, value));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static ReplicaLagGuard otherInstanceAt(Instant now) {
+        return new ReplicaLagGuard(MAX_LAG, Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,116 @@
+package com.library.datasource;
+
+import com.library.exception.ResourceNotFoundException;
+import com.library.service.BookService;
+import com.library.service.ReviewService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Needs a primary (DB_URL) and a streaming replica (REPLICA_DB_URL), see docker-compose.replica.yml.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replica.url=${REPLICA_DB_URL:}",
+        "app.datasource.replica.max-lag-ms=60000"
+})
+@EnabledIfEnvironmentVariable(named = "REPLICA_DB_URL", matches = ".+")
+class ReplicaRoutingIntegrationTests {
+
+    private static final String SERVICE_READ = "com.library.service.StatsService.getStats";
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyServiceTransactionUsesReplica() {
+        assertThat(inRecovery(SERVICE_READ, true)).isTrue();
+    }
+
+    @Test
+    void writeTransactionUsesPrimary() {
+        assertThat(inRecovery("com.library.service.BookService.addBook", false)).isFalse();
+    }
+
+    @Test
+    void readOnlyRepositoryTransactionUsesPrimary() {
+        assertThat(inRecovery("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findAll", true))
+                .isFalse();
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimary() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "lag-guard@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+
+        inRecovery("com.library.service.ReviewService.add", false);
+
+        assertThat(inRecovery(SERVICE_READ, true)).isFalse();
+    }
+
+    @Test
+    void coalescedViewsReadFromReplica() {
+        // The loaders call their own service past the proxy; each must still open a replica transaction.
+        assertReadsFromReplica(() -> assertThatThrownBy(() -> bookService.getBookView(-1L))
+                .isInstanceOf(ResourceNotFoundException.class));
+        assertReadsFromReplica(() -> reviewService.getViewsByBook(-1L));
+        assertReadsFromReplica(() -> bookService.getTopBookViews(5));
+        assertReadsFromReplica(() -> bookService.getTopByGenreViews("Fantasy", 0, 5));
+        assertReadsFromReplica(() -> bookService.getByGenreViews("Fantasy"));
+        assertReadsFromReplica(() -> bookService.getAllViews(PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "rating"))));
+        assertReadsFromReplica(() -> bookService.getAllSortedViews("title", 0, 5));
+    }
+
+    private void assertReadsFromReplica(Runnable read) {
+        long before = acquired("replica");
+        read.run();
+        assertThat(acquired("replica")).isGreaterThan(before);
+    }
+
+    private long acquired(String pool) {
+        Timer timer = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private boolean inRecovery(String transactionName, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setName(transactionName);
+        tx.setReadOnly(readOnly);
+        return Boolean.TRUE.equals(tx.execute(status ->
+                jdbcTemplate.queryForObject("select pg_is_in_recovery()", Boolean.class)));
+    }
+}
@@ -0,0 +1,63 @@
+package com.library.favorites;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookIdBitmapTests {
+
+    @Test
+    void containsBuiltIds() {
+        BookIdBitmap bitmap = BookIdBitmap.of(List.of(3L, 70_000L, 1L, 3L, 5_000_000_000L));
+
+        assertThat(bitmap.cardinality()).isEqualTo(4);
+        assertThat(bitmap.contains(1L)).isTrue();
+        assertThat(bitmap.contains(70_000L)).isTrue();
+        assertThat(bitmap.contains(5_000_000_000L)).isTrue();
+        assertThat(bitmap.contains(2L)).isFalse();
+        assertThat(bitmap.contains(65_539L)).isFalse();
+        assertThat(BookIdBitmap.EMPTY.contains(1L)).isFalse();
+    }
+
+    @Test
+    void withAndWithoutLeaveTheOriginalUnchanged() {
+        BookIdBitmap original = BookIdBitmap.of(List.of(1L, 2L));
+
+        BookIdBitmap changed = original.with(100_000L).without(1L);
+
+        assertThat(original.contains(1L)).isTrue();
+        assertThat(original.contains(100_000L)).isFalse();
+        assertThat(changed.contains(1L)).isFalse();
+        assertThat(changed.contains(100_000L)).isTrue();
+        assertThat(changed.cardinality()).isEqualTo(2);
+        assertThat(changed.without(2L).without(100_000L).cardinality()).isZero();
+    }
+
+    @Test
+    void matchesSetAcrossSparseAndDenseGroups() {
+        Random random = new Random(42);
+        TreeSet<Long> expected = new TreeSet<>();
+        BookIdBitmap bitmap = BookIdBitmap.EMPTY;
+        for (int i = 0; i < 40_000; i++) {
+            // Mostly one dense group, so it turns into a bit set and back into an array.
+            long id = random.nextInt(10) == 0 ? random.nextInt(1 << 22) : random.nextInt(6_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(id);
+                bitmap = bitmap.without(id);
+            } else {
+                expected.add(id);
+                bitmap = bitmap.with(id);
+            }
+        }
+        BookIdBitmap result = bitmap;
+
+        assertThat(result.cardinality()).isEqualTo(expected.size());
+        assertThat(LongStream.range(0, 1 << 22).filter(id -> result.contains(id) != expected.contains(id))).isEmpty();
+        assertThat(BookIdBitmap.of(expected).cardinality()).isEqualTo(expected.size());
+    }
+}
@@ -0,0 +1,83 @@
+package com.library.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryArchiveTests {
+    private static final long JAN = micros("2025-01-15T10:00:00Z");
+    private static final long FEB = micros("2025-02-15T10:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void pagesNewestFirstAcrossMonths() throws IOException {
+        HistoryArchive archive = open();
+        archive.append(List.of(view(1, 7, JAN), view(2, 7, JAN + 1), view(3, 7, FEB), view(4, 8, FEB)));
+
+        List<ArchivedView> first = archive.read(7, Long.MAX_VALUE, Long.MAX_VALUE, 2);
+        ArchivedView last = first.get(first.size() - 1);
+        List<ArchivedView> second = archive.read(7, last.openedAtMicros(), last.id(), 2);
+
+        assertThat(first).extracting(ArchivedView::id).containsExactly(3L, 2L);
+        assertThat(second).extracting(ArchivedView::id).containsExactly(1L);
+        assertThat(second.get(0).bookId()).isEqualTo(101L);
+        assertThat(archive.read(8, Long.MAX_VALUE, Long.MAX_VALUE, 10)).extracting(ArchivedView::id).containsExactly(4L);
+    }
+
+    @Test
+    void mergesSegmentsAndIgnoresViewsArchivedTwice() throws IOException {
+        HistoryArchive archive = open();
+        for (int i = 1; i <= 10; i++) {
+            archive.append(List.of(view(i, 7, JAN + i), view(1, 7, JAN + 1)));
+        }
+
+        assertThat(segments()).hasSizeLessThanOrEqualTo(2);
+        assertThat(archive.read(7, Long.MAX_VALUE, Long.MAX_VALUE, 100)).extracting(ArchivedView::id)
+                .containsExactly(10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L);
+        assertThat(open().read(7, Long.MAX_VALUE, Long.MAX_VALUE, 100)).hasSize(10);
+    }
+
+    @Test
+    void removesOneUserAndKeepsTheOthers() throws IOException {
+        HistoryArchive archive = open();
+        archive.append(List.of(view(1, 7, JAN), view(2, 8, JAN), view(3, 7, FEB)));
+
+        archive.removeUser(7);
+
+        assertThat(archive.contains(7)).isFalse();
+        assertThat(archive.read(7, Long.MAX_VALUE, Long.MAX_VALUE, 10)).isEmpty();
+        assertThat(archive.read(8, Long.MAX_VALUE, Long.MAX_VALUE, 10)).extracting(ArchivedView::id).containsExactly(2L);
+        assertThat(segments()).hasSize(1);
+    }
+
+    private HistoryArchive open() throws IOException {
+        HistoryArchive archive = new HistoryArchive(tempDir.toString());
+        archive.open();
+        return archive;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            return files.filter(f -> f.toString().endsWith(".seg")).toList();
+        }
+    }
+
+    private static ArchivedView view(long id, long userId, long openedAtMicros) {
+        return new ArchivedView(id, userId, 100 + id, openedAtMicros);
+    }
+
+    private static long micros(String instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.parse(instant));
+    }
+}
@@ -0,0 +1,66 @@
+package com.library.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimiterTests {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Test
+    void rejectsRequestsOverTheLimitUntilAPermitIsReleased() {
+        GradientLimiter limiter = new GradientLimiter(2, 1, 10);
+
+        Optional<GradientLimiter.Permit> first = limiter.tryAcquire();
+        assertThat(limiter.tryAcquire()).isPresent();
+        assertThat(limiter.tryAcquire()).isEmpty();
+
+        first.orElseThrow().release(false);
+
+        assertThat(limiter.tryAcquire()).isPresent();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void growsWhileLatencyStaysAtBaseline() {
+        GradientLimiter limiter = new GradientLimiter(10, 2, 100);
+
+        for (int i = 0; i < 50; i++) limiter.onSample(FAST, limiter.getLimit());
+
+        assertThat(limiter.getLimit()).isGreaterThan(10).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAboveBaseline() {
+        GradientLimiter limiter = new GradientLimiter(50, 2, 100);
+        for (int i = 0; i < 20; i++) limiter.onSample(FAST, limiter.getLimit());
+        int before = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) limiter.onSample(SLOW, limiter.getLimit());
+
+        assertThat(limiter.getLimit()).isLessThan(before / 2).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void oneSlowSampleLowersTheLimitByAtMostATenth() {
+        GradientLimiter limiter = new GradientLimiter(100, 2, 100);
+        limiter.onSample(FAST, 100);
+
+        limiter.onSample(SLOW, 100);
+
+        assertThat(limiter.getLimit()).isLessThan(100).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void ignoresSamplesWhileTheLimitIsNotUsed() {
+        GradientLimiter limiter = new GradientLimiter(40, 2, 100);
+
+        for (int i = 0; i < 20; i++) limiter.onSample(SLOW, 1);
+
+        assertThat(limiter.getLimit()).isEqualTo(40);
+    }
+}
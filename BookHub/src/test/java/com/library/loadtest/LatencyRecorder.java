@@ -0,0 +1,51 @@
+package com.library.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Per-endpoint latency histograms (microseconds) and error counters. */
+class LatencyRecorder {
+    private static final long MAX_LATENCY_US = TimeUnit.MINUTES.toMicros(2);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    void record(String endpoint, long latencyNanos, boolean success) {
+        Endpoint e = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        e.histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_US));
+        if (!success) e.errors.increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    void reset() {
+        endpoints.clear();
+        dropped.reset();
+    }
+
+    Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> result = new TreeMap<>();
+        endpoints.forEach((name, e) -> result.put(name, new Snapshot(e.histogram.copy(), e.errors.sum())));
+        return result;
+    }
+
+    record Snapshot(Histogram histogram, long errors) {
+    }
+
+    private static final class Endpoint {
+        private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_US, 3);
+        private final LongAdder errors = new LongAdder();
+    }
+}
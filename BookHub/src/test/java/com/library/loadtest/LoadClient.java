@@ -0,0 +1,99 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Non-blocking HTTP client that records each call under a templated endpoint name. */
+class LoadClient implements AutoCloseable {
+    static final String PASSWORD = "loadtest123";
+
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+    private final ObjectMapper mapper;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpClient http;
+    private final Map<String, CompletableFuture<String>> tokens = new ConcurrentHashMap<>();
+
+    LoadClient(String baseUrl, LatencyRecorder recorder, ObjectMapper mapper) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+        this.mapper = mapper;
+        this.http = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Sends a request and records its latency from {@code startNanos}, which for the first step of a
+     * scenario is the arrival's intended start time.
+     */
+    CompletableFuture<HttpResponse<String>> send(String endpoint, long startNanos, HttpRequest.Builder request,
+                                                 int... acceptedStatuses) {
+        return http.sendAsync(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> recorder.record(endpoint, System.nanoTime() - startNanos,
+                        error == null && accepted(response.statusCode(), acceptedStatuses)));
+    }
+
+    HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    HttpRequest.Builder post(String path, Object body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(body)));
+    }
+
+    HttpRequest.Builder delete(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).DELETE();
+    }
+
+    /** Logs the user in once (not recorded) and reuses the token for later requests. */
+    CompletableFuture<String> token(String email) {
+        return tokens.computeIfAbsent(email, e -> http.sendAsync(
+                        post("/api/auth/login", Map.of("email", e, "password", PASSWORD)).build(),
+                        HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> readJson(response.body()).path("token").asText()));
+    }
+
+    JsonNode readJson(String body) {
+        try {
+            return mapper.readTree(body);
+        } catch (Exception e) {
+            return mapper.missingNode();
+        }
+    }
+
+    private String json(Object body) {
+        try {
+            return mapper.writeValueAsString(body);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static boolean accepted(int status, int[] acceptedStatuses) {
+        if (status >= 200 && status < 300) return true;
+        for (int s : acceptedStatuses) {
+            if (s == status) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
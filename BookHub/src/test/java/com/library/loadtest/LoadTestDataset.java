@@ -0,0 +1,166 @@
+package com.library.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Synthetic catalog for load tests. Seeding is deterministic for a given seed and only tops up what is
+ * missing, so repeated runs against the same database reuse the data.
+ */
+@Slf4j
+class LoadTestDataset {
+    private static final String EMAIL_PATTERN = "loadtest-%d@example.com";
+    private static final String[] GENRES = {"Fantasy", "Science Fiction", "Mystery", "Thriller", "Romance",
+            "History", "Biography", "Programming", "Philosophy", "Poetry", "Horror", "Dystopia", "Travel",
+            "Cooking", "Economics", "Psychology", "Art", "Music", "Children", "Classics"};
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "ten", "vor", "sha", "del", "qui", "an",
+            "bel", "cor", "dun", "eth", "fal", "gri", "hol", "ist", "jun", "mor", "nel", "orn", "pra", "sil"};
+    private static final int BATCH = 5_000;
+
+    private final long[] bookIds;
+    private final List<String> users;
+    private final List<String> terms;
+
+    private LoadTestDataset(long[] bookIds, List<String> users, List<String> terms) {
+        this.bookIds = bookIds;
+        this.users = users;
+        this.terms = terms;
+    }
+
+    static LoadTestDataset seed(JdbcTemplate jdbc, PasswordEncoder encoder, int books, int users,
+                                int reviewsPerUser, int favoritesPerUser, long seed) {
+        Random random = new Random(seed);
+        List<String> vocabulary = vocabulary(random, 2_000);
+
+        int existingUsers = count(jdbc, "select count(*) from users where email like 'loadtest-%'");
+        if (existingUsers < users) {
+            String hash = encoder.encode(LoadClient.PASSWORD);
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = existingUsers; i < users; i++) {
+                rows.add(new Object[]{EMAIL_PATTERN.formatted(i), hash, "Load Test " + i});
+            }
+            batch(jdbc, "insert into users (email, password_hash, full_name, role) values (?, ?, ?, 'ROLE_USER')", rows);
+            log.info("Seeded {} load test users", rows.size());
+        }
+
+        int existingBooks = count(jdbc, "select count(*) from books");
+        if (existingBooks < books) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = existingBooks; i < books; i++) {
+                rows.add(new Object[]{
+                        phrase(random, vocabulary, 1 + random.nextInt(4)),
+                        phrase(random, vocabulary, 2),
+                        GENRES[random.nextInt(GENRES.length)],
+                        phrase(random, vocabulary, 20 + random.nextInt(40))});
+                if (rows.size() == BATCH) {
+                    batch(jdbc, "insert into books (title, author, genre, description) values (?, ?, ?, ?)", rows);
+                    rows.clear();
+                }
+            }
+            batch(jdbc, "insert into books (title, author, genre, description) values (?, ?, ?, ?)", rows);
+            log.info("Seeded {} books", books - existingBooks);
+        }
+
+        long[] bookIds = jdbc.queryForList("select id from books order by id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        List<Long> userIds = jdbc.queryForList("select id from users where email like 'loadtest-%' order by id", Long.class);
+
+        if (count(jdbc, "select count(*) from reviews r join users u on u.id = r.user_id where u.email like 'loadtest-%'") == 0) {
+            List<Object[]> rows = new ArrayList<>();
+            Instant now = Instant.now();
+            for (Long userId : userIds) {
+                for (long bookId : distinct(random, bookIds, reviewsPerUser)) {
+                    rows.add(new Object[]{userId, bookId, 1 + random.nextInt(5), phrase(random, vocabulary, 8),
+                            Timestamp.from(now.minus(random.nextInt(365 * 24), ChronoUnit.HOURS))});
+                }
+                if (rows.size() >= BATCH) {
+                    batch(jdbc, "insert into reviews (user_id, book_id, rating, comment, created_at) values (?, ?, ?, ?, ?)", rows);
+                    rows.clear();
+                }
+            }
+            batch(jdbc, "insert into reviews (user_id, book_id, rating, comment, created_at) values (?, ?, ?, ?, ?)", rows);
+        }
+
+        if (count(jdbc, "select count(*) from favorites f join users u on u.id = f.user_id where u.email like 'loadtest-%'") == 0) {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long userId : userIds) {
+                for (long bookId : distinct(random, bookIds, favoritesPerUser)) rows.add(new Object[]{userId, bookId});
+            }
+            batch(jdbc, "insert into favorites (user_id, book_id) values (?, ?) on conflict do nothing", rows);
+        }
+        jdbc.execute("analyze");
+
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < users; i++) emails.add(EMAIL_PATTERN.formatted(i));
+        return new LoadTestDataset(bookIds, emails, vocabulary.subList(0, 200));
+    }
+
+    int bookCount() {
+        return bookIds.length;
+    }
+
+    long randomBookId() {
+        return bookIds[ThreadLocalRandom.current().nextInt(bookIds.length)];
+    }
+
+    String randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    String randomTerm() {
+        return terms.get(ThreadLocalRandom.current().nextInt(terms.size()));
+    }
+
+    List<String> users() {
+        return users;
+    }
+
+    private static List<String> vocabulary(Random random, int size) {
+        Set<String> words = new HashSet<>();
+        List<String> ordered = new ArrayList<>();
+        while (ordered.size() < size) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int i = 0; i < syllables; i++) word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            if (words.add(word.toString())) ordered.add(word.toString());
+        }
+        return ordered;
+    }
+
+    private static String phrase(Random random, List<String> vocabulary, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            String word = vocabulary.get(random.nextInt(vocabulary.size()));
+            sb.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+        }
+        return sb.toString();
+    }
+
+    private static long[] distinct(Random random, long[] ids, int n) {
+        Set<Long> picked = new HashSet<>();
+        int target = Math.min(n, ids.length);
+        while (picked.size() < target) picked.add(ids[random.nextInt(ids.length)]);
+        return picked.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static int count(JdbcTemplate jdbc, String sql) {
+        Integer n = jdbc.queryForObject(sql, Integer.class);
+        return n == null ? 0 : n;
+    }
+
+    private static void batch(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) jdbc.batchUpdate(sql, rows);
+    }
+}
@@ -0,0 +1,111 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/** Result of one run, written as JSON so later runs can be compared against it. */
+record LoadTestReport(Instant startedAt, double ratePerSecond, long durationSeconds, long dropped,
+                      Map<String, EndpointStats> endpoints) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    record EndpointStats(long count, long errors, double throughput, double meanMs, double p50Ms, double p99Ms,
+                         double p999Ms, double maxMs) {
+    }
+
+    static LoadTestReport from(Instant startedAt, double ratePerSecond, long durationSeconds, LatencyRecorder recorder) {
+        Map<String, EndpointStats> endpoints = new TreeMap<>();
+        recorder.snapshot().forEach((name, s) -> {
+            Histogram h = s.histogram();
+            endpoints.put(name, new EndpointStats(h.getTotalCount(), s.errors(),
+                    (double) h.getTotalCount() / durationSeconds, h.getMean() / 1000.0,
+                    ms(h, 50), ms(h, 99), ms(h, 99.9), h.getMaxValue() / 1000.0));
+        });
+        return new LoadTestReport(startedAt, ratePerSecond, durationSeconds, recorder.dropped(), endpoints);
+    }
+
+    static LoadTestReport read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), LoadTestReport.class);
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writeValue(file.toFile(), this);
+    }
+
+    long totalRequests() {
+        return endpoints.values().stream().mapToLong(EndpointStats::count).sum();
+    }
+
+    long totalErrors() {
+        return endpoints.values().stream().mapToLong(EndpointStats::errors).sum();
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-32s %9s %7s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        endpoints.forEach((name, e) -> out.printf("%-32s %9d %7d %9.1f %9.2f %9.2f %9.2f%n",
+                name, e.count(), e.errors(), e.throughput(), e.p50Ms(), e.p99Ms(), e.p999Ms()));
+        out.printf("offered %.0f req/s for %d s, dropped arrivals: %d%n", ratePerSecond, durationSeconds, dropped);
+    }
+
+    /** Markdown table of baseline → current values per endpoint. */
+    String compareTo(LoadTestReport baseline) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("| endpoint | p50 ms | p99 ms | p999 ms | req/s | errors |\n");
+        sb.append("|---|---|---|---|---|---|\n");
+        for (String name : union(baseline)) {
+            EndpointStats before = baseline.endpoints().get(name);
+            EndpointStats after = endpoints.get(name);
+            if (before == null || after == null) {
+                sb.append("| ").append(name).append(" | ").append(before == null ? "new" : "removed")
+                        .append(" | | | | |\n");
+                continue;
+            }
+            sb.append("| ").append(name)
+                    .append(" | ").append(change(before.p50Ms(), after.p50Ms()))
+                    .append(" | ").append(change(before.p99Ms(), after.p99Ms()))
+                    .append(" | ").append(change(before.p999Ms(), after.p999Ms()))
+                    .append(" | ").append(change(before.throughput(), after.throughput()))
+                    .append(" | ").append(before.errors()).append(" → ").append(after.errors())
+                    .append(" |\n");
+        }
+        return sb.toString();
+    }
+
+    private TreeSet<String> union(LoadTestReport other) {
+        TreeSet<String> names = new TreeSet<>(endpoints.keySet());
+        names.addAll(other.endpoints().keySet());
+        return names;
+    }
+
+    private static String change(double before, double after) {
+        String pct = before == 0 ? "n/a" : "%+.1f%%".formatted((after - before) * 100 / before);
+        return "%.2f → %.2f (%s)".formatted(before, after, pct);
+    }
+
+    private static double ms(Histogram h, double percentile) {
+        return h.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /** Compares two saved reports: {@code LoadTestReport <baseline.json> <current.json>}. */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: LoadTestReport <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        System.out.print(read(Path.of(args[1])).compareTo(read(Path.of(args[0]))));
+    }
+}
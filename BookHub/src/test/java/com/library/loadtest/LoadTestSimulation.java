@@ -0,0 +1,110 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the application against the configured PostgreSQL, seeds a synthetic dataset and drives the API at a
+ * fixed arrival rate. Only runs with the {@code loadtest} Maven profile:
+ * <pre>
+ * ./mvnw -Ploadtest test -Dloadtest.rate=300 -Dloadtest.duration=120 -Dloadtest.baseline=target/loadtest/baseline.json
+ * </pre>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Slf4j
+class LoadTestSimulation {
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void mixedWorkload() throws Exception {
+        double rate = Double.parseDouble(property("loadtest.rate", "200"));
+        long duration = Long.parseLong(property("loadtest.duration", "60"));
+        long warmup = Long.parseLong(property("loadtest.warmup", "15"));
+        Path outputDir = Path.of(property("loadtest.output", "target/loadtest"));
+
+        LoadTestDataset dataset = LoadTestDataset.seed(jdbcTemplate, passwordEncoder,
+                Integer.parseInt(property("loadtest.books", "100000")),
+                Integer.parseInt(property("loadtest.users", "1000")),
+                Integer.parseInt(property("loadtest.reviews-per-user", "20")),
+                Integer.parseInt(property("loadtest.favorites-per-user", "10")),
+                Long.parseLong(property("loadtest.seed", "42")));
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        try (LoadClient client = new LoadClient("http://localhost:" + port, recorder, objectMapper)) {
+            CompletableFuture.allOf(dataset.users().stream().map(client::token).toArray(CompletableFuture[]::new)).join();
+            Scenarios scenarios = new Scenarios(client, dataset);
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(rate,
+                    Integer.parseInt(property("loadtest.max-in-flight", "20000")), recorder);
+
+            log.info("Warming up for {} s at {} req/s", warmup, rate);
+            generator.run(Duration.ofSeconds(warmup), Duration.ofSeconds(30), scenarios::runRandom);
+            recorder.reset();
+
+            log.info("Measuring for {} s at {} req/s", duration, rate);
+            Instant startedAt = Instant.now();
+            int unfinished = generator.run(Duration.ofSeconds(duration), Duration.ofSeconds(60), scenarios::runRandom);
+            LoadTestReport report = LoadTestReport.from(startedAt, rate, duration, recorder);
+
+            report.print(System.out);
+            Path reportFile = outputDir.resolve("report-" + RUN_ID.format(startedAt) + ".json");
+            report.write(reportFile);
+            report.write(outputDir.resolve("latest.json"));
+            writeHistograms(recorder, outputDir.resolve("histograms-" + RUN_ID.format(startedAt)));
+            log.info("Report written to {}", reportFile);
+
+            String baseline = System.getProperty("loadtest.baseline");
+            if (baseline != null && Files.exists(Path.of(baseline))) {
+                String comparison = report.compareTo(LoadTestReport.read(Path.of(baseline)));
+                Files.writeString(outputDir.resolve("comparison.md"), comparison);
+                System.out.println(comparison);
+            }
+
+            double maxErrorRate = Double.parseDouble(property("loadtest.max-error-rate", "0.01"));
+            assertThat(unfinished).as("requests still running after drain").isZero();
+            assertThat((double) report.totalErrors()).isLessThanOrEqualTo(report.totalRequests() * maxErrorRate);
+        }
+    }
+
+    private static void writeHistograms(LatencyRecorder recorder, Path dir) throws Exception {
+        Files.createDirectories(dir);
+        for (var entry : recorder.snapshot().entrySet()) {
+            String file = entry.getKey().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm";
+            try (var out = new java.io.PrintStream(dir.resolve(file).toFile())) {
+                // Values are recorded in microseconds; scale to milliseconds for HdrHistogram plotters.
+                entry.getValue().histogram().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue);
+    }
+}
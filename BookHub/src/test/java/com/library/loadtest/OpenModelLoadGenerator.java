@@ -0,0 +1,61 @@
+package com.library.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * Open-model load: arrivals are scheduled at a fixed rate regardless of how fast the server responds, so a
+ * slow server builds up a backlog instead of silently lowering the offered load. Each arrival receives its
+ * intended start time so latency includes any time it spent waiting to be sent.
+ */
+class OpenModelLoadGenerator {
+    private final double ratePerSecond;
+    private final int maxInFlight;
+    private final LatencyRecorder recorder;
+
+    OpenModelLoadGenerator(double ratePerSecond, int maxInFlight, LatencyRecorder recorder) {
+        this.ratePerSecond = ratePerSecond;
+        this.maxInFlight = maxInFlight;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Runs arrivals for the given duration and waits up to {@code drainTimeout} for outstanding ones.
+     * Returns the number of arrivals still unfinished after the drain.
+     */
+    int run(Duration duration, Duration drainTimeout, LongFunction<CompletableFuture<?>> arrival) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) break;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            if (!inFlight.tryAcquire()) {
+                // The client cannot keep up; count it rather than closing the loop on the server.
+                recorder.recordDropped();
+                continue;
+            }
+            CompletableFuture<?> future;
+            try {
+                future = arrival.apply(intendedStart);
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+            future.whenComplete((r, e) -> inFlight.release());
+        }
+        try {
+            if (inFlight.tryAcquire(maxInFlight, drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return maxInFlight - inFlight.availablePermits();
+    }
+}
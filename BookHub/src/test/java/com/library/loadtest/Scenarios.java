@@ -0,0 +1,91 @@
+package com.library.loadtest;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+/**
+ * Weighted mix of user journeys. Every arrival runs one scenario; steps after the first are issued when the
+ * previous one completes, like a user clicking through.
+ */
+class Scenarios {
+    private final LoadClient client;
+    private final LoadTestDataset dataset;
+    private final List<Scenario> scenarios;
+    private final int totalWeight;
+
+    Scenarios(LoadClient client, LoadTestDataset dataset) {
+        this.client = client;
+        this.dataset = dataset;
+        this.scenarios = List.of(
+                new Scenario("browse", 35, this::browse),
+                new Scenario("search", 25, this::search),
+                new Scenario("open-book", 20, this::openBook),
+                new Scenario("favorite", 10, this::favorite),
+                new Scenario("review", 5, this::review),
+                new Scenario("login", 5, this::login));
+        this.totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+    }
+
+    CompletableFuture<?> runRandom(long intendedStart) {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Scenario s : scenarios) {
+            pick -= s.weight();
+            if (pick < 0) return s.steps().apply(intendedStart, dataset.randomUser());
+        }
+        throw new IllegalStateException("Scenario weights changed");
+    }
+
+    private CompletableFuture<?> browse(long start, String user) {
+        int page = ThreadLocalRandom.current().nextInt(Math.max(1, dataset.bookCount() / 20));
+        return client.send("GET /api/books", start, client.get("/api/books?page=" + page + "&size=20"))
+                .thenCompose(r -> detail(System.nanoTime(), user));
+    }
+
+    private CompletableFuture<?> search(long start, String user) {
+        return client.send("GET /api/books/search", start, client.get("/api/books/search?q=" + dataset.randomTerm()))
+                .thenCompose(r -> detail(System.nanoTime(), user));
+    }
+
+    private CompletableFuture<?> openBook(long start, String user) {
+        return detail(start, user);
+    }
+
+    private CompletableFuture<?> favorite(long start, String user) {
+        long bookId = dataset.randomBookId();
+        return client.token(user).thenCompose(token -> client
+                .send("POST /api/favorites", start, auth(client.post("/api/favorites?bookId=" + bookId, Map.of()), token))
+                .thenCompose(r -> client.send("DELETE /api/favorites", System.nanoTime(),
+                        auth(client.delete("/api/favorites?bookId=" + bookId), token))));
+    }
+
+    private CompletableFuture<?> review(long start, String user) {
+        long bookId = dataset.randomBookId();
+        Map<String, Object> body = Map.of("rating", 1 + ThreadLocalRandom.current().nextInt(5), "comment", "Load test review");
+        // 409 means this user already reviewed the book, which is a valid outcome for a random pick.
+        return client.token(user).thenCompose(token -> client.send("POST /api/reviews/{bookId}", start,
+                auth(client.post("/api/reviews/" + bookId, body), token), 409));
+    }
+
+    private CompletableFuture<?> login(long start, String user) {
+        return client.send("POST /api/auth/login", start,
+                client.post("/api/auth/login", Map.of("email", user, "password", LoadClient.PASSWORD)));
+    }
+
+    private CompletableFuture<HttpResponse<String>> detail(long start, String user) {
+        long bookId = dataset.randomBookId();
+        return client.token(user).thenCompose(token -> client.send("GET /api/books/{id}/detail", start,
+                auth(client.get("/api/books/" + bookId + "/detail"), token)));
+    }
+
+    private static HttpRequest.Builder auth(HttpRequest.Builder request, String token) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    private record Scenario(String name, int weight, BiFunction<Long, String, CompletableFuture<?>> steps) {
+    }
+}
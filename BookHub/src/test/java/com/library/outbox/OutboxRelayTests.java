@@ -0,0 +1,134 @@
+package com.library.outbox;
+
+import com.library.cluster.ClusterEventBus;
+import com.library.entity.OutboxEvent;
+import com.library.entity.OutboxEvent.AggregateType;
+import com.library.entity.OutboxOffset;
+import com.library.repository.OutboxEventRepository;
+import com.library.repository.OutboxOffsetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTests {
+    private final OutboxEventRepository eventRepo = mock(OutboxEventRepository.class);
+    private final OutboxOffsetRepository offsetRepo = mock(OutboxOffsetRepository.class);
+    private final RecordingConsumer consumer = new RecordingConsumer();
+    private final OutboxRelay relay = new OutboxRelay(eventRepo, offsetRepo, List.of(consumer),
+            mock(ClusterEventBus.class), mock(TaskScheduler.class), mock(PlatformTransactionManager.class),
+            true, 2, 10, 24, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void lockIsFree() {
+        when(offsetRepo.tryLock("recording")).thenReturn(true);
+    }
+
+    @Test
+    void resumesFromTheStoredOffsetAndDeliversBatchesInOrder() throws Exception {
+        when(offsetRepo.findById("recording")).thenReturn(Optional.of(new OutboxOffset("recording", 7L, 40L, null)),
+                Optional.of(new OutboxOffset("recording", 9L, 42L, null)));
+        when(eventRepo.findVisibleAfter(7, 40, 2)).thenReturn(List.of(event(7, 41), event(9, 42)));
+        when(eventRepo.findVisibleAfter(9, 42, 2)).thenReturn(List.of(event(9, 45)));
+
+        assertThat(relay.deliver(consumer)).isEqualTo(3);
+
+        assertThat(consumer.received).containsExactly(41L, 42L, 45L);
+        verify(offsetRepo).upsert("recording", 9, 42);
+        verify(offsetRepo).upsert("recording", 9, 45);
+    }
+
+    @Test
+    void failedBatchIsDeliveredAgainWithoutMovingTheOffset() throws Exception {
+        when(offsetRepo.findById("recording")).thenReturn(Optional.empty());
+        when(eventRepo.findVisibleAfter(0, 0, 2)).thenReturn(List.of(event(3, 1)));
+        consumer.failuresLeft = 1;
+
+        relay.relay();
+        verify(offsetRepo, never()).upsert(anyString(), anyLong(), anyLong());
+
+        relay.relay();
+        assertThat(consumer.received).containsExactly(1L);
+        verify(offsetRepo).upsert("recording", 3, 1);
+    }
+
+    @Test
+    void skipsTheConsumerWhileAnotherInstanceDeliversToIt() throws Exception {
+        when(offsetRepo.tryLock("recording")).thenReturn(false);
+
+        assertThat(relay.deliver(consumer)).isZero();
+
+        verify(eventRepo, never()).findVisibleAfter(anyLong(), anyLong(), anyInt());
+        verify(offsetRepo, never()).upsert(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void startsEachBatchFromThePositionStoredByWhicheverInstanceDeliveredLast() throws Exception {
+        // Another instance delivered up to (12, 50) since this one stored (7, 40).
+        when(offsetRepo.findById("recording")).thenReturn(Optional.of(new OutboxOffset("recording", 12L, 50L, null)));
+        when(eventRepo.findVisibleAfter(12, 50, 2)).thenReturn(List.of(event(12, 51)));
+
+        relay.deliver(consumer);
+
+        assertThat(consumer.received).containsExactly(51L);
+        verify(eventRepo, never()).findVisibleAfter(eq(7L), anyLong(), anyInt());
+    }
+
+    @Test
+    void cleanupKeepsEventsAfterTheStoredPosition() {
+        when(offsetRepo.findById("recording")).thenReturn(Optional.of(new OutboxOffset("recording", 7L, 40L, null)));
+
+        relay.cleanup();
+
+        verify(eventRepo).deleteDeliveredBefore(any(), eq(7L), eq(40L));
+    }
+
+    @Test
+    void cleanupRemovesNothingBeforeTheConsumerStoredAPosition() {
+        when(offsetRepo.findById("recording")).thenReturn(Optional.empty());
+
+        relay.cleanup();
+
+        verify(eventRepo, never()).deleteDeliveredBefore(any(), anyLong(), anyLong());
+    }
+
+    private static OutboxEvent event(long txId, long id) {
+        return OutboxEvent.builder().id(id).txId(txId).aggregateType(AggregateType.BOOK).aggregateId(1L)
+                .eventType("BookSaved").payload("{}").build();
+    }
+
+    private static final class RecordingConsumer implements OutboxConsumer {
+        final List<Long> received = new ArrayList<>();
+        int failuresLeft;
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void handle(List<OutboxEvent> events) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IllegalStateException("consumer unavailable");
+            }
+            events.forEach(e -> received.add(e.getId()));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.library.search;
+
+import com.library.entity.Book;
+import com.library.entity.ChangeLogEntry;
+import com.library.entity.ChangeLogEntry.EntityType;
+import com.library.entity.ChangeLogEntry.Operation;
+import com.library.repository.BookRepository;
+import com.library.repository.ChangeLogRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SimilarBookIndexTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void ranksBooksSharingGenreAuthorAndTermsFirst() {
+        SimilarBookIndex index = new SimilarBookIndex(mock(BookRepository.class), mock(ChangeLogRepository.class), tempDir.resolve("idx").toString());
+        catalog().forEach(index::update);
+
+        List<Long> similar = index.similar(1L, 3);
+
+        assertThat(similar).isNotEmpty().doesNotContain(1L);
+        assertThat(similar.get(0)).isEqualTo(2L);
+    }
+
+    @Test
+    void reloadsPersistedIndexWithoutRebuild() {
+        BookRepository repo = mock(BookRepository.class);
+        ChangeLogRepository changeLogRepo = mock(ChangeLogRepository.class);
+        String file = tempDir.resolve("idx").toString();
+
+        SimilarBookIndex first = new SimilarBookIndex(repo, changeLogRepo, file);
+        catalog().forEach(first::update);
+        List<Long> expected = first.similar(1L, 3);
+        first.close();
+
+        SimilarBookIndex second = new SimilarBookIndex(repo, changeLogRepo, file);
+        second.init();
+
+        assertThat(second.similar(1L, 3)).isEqualTo(expected);
+    }
+
+    @Test
+    void replaysBookChangesMadeSinceTheFileWasWritten() {
+        BookRepository repo = mock(BookRepository.class);
+        ChangeLogRepository changeLogRepo = mock(ChangeLogRepository.class);
+        String file = tempDir.resolve("idx").toString();
+        SimilarBookIndex first = new SimilarBookIndex(repo, changeLogRepo, file);
+        catalog().forEach(first::update);
+        first.close();
+
+        // While the index was down, 2 was deleted and 3 became another Orwell dystopia.
+        when(changeLogRepo.findChangesAfter(eq(0L), eq(0L), anyCollection(), anyInt()))
+                .thenReturn(List.of(bookEntry(7, 1, 2L), bookEntry(8, 2, 3L)));
+        when(repo.findAllById(anyIterable())).thenReturn(List.of(Book.builder().id(3L).title("Burmese Days")
+                .author("George Orwell").genre("Dystopia").description("A totalitarian colonial state").build()));
+        SimilarBookIndex second = new SimilarBookIndex(repo, changeLogRepo, file);
+        second.init();
+
+        assertThat(second.similar(1L, 3)).startsWith(3L).doesNotContain(2L);
+    }
+
+    @Test
+    void removedBooksAreNotReturned() {
+        SimilarBookIndex index = new SimilarBookIndex(mock(BookRepository.class), mock(ChangeLogRepository.class), tempDir.resolve("idx").toString());
+        catalog().forEach(index::update);
+
+        index.remove(2L);
+
+        assertThat(index.similar(1L, 3)).doesNotContain(2L);
+    }
+
+    private static ChangeLogEntry bookEntry(long txId, long id, Long bookId) {
+        return ChangeLogEntry.builder().txId(txId).id(id).entityType(EntityType.BOOK).entityId(bookId)
+                .operation(Operation.UPSERT).build();
+    }
+
+    private List<Book> catalog() {
+        return List.of(
+                Book.builder().id(1L).title("1984").author("George Orwell").genre("Dystopia")
+                        .description("A totalitarian state watches every citizen").build(),
+                Book.builder().id(2L).title("Animal Farm").author("George Orwell").genre("Dystopia")
+                        .description("A totalitarian regime rises on a farm").build(),
+                Book.builder().id(3L).title("The Hobbit").author("J.R.R. Tolkien").genre("Fantasy")
+                        .description("Adventure in Middle-earth with a dragon").build(),
+                Book.builder().id(4L).title("Clean Code").author("Robert C. Martin").genre("Programming")
+                        .description("Best practices for writing readable code").build());
+    }
+}
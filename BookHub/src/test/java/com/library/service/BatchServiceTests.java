@@ -0,0 +1,137 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.BatchRequest;
+import com.library.dto.BatchResponseDTO;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class BatchServiceTests {
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final DispatcherServlet dispatcherServlet = mock(DispatcherServlet.class);
+    private final Filter securityFilterChain = (request, response, chain) -> {
+        if (((HttpServletRequest) request).getHeader("Authorization") == null) {
+            ((HttpServletResponse) response).sendError(401);
+            return;
+        }
+        chain.doFilter(request, response);
+    };
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void subRequestsKeepTheQueryAsSent() {
+        URI uri = BatchService.subRequestUri("/api/books/search?q=tom%26jerry&size=5");
+
+        assertThat(uri).hasNoHost().hasPath("/api/books/search");
+        assertThat(uri.getRawQuery()).isEqualTo("q=tom%26jerry&size=5");
+    }
+
+    @Test
+    void rejectsPathsThatNameAnotherHost() {
+        assertThat(BatchService.subRequestUri("@evil.example:9000/api/books")).isNull();
+        assertThat(BatchService.subRequestUri("//evil.example/api/books")).isNull();
+        assertThat(BatchService.subRequestUri("http://evil.example/api/books")).isNull();
+        assertThat(BatchService.subRequestUri("/api/books#fragment")).isNull();
+        assertThat(BatchService.subRequestUri(null)).isNull();
+    }
+
+    @Test
+    void normalizesDotSegmentsBeforeThePrefixCheck() {
+        assertThat(BatchService.subRequestUri("/api/%2e%2e/actuator/prometheus")).hasPath("/actuator/prometheus");
+    }
+
+    @Test
+    void dispatchesSubRequestsInProcessWithTheCallersAuthorization() throws Exception {
+        doAnswer(invocation -> {
+            HttpServletRequest request = invocation.getArgument(0);
+            HttpServletResponse response = invocation.getArgument(1);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"path\":\"" + request.getServletPath() + "\",\"q\":\"" + request.getParameter("q")
+                    + "\",\"auth\":\"" + request.getHeader("Authorization") + "\"}");
+            return null;
+        }).when(dispatcherServlet).service(any(ServletRequest.class), any(ServletResponse.class));
+
+        BatchResponseDTO result = service(4).execute(List.of(
+                item("a", "GET", "/api/books/search?q=tom%26jerry"),
+                item("b", "POST", "/api/books"),
+                item("c", null, "/api/batch"),
+                item("d", null, "/actuator/prometheus")), batchRequest("Bearer token"));
+
+        List<BatchResponseDTO.Item> responses = result.getResponses();
+        assertThat(responses).extracting(BatchResponseDTO.Item::getStatus).containsExactly(200, 405, 400, 400);
+        assertThat(responses.get(0).getBody().get("path").asText()).isEqualTo("/api/books/search");
+        assertThat(responses.get(0).getBody().get("q").asText()).isEqualTo("tom&jerry");
+        assertThat(responses.get(0).getBody().get("auth").asText()).isEqualTo("Bearer token");
+    }
+
+    @Test
+    void securityErrorsBecomeTheItemStatus() {
+        BatchResponseDTO result = service(4).execute(List.of(item("a", "GET", "/api/favorites")), batchRequest(null));
+
+        BatchResponseDTO.Item response = result.getResponses().get(0);
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getBody().get("message").asText()).isEqualTo("Unauthorized");
+    }
+
+    @Test
+    void runsAtMostTheConfiguredNumberOfSubRequestsAtOnce() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(30);
+            inFlight.decrementAndGet();
+            HttpServletResponse response = invocation.getArgument(1);
+            response.getWriter().write("{}");
+            return null;
+        }).when(dispatcherServlet).service(any(ServletRequest.class), any(ServletResponse.class));
+        List<BatchRequest.Item> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) items.add(item("r" + i, "GET", "/api/books/" + i));
+
+        BatchResponseDTO result = service(3).execute(items, batchRequest("Bearer token"));
+
+        assertThat(result.getResponses()).extracting(BatchResponseDTO.Item::getStatus).containsOnly(200);
+        assertThat(maxInFlight.get()).isBetween(2, 3);
+    }
+
+    private BatchService service(int concurrency) {
+        return new BatchService(new ObjectMapper(), securityFilterChain, dispatcherServlet, executor, 20, concurrency, 5000);
+    }
+
+    private static MockHttpServletRequest batchRequest(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/batch");
+        if (authorization != null) request.addHeader("Authorization", authorization);
+        return request;
+    }
+
+    private static BatchRequest.Item item(String id, String method, String path) {
+        BatchRequest.Item item = new BatchRequest.Item();
+        item.setId(id);
+        item.setMethod(method);
+        item.setPath(path);
+        return item;
+    }
+}
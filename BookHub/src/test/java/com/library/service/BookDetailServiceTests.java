@@ -0,0 +1,80 @@
+package com.library.service;
+
+import com.library.dto.BookDetailDTO;
+import com.library.entity.Book;
+import com.library.exception.ConcurrencyLimitExceededException;
+import com.library.favorites.FavoriteBitmapCache;
+import com.library.repository.BookRepository;
+import com.library.repository.ReviewRepository;
+import com.library.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookDetailServiceTests {
+    private static final Executor DIRECT = Runnable::run;
+    private static final Executor SATURATED = task -> {
+        throw new RejectedExecutionException("queue full");
+    };
+
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final ReviewRepository reviewRepo = mock(ReviewRepository.class);
+    private final UserRepository userRepo = mock(UserRepository.class);
+    private final HistoryService historyService = mock(HistoryService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Test
+    void saturatedReadExecutorIsReportedAsRetryableOverload() {
+        BookDetailService detail = service(SATURATED, DIRECT);
+
+        assertThatThrownBy(() -> detail.getDetail(1L, null))
+                .isInstanceOf(ConcurrencyLimitExceededException.class)
+                .satisfies(e -> assertThat(((ConcurrencyLimitExceededException) e).getRetryAfterSeconds()).isPositive());
+    }
+
+    @Test
+    void viewsAreDroppedRatherThanFailingThePageWhenTheirExecutorIsFull() {
+        when(bookRepo.findById(1L)).thenReturn(Optional.of(Book.builder().id(1L).title("Dune").author("Herbert").build()));
+        when(reviewRepo.findRatingCounts(1L)).thenReturn(Optional.empty());
+        when(reviewRepo.findNewest(eq(1L), any())).thenReturn(List.of());
+        when(userRepo.findByEmail("reader@example.com")).thenReturn(Optional.empty());
+
+        BookDetailDTO page = service(DIRECT, SATURATED).getDetail(1L, "reader@example.com");
+
+        assertThat(page.getBook().getTitle()).isEqualTo("Dune");
+        verify(historyService, never()).recordView(any(), any());
+    }
+
+    @Test
+    void readsRunInTransactionsBoundedByTheDeadline() {
+        when(bookRepo.findById(1L)).thenReturn(Optional.of(Book.builder().id(1L).title("Dune").author("Herbert").build()));
+        when(reviewRepo.findRatingCounts(1L)).thenReturn(Optional.empty());
+        when(reviewRepo.findNewest(eq(1L), any())).thenReturn(List.of());
+
+        service(DIRECT, DIRECT).getDetail(1L, null);
+
+        verify(transactionManager, atLeastOnce()).getTransaction(argThat((TransactionDefinition d) ->
+                d.isReadOnly() && d.getTimeout() == 2));
+    }
+
+    private BookDetailService service(Executor readExecutor, Executor viewExecutor) {
+        return new BookDetailService(bookRepo, reviewRepo, mock(FavoriteBitmapCache.class), userRepo, historyService,
+                readExecutor, viewExecutor, transactionManager, 1500, 10);
+    }
+}
@@ -0,0 +1,89 @@
+package com.library.service;
+
+import com.library.catalog.CatalogReadModel;
+import com.library.cluster.ClusterEventBus;
+import com.library.dto.BookDTO;
+import com.library.entity.Book;
+import com.library.outbox.OutboxPublisher;
+import com.library.repository.BookRepository;
+import com.library.repository.ReviewRepository;
+import com.library.search.SimilarBookIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookServiceTests {
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final ReviewRepository reviewRepo = mock(ReviewRepository.class);
+    private final FeedService feedService = mock(FeedService.class);
+    // The catalog model is off: every listing below is served by the database fallback.
+    private final BookService books = new BookService(bookRepo, reviewRepo, mock(SimilarBookIndex.class),
+            mock(ChangeLogService.class), mock(OutboxPublisher.class), mock(CatalogReadModel.class),
+            mock(ClusterEventBus.class), mock(JsonResponseCache.class), feedService, mock(PlatformTransactionManager.class), 0, "./uploads", 10,
+            new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        when(reviewRepo.findTopBooks(anyDouble(), any(Pageable.class))).thenReturn(rows(4L, 1L));
+        when(reviewRepo.findLowestRatedBooks(anyDouble(), any(Pageable.class))).thenReturn(rows(1L, 4L));
+        when(reviewRepo.countRatedBooks()).thenReturn(2L);
+        when(bookRepo.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Book> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) inv.getArgument(0)) found.add(Book.builder().id((Long) id).title("Book " + id).build());
+            return found;
+        });
+    }
+
+    @Test
+    void ratingSortIsWorstFirstByDefaultLikeTheCatalog() {
+        Page<BookDTO> page = books.getAllViews(PageRequest.of(0, 10, Sort.by("rating")));
+
+        assertThat(page.getContent()).extracting(BookDTO::getId).containsExactly(1L, 4L);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void descendingRatingSortIsBestFirst() {
+        Page<BookDTO> page = books.getAllViews(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "rating")));
+
+        assertThat(page.getContent()).extracting(BookDTO::getId).containsExactly(4L, 1L);
+    }
+
+    @Test
+    void sortedListingByRatingUsesTheSameOrder() {
+        assertThat(books.getAllSortedViews("rating", 0, 10).getContent()).extracting(BookDTO::getId).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void updatingABookDropsTheFeedsListingIt() {
+        when(bookRepo.findById(4L)).thenReturn(Optional.of(Book.builder().id(4L).title("Old").author("Author").build()));
+        when(bookRepo.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        books.updateBook(4L, Book.builder().title("New").author("Author").genre("Fantasy").build());
+
+        verify(feedService).bookRemoved(4L);
+    }
+
+    private static List<Object[]> rows(Long... ids) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long id : ids) rows.add(new Object[]{id, 4.0});
+        return rows;
+    }
+}
@@ -0,0 +1,101 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.repository.BookRepository;
+import com.library.repository.FavoriteRepository;
+import com.library.repository.HistoryRepository;
+import com.library.repository.ReviewRepository;
+import com.library.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedServiceTests {
+    private final UserRepository userRepo = mock(UserRepository.class);
+    private final BookRepository bookRepo = mock(BookRepository.class);
+    private final ReviewRepository reviewRepo = mock(ReviewRepository.class);
+    private final HistoryRepository historyRepo = mock(HistoryRepository.class);
+    private final FavoriteRepository favoriteRepo = mock(FavoriteRepository.class);
+    private final FeedService feeds = new FeedService(userRepo, bookRepo, reviewRepo, historyRepo, favoriteRepo,
+            3, 500, 24, 60, 10, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        when(userRepo.findByEmail("reader@example.com"))
+                .thenReturn(Optional.of(User.builder().id(7L).email("reader@example.com").build()));
+        // Trending: 1, 2; top rated: 3; the reader mostly reads fantasy and has favorited book 2.
+        when(historyRepo.findTrendingBookIds(any(Instant.class), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(reviewRepo.findTopBooks(anyDouble(), any(Pageable.class))).thenReturn(rows(new Object[]{3L, 4.5}));
+        when(bookRepo.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<Book> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) inv.getArgument(0)) found.add(book((Long) id, (Long) id == 3L ? "Dystopia" : "Fantasy"));
+            return found;
+        });
+        when(bookRepo.findByGenreIgnoreCase(eq("fantasy"), any(Pageable.class)))
+                .thenReturn(List.of(book(4L, "Fantasy"), book(5L, "Fantasy")));
+        when(historyRepo.countGenresByUserId(7L)).thenReturn(rows(new Object[]{"Fantasy", 4L}, new Object[]{"Dystopia", 1L}));
+        when(favoriteRepo.countGenresByUserId(7L)).thenReturn(List.of());
+        when(favoriteRepo.findBookIdsByUserId(7L)).thenReturn(List.of(2L));
+    }
+
+    @Test
+    void blendsGenreAffinityWithTrendingAndSkipsFavorites() {
+        List<BookDTO> feed = feeds.getFeed("reader@example.com");
+
+        // 1 is trending fantasy, 4 and 5 only match the genre (ties by id), 3 is top rated but off-genre.
+        assertThat(feed).extracting(BookDTO::getId).containsExactly(1L, 4L, 5L);
+    }
+
+    @Test
+    void servesTheCachedFeedUntilABookInItIsRemoved() {
+        feeds.getFeed("reader@example.com");
+        feeds.getFeed("reader@example.com");
+        verify(favoriteRepo, times(1)).findBookIdsByUserId(7L);
+
+        feeds.bookRemoved(3L);
+        feeds.getFeed("reader@example.com");
+        verify(favoriteRepo, times(1)).findBookIdsByUserId(7L);
+
+        when(historyRepo.findTrendingBookIds(any(Instant.class), any(Pageable.class))).thenReturn(List.of(2L));
+        feeds.bookRemoved(1L);
+        assertThat(feeds.getFeed("reader@example.com")).extracting(BookDTO::getId).doesNotContain(1L);
+        verify(favoriteRepo, times(2)).findBookIdsByUserId(7L);
+    }
+
+    @Test
+    void activeUsersGetTheirFeedPrecomputed() {
+        feeds.markActive(7L);
+        feeds.refreshActiveUsers();
+        verify(favoriteRepo, times(1)).findBookIdsByUserId(anyLong());
+
+        assertThat(feeds.getFeed("reader@example.com")).isNotEmpty();
+        verify(favoriteRepo, times(1)).findBookIdsByUserId(anyLong());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static Book book(Long id, String genre) {
+        return Book.builder().id(id).title("Book " + id).author("Author").genre(genre).build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.catalog.CatalogReadModel;
+import com.library.dto.BookDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JsonResponseCacheTests {
+    private final CatalogReadModel catalog = mock(CatalogReadModel.class);
+    private final JsonResponseCache cache = new JsonResponseCache(new ObjectMapper(), catalog, true, 1 << 20, 100, 60_000,
+            new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void hitsReuseSerializedBytesUntilTheBookChanges() {
+        byte[] first = cache.book(1L, () -> load("Dune"));
+        byte[] second = cache.book(1L, () -> load("Dune"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(new String(first, StandardCharsets.UTF_8)).contains("\"title\":\"Dune\"");
+        assertThat(loads).hasValue(1);
+
+        cache.bookChanged(2L);
+        assertThat(cache.book(1L, () -> load("Dune"))).isSameAs(first);
+        cache.bookChanged(1L);
+        assertThat(new String(cache.book(1L, () -> load("Dune Messiah")), StandardCharsets.UTF_8)).contains("Dune Messiah");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void listsFollowRatingsAndTheReadModelRevision() {
+        when(catalog.revision()).thenReturn(1L);
+        cache.topBooks(10, () -> List.of(load("Dune")));
+        cache.genre("SciFi", () -> List.of(load("Dune")));
+        cache.genre("scifi", () -> List.of(load("Dune")));
+        assertThat(loads).hasValue(2);
+
+        cache.ratingsChanged();
+        cache.topBooks(10, () -> List.of(load("Dune")));
+        cache.genre("scifi", () -> List.of(load("Dune")));
+        assertThat(loads).hasValue(4);
+
+        when(catalog.revision()).thenReturn(2L);
+        cache.genre("scifi", () -> List.of(load("Dune")));
+        assertThat(loads).hasValue(5);
+    }
+
+    @Test
+    void emptyListsAreNotKept() {
+        for (int i = 0; i < 3; i++) {
+            cache.genre("no-such-genre", () -> {
+                loads.incrementAndGet();
+                return List.of();
+            });
+        }
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void keepsAtMostMaxEntriesKeys() {
+        JsonResponseCache small = new JsonResponseCache(new ObjectMapper(), catalog, true, 1 << 20, 4, 60_000,
+                new SimpleMeterRegistry());
+        for (long id = 1; id <= 10; id++) small.book(id, () -> load("Dune"));
+
+        for (long id = 1; id <= 10; id++) small.book(id, () -> load("Dune"));
+
+        // At most four of the ten books survived the first pass.
+        assertThat(loads.get()).isGreaterThanOrEqualTo(16);
+    }
+
+    private BookDTO load(String title) {
+        loads.incrementAndGet();
+        return BookDTO.builder().id(1L).title(title).author("Frank Herbert").build();
+    }
+}
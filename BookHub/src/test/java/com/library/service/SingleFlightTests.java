@@ -0,0 +1,100 @@
+package com.library.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentCallsForTheSameKeyShareOneLoad() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ZERO, registry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(11);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> flight.execute(1L, () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "book-1";
+            })));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 10; i++) {
+                results.add(pool.submit(() -> flight.execute(1L, () -> {
+                    loads.incrementAndGet();
+                    return "unexpected";
+                })));
+            }
+            while (joined() < 10) Thread.sleep(5);
+            release.countDown();
+
+            for (Future<String> result : results) assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("book-1");
+            assertThat(loads).hasValue(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void withoutTtlEveryCallAfterCompletionLoadsAgain() {
+        SingleFlight<Long, Integer> flight = new SingleFlight<>("test", Duration.ZERO, registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.execute(1L, loads::incrementAndGet);
+        flight.execute(1L, loads::incrementAndGet);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void resultIsReusedWithinTtlUntilInvalidated() {
+        SingleFlight<Long, Integer> flight = new SingleFlight<>("test", Duration.ofMinutes(1), registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(flight.execute(1L, loads::incrementAndGet)).isEqualTo(1);
+        assertThat(flight.execute(1L, loads::incrementAndGet)).isEqualTo(1);
+        assertThat(flight.execute(2L, loads::incrementAndGet)).isEqualTo(2);
+
+        flight.invalidate(1L);
+
+        assertThat(flight.execute(1L, loads::incrementAndGet)).isEqualTo(3);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        SingleFlight<Long, Integer> flight = new SingleFlight<>("test", Duration.ofMinutes(1), registry);
+
+        assertThatThrownBy(() -> flight.execute(1L, () -> { throw new IllegalStateException("down"); }))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(flight.execute(1L, () -> 42)).isEqualTo(42);
+    }
+
+    private double joined() {
+        return registry.get("coalescing.calls").tag("result", "joined").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
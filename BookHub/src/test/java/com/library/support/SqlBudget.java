@@ -0,0 +1,31 @@
+package com.library.support;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Asserts how many SQL statements a block of code may run, e.g. one MockMvc request. */
+public final class SqlBudget {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private SqlBudget() {
+    }
+
+    public static List<String> assertAtMost(int budget, Action action) throws Exception {
+        SqlStatementCounter.start();
+        List<String> statements;
+        try {
+            action.run();
+        } finally {
+            statements = SqlStatementCounter.stop();
+        }
+        assertThat(statements)
+                .as("SQL statements (budget %d):%n%s", budget, String.join(System.lineSeparator(), statements))
+                .hasSizeLessThanOrEqualTo(budget);
+        return statements;
+    }
+}
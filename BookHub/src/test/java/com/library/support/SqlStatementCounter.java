@@ -0,0 +1,38 @@
+package com.library.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hibernate statement inspector that captures SQL while recording is on. Registered for all tests through
+ * {@code hibernate.session_factory.statement_inspector}, so state is static and shared by every context.
+ * Statements from scheduler threads are ignored so background jobs cannot skew a request's count.
+ */
+public class SqlStatementCounter implements StatementInspector {
+    private static final Queue<String> statements = new ConcurrentLinkedQueue<>();
+    private static volatile boolean recording;
+
+    @Override
+    public String inspect(String sql) {
+        if (recording && !Thread.currentThread().getName().startsWith("scheduling-")) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public static void start() {
+        statements.clear();
+        recording = true;
+    }
+
+    public static List<String> stop() {
+        recording = false;
+        List<String> captured = new ArrayList<>(statements);
+        statements.clear();
+        return captured;
+    }
+}
@@ -2,6 +2,7 @@ import 'package:flutter_riverpod/flutter_riverpod.dart';
 
 import '../api/api_client.dart';
 import '../models/book.dart';
+import '../models/history_entry.dart';
 import '../models/user.dart';
 import '../utils/auth_storage.dart';
 import '../utils/error_mapper.dart';
@@ -208,7 +209,10 @@ class UserController extends StateNotifier<UserState> {
     try {
       final response = await _api.getHistory();
       final items = extractList(response.data)
-          .map((dynamic item) => Book.fromJson(item as Map<String, dynamic>))
+          .map(
+            (dynamic item) =>
+                HistoryEntry.fromJson(item as Map<String, dynamic>).book,
+          )
           .toList();
       final history = _dedupeBooks(items);
       state = state.copyWith(